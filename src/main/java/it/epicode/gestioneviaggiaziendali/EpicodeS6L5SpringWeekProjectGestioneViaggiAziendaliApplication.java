@@ -2,8 +2,10 @@ package it.epicode.gestioneviaggiaziendali;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EpicodeS6L5SpringWeekProjectGestioneViaggiAziendaliApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,65 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Latenza e numero di query per METODO di controller (non per URI come http.server.requests):
+// - app.controller.requests        timer con istogramma (p50/p95/p99 calcolabili in Prometheus)
+// - app.hibernate.queries.per.request  statement SQL eseguiti durante la richiesta
+// Tag: controller, method, status
+public class ControllerMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ControllerMetricsInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+
+    public ControllerMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Le richieste async (export) ripassano di qui nel dispatch finale: teniamo l'inizio originale
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            QueryCountInspector.reset();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        String controller = handlerMethod.getBeanType().getSimpleName();
+        String method = handlerMethod.getMethod().getName();
+        String status = String.valueOf(response.getStatus());
+
+        Timer.builder("app.controller.requests")
+                .description("Latenza dei metodi dei controller REST")
+                .tags("controller", controller, "method", method, "status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // Nel dispatch async le query sono state fatte su altri thread: il contatore non le vede
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            DistributionSummary.builder("app.hibernate.queries.per.request")
+                    .description("Statement SQL eseguiti da Hibernate per richiesta")
+                    .tags("controller", controller, "method", method, "status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(QueryCountInspector.count());
+        }
+    }
+}
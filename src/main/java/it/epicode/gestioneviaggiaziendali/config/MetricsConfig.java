@@ -0,0 +1,33 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    // Le metriche "di serie" arrivano da Actuator (vedi application.properties):
+    // http.server.requests, hikaricp.* (pool di connessioni) e hibernate.* (statistiche Hibernate).
+    // Qui aggiungiamo quelle per metodo di controller e il conteggio delle query per richiesta.
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ControllerMetricsInterceptor(meterRegistry)).addPathPatterns("/api/**", "/auth/**");
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
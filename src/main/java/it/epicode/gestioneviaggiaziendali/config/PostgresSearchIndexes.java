@@ -0,0 +1,57 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import java.sql.DatabaseMetaData;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PostgresSearchIndexes implements ApplicationRunner {
+
+    // ===== INDICI SPECIFICI DI POSTGRESQL PER LA RICERCA VIAGGI =====
+    // Gli indici portabili sono dichiarati su Travel (@Index). Su PostgreSQL pero:
+    // - un btree normale NON serve LIKE 'rom%' se la collation non e "C": serve text_pattern_ops;
+    // - LIKE '%rom%' usa un indice solo con pg_trgm (GIN trigram).
+    // Su altri database (es. H2 nei test) non faccio nulla.
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresSearchIndexes.class);
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresSearchIndexes(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equals(product)) {
+            return;
+        }
+
+        jdbcTemplate.execute("""
+                create index if not exists idx_travels_destination_prefix
+                on travels (destination_normalized text_pattern_ops)
+                """);
+
+        try {
+            // L'estensione puo richiedere privilegi che l'utente applicativo non ha:
+            // in quel caso la ricerca per sottostringa funziona lo stesso, solo senza indice
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            jdbcTemplate.execute("""
+                    create index if not exists idx_travels_destination_trgm
+                    on travels using gin (destination_normalized gin_trgm_ops)
+                    """);
+        } catch (RuntimeException ex) {
+            log.warn("Indice trigram non creato, ricerca per sottostringa senza indice: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Conta gli statement SQL preparati da Hibernate sul thread corrente.
+// ControllerMetricsInterceptor lo azzera all'inizio della richiesta e legge il totale alla fine:
+// e il modo piu economico per vedere le N+1 senza accendere show-sql.
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql; // SQL invariato: qui contiamo soltanto
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,121 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // ===== CACHE DI SECONDO LIVELLO (Hibernate + JCache/Caffeine) =====
+    // Travel ed Employee sono letti di continuo per id (findById di TravelService, BookingService.create,
+    // caricamento del principal) e cambiano di rado: restano in memoria tra una transazione e l'altra.
+    // LOGICA PASSO-PASSO:
+    // 1) Il CacheManager JCache e creato qui, una cache Caffeine per region con dimensione massima e TTL
+    //    presi da app.cache.* (invece di un file di configurazione separato)
+    // 2) Hibernate lo riceve con hibernate.javax.cache.cache_manager; una region mancante fa fallire l'avvio
+    // 3) Update e delete fatti via JPA aggiornano/invalidano la region da soli (strategia READ_WRITE);
+    //    le scritture fuori da JPA (DatabaseSeeder via JDBC) devono svuotarla a mano, gli update nativi
+    //    di TravelRepository (posti, stato) tolgono solo le righe toccate (evictAfterCommit)
+    // 4) Il TTL limita quanto puo restare vecchio un valore modificato da un ALTRO nodo
+    // La query cache (finder di EmployeeRepository) viene invalidata da Hibernate a ogni modifica
+    // della tabella: per questo la region dei timestamp non ha limiti ne scadenza.
+
+    public static final String TRAVELS_REGION = "travels";
+    public static final String EMPLOYEES_REGION = "employees";
+    private static final List<String> ENTITY_REGIONS = List.of(TRAVELS_REGION, EMPLOYEES_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${app.cache.travels.max-entries:10000}") long travelsMaxEntries,
+            @Value("${app.cache.travels.ttl-seconds:600}") long travelsTtlSeconds,
+            @Value("${app.cache.employees.max-entries:10000}") long employeesMaxEntries,
+            @Value("${app.cache.employees.ttl-seconds:300}") long employeesTtlSeconds,
+            @Value("${app.cache.queries.max-entries:10000}") long queriesMaxEntries,
+            @Value("${app.cache.queries.ttl-seconds:300}") long queriesTtlSeconds) {
+        // URI univoco: un CacheManager per contesto Spring (nei test convivono piu contesti e piu database)
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(TRAVELS_REGION, region(travelsMaxEntries, travelsTtlSeconds));
+        cacheManager.createCache(EMPLOYEES_REGION, region(employeesMaxEntries, employeesTtlSeconds));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(queriesMaxEntries, queriesTtlSeconds));
+        // Timestamp di ultima modifica per tabella: poche righe, non devono mai sparire prima dei risultati
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(0, 0));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate mette in cache lo stato "smontato" dell'entity (gia una copia): niente copia per valore
+        configuration.setStoreByValue(false);
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (ttlSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(ttlSeconds).toNanos()));
+        }
+        return configuration;
+    }
+
+    // ===== METRICHE =====
+    // Oltre ai contatori hibernate.second.level.cache.* di hibernate-micrometer: hit ratio per region,
+    // pronto per dashboard e alert (richiede hibernate.generate_statistics=true)
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : ENTITY_REGIONS) {
+                hitRatio(registry, statistics, region, stats -> {
+                    CacheRegionStatistics regionStats = stats.getDomainDataRegionStatistics(region);
+                    return ratio(regionStats.getHitCount(), regionStats.getMissCount());
+                });
+            }
+            hitRatio(registry, statistics, "query",
+                    stats -> ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()));
+        };
+    }
+
+    private static void hitRatio(MeterRegistry registry, Statistics statistics, String region,
+                                 ToDoubleFunction<Statistics> ratio) {
+        Gauge.builder("app.hibernate.cache.hit.ratio", statistics, ratio)
+                .tag("region", region)
+                .description("Hit / (hit + miss) della cache di secondo livello")
+                .register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,42 @@
+package it.epicode.gestioneviaggiaziendali.controller;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.AdminStatsResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.CacheStatsResponse;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import it.epicode.gestioneviaggiaziendali.security.PasswordHashingService;
+import it.epicode.gestioneviaggiaziendali.security.PrincipalCache;
+import it.epicode.gestioneviaggiaziendali.security.VerifiedTokenCache;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final PrincipalCache principalCache;
+    private final JwtTools jwtTools;
+    private final PasswordHashingService passwordHashingService;
+
+    public AdminController(PrincipalCache principalCache,
+                           JwtTools jwtTools,
+                           PasswordHashingService passwordHashingService) {
+        this.principalCache = principalCache;
+        this.jwtTools = jwtTools;
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può leggere le statistiche interne (dimensionamento cache)
+    public AdminStatsResponse getStats() {
+        VerifiedTokenCache tokenCache = jwtTools.getVerifiedTokenCache();
+        return new AdminStatsResponse(
+                new CacheStatsResponse(principalCache.size(), principalCache.hits(),
+                        principalCache.misses(), principalCache.evictions()),
+                new CacheStatsResponse(tokenCache.size(), tokenCache.hits(),
+                        tokenCache.misses(), tokenCache.evictions()),
+                passwordHashingService.stats()
+        );
+    }
+}
@@ -1,12 +1,28 @@
 package it.epicode.gestioneviaggiaziendali.controller;
 
+import it.epicode.gestioneviaggiaziendali.dto.request.BookingExportFormat;
+import it.epicode.gestioneviaggiaziendali.dto.request.BulkCreateBookingRequest;
 import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingArchiveResponse;
 import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
-import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.service.BookingArchiveService;
+import it.epicode.gestioneviaggiaziendali.service.BookingExportService;
 import it.epicode.gestioneviaggiaziendali.service.BookingService;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,42 +30,140 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final MediaType GZIP = new MediaType("application", "gzip");
+
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
+    private final BookingArchiveService bookingArchiveService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService,
+                             BookingExportService bookingExportService,
+                             BookingArchiveService bookingArchiveService) {
         this.bookingService = bookingService;
+        this.bookingExportService = bookingExportService;
+        this.bookingArchiveService = bookingArchiveService;
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può vedere tutte le prenotazioni
-    public List<BookingResponse> getAll() {
-        return bookingService.findAll();
+    public Page<BookingResponse> getAll(Pageable pageable,
+                                        @RequestParam(defaultValue = "false") boolean includeArchived,
+                                        ServletWebRequest request) {
+        // includeArchived=true: anche le prenotazioni archiviate (viaggi completati oltre l'orizzonte)
+        if (ConditionalGet.isNotModified(request, bookingService.versionStamp(includeArchived),
+                "bookings", includeArchived, pageable)) {
+            return null;
+        }
+        return bookingService.findAll(pageable, includeArchived);
+    }
+
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public CursorPage<BookingResponse> getAllAfter(@RequestParam String after,
+                                                   @RequestParam(required = false) Integer size,
+                                                   @RequestParam(defaultValue = "false") boolean includeArchived) {
+        // Paginazione a cursore (opt-in): ?after=&size=20 per la prima pagina, poi ?after=<nextCursor>
+        return bookingService.findAllAfter(after, size, includeArchived);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può esportare tutte le prenotazioni
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "NDJSON") BookingExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) TravelStatus status,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        // Le righe vengono scritte mentre si leggono dal DB (memoria costante, nessuna lista)
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                bookingExportService.export(format, from, to, status, includeArchived, gzipOut);
+                gzipOut.finish();
+            } else {
+                bookingExportService.export(format, from, to, status, includeArchived, out);
+            }
+        };
+
+        boolean csv = format == BookingExportFormat.CSV;
+        // gzip=true: il file scaricato E l'archivio .gz (application/gzip, niente Content-Encoding).
+        // Con Content-Encoding il client decomprimerebbe da solo e salverebbe testo in chiaro col nome .gz
+        MediaType contentType = gzip ? GZIP
+                : csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings." + (csv ? "csv" : "ndjson") + (gzip ? ".gz" : "") + "\"")
+                .body(body);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può leggere una prenotazione specifica
-    public BookingResponse getById(@PathVariable Long id) {
-        return bookingService.findById(id);
+    public BookingResponse getById(@PathVariable Long id,
+                                   @RequestParam(defaultValue = "false") boolean includeArchived,
+                                   ServletWebRequest request) {
+        if (ConditionalGet.isResourceNotModified(request, bookingService.versionStamp(id, includeArchived),
+                "booking", id)) {
+            return null;
+        }
+        return bookingService.findById(id, includeArchived);
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')") // Utenti autenticati possono prenotare
-    public BookingResponse create(@AuthenticationPrincipal Employee currentEmployee,
+    public BookingResponse create(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
                                   @Valid @RequestBody CreateBookingRequest request) {
         return bookingService.create(request, currentEmployee);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
+    public BulkBookingResponse createAll(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
+                                         @Valid @RequestBody BulkCreateBookingRequest request) {
+        // 200 con un esito per elemento (CREATED / CONFLICT / NOT_FOUND), nello stesso ordine della richiesta
+        return bookingService.createAll(request.bookings(), currentEmployee);
+    }
+
+    @PostMapping("/archive")
+    @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può avviare l'archiviazione
+    public BookingArchiveResponse archive() {
+        // Stesso job notturno, avviato a mano: risponde con righe spostate e durata
+        // (409 se un blocco trova righe cambiate durante lo spostamento: si puo ripetere)
+        return bookingArchiveService.archiveCompleted();
+    }
+
+    @GetMapping(value = "/me", params = "after")
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
+    public CursorPage<BookingResponse> getMineAfter(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
+                                                    @RequestParam String after,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return bookingService.findMineAfter(currentEmployee, after, size, includeArchived);
+    }
+
     @GetMapping("/me")
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
-    public List<BookingResponse> getMine(@AuthenticationPrincipal Employee currentEmployee) {
-        return bookingService.findMine(currentEmployee);
+    public Page<BookingResponse> getMine(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
+                                         Pageable pageable,
+                                         @RequestParam(defaultValue = "false") boolean includeArchived,
+                                         ServletWebRequest request) {
+        // L'id dell'utente fa parte dell'ETag: stessa URL, risposte diverse per utente
+        if (ConditionalGet.isNotModified(request, bookingService.mineVersionStamp(currentEmployee, includeArchived),
+                "bookings-me", currentEmployee.id(), includeArchived, pageable)) {
+            return null;
+        }
+        return bookingService.findMine(currentEmployee, pageable, includeArchived);
     }
 }
@@ -0,0 +1,56 @@
+package it.epicode.gestioneviaggiaziendali.controller;
+
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// ===== GET CONDIZIONALE (ETag / Last-Modified) =====
+// LOGICA PASSO-PASSO:
+// 1) Il controller legge il VersionStamp: una query aggregata, nessuna entity caricata
+// 2) ETag forte = hash di scope (risorsa, pagina, utente) + count + somma delle versioni + ultima modifica
+// 3) checkNotModified confronta If-None-Match / If-Modified-Since: se il client e aggiornato -> 304 senza body,
+//    il controller restituisce null e la query della pagina non parte nemmeno
+// 4) Cache-Control "no-cache, private": il browser conserva la risposta ma la rivalida sempre
+//    (altrimenti Spring Security manda no-store e il browser non farebbe mai richieste condizionali)
+// Le pagine di una collezione hanno solo l'ETag: una DELETE non sposta max(updated_at),
+// quindi una data non basta a rilevarla (il count nell'ETag si).
+final class ConditionalGet {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    // Pagina di una collezione: solo ETag
+    static boolean isNotModified(ServletWebRequest request, VersionStamp stamp, Object... scope) {
+        return check(request, etag(stamp, scope), -1);
+    }
+
+    // Risorsa singola: ETag + Last-Modified. Se non esiste nessun controllo: il controller risponde 404
+    static boolean isResourceNotModified(ServletWebRequest request, VersionStamp stamp, Object... scope) {
+        if (stamp.isEmpty()) {
+            return false;
+        }
+        return check(request, etag(stamp, scope), stamp.lastModified().toEpochMilli());
+    }
+
+    private static boolean check(ServletWebRequest request, String etag, long lastModified) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    private static String etag(VersionStamp stamp, Object... scope) {
+        String key = Arrays.stream(scope).map(String::valueOf).collect(Collectors.joining("|"))
+                + "|" + stamp.count()
+                + "|" + stamp.versionSum()
+                + "|" + (stamp.lastModified() == null ? "" : stamp.lastModified().toString());
+        return "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
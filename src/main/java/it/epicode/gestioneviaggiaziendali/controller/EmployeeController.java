@@ -2,19 +2,24 @@ package it.epicode.gestioneviaggiaziendali.controller;
 
 import it.epicode.gestioneviaggiaziendali.dto.request.CreateEmployeeRequest;
 import it.epicode.gestioneviaggiaziendali.dto.request.UpdateEmployeeRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateEmployeeRoleRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarUploadJobResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
 import it.epicode.gestioneviaggiaziendali.dto.response.EmployeeResponse;
-import it.epicode.gestioneviaggiaziendali.dto.response.UploadAvatarResponse;
-import it.epicode.gestioneviaggiaziendali.entity.Employee;
-import it.epicode.gestioneviaggiaziendali.service.CloudinaryService;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.service.AvatarUploadService;
 import it.epicode.gestioneviaggiaziendali.service.EmployeeService;
 import jakarta.validation.Valid;
+import java.net.URI;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -23,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 @RestController
@@ -30,22 +36,36 @@ import org.springframework.web.multipart.MultipartFile;
 public class EmployeeController {
 
     private final EmployeeService employeeService;
-    private final CloudinaryService cloudinaryService;
+    private final AvatarUploadService avatarUploadService;
 
-    public EmployeeController(EmployeeService employeeService, CloudinaryService cloudinaryService) {
+    public EmployeeController(EmployeeService employeeService, AvatarUploadService avatarUploadService) {
         this.employeeService = employeeService;
-        this.cloudinaryService = cloudinaryService;
+        this.avatarUploadService = avatarUploadService;
     }
 
     @GetMapping
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può vedere tutti i dipendenti
-    public Page<EmployeeResponse> getAll(Pageable pageable) {
+    public Page<EmployeeResponse> getAll(Pageable pageable, ServletWebRequest request) {
+        if (ConditionalGet.isNotModified(request, employeeService.versionStamp(), "employees", pageable)) {
+            return null;
+        }
         return employeeService.findAll(pageable);
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public CursorPage<EmployeeResponse> getAllAfter(@RequestParam String after,
+                                                    @RequestParam(required = false) Integer size) {
+        // Paginazione a cursore (opt-in): ?after=&size=20 per la prima pagina, poi ?after=<nextCursor>
+        return employeeService.findAllAfter(after, size);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può leggere il profilo di altri
-    public EmployeeResponse getById(@PathVariable Long id) {
+    public EmployeeResponse getById(@PathVariable Long id, ServletWebRequest request) {
+        if (ConditionalGet.isResourceNotModified(request, employeeService.versionStamp(id), "employee", id)) {
+            return null;
+        }
         return employeeService.findById(id);
     }
 
@@ -62,6 +82,19 @@ public class EmployeeController {
         return employeeService.update(id, request);
     }
 
+    @PatchMapping("/{id}/role")
+    @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può cambiare il ruolo di un dipendente
+    public EmployeeResponse updateRole(@PathVariable Long id, @Valid @RequestBody UpdateEmployeeRoleRequest request) {
+        return employeeService.updateRole(id, request);
+    }
+
+    @PostMapping("/{id}/revoke-tokens")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può revocare i token di un dipendente
+    public void revokeTokens(@PathVariable Long id) {
+        employeeService.revokeTokens(id);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può eliminare dipendenti
@@ -71,9 +104,17 @@ public class EmployeeController {
 
     @PostMapping("/{id}/avatar")
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può cambiare avatar di altri
-    public UploadAvatarResponse uploadAvatar(@PathVariable Long id, @RequestParam("avatar") MultipartFile avatar) {
-        String url = cloudinaryService.uploadImage(avatar);
-        return employeeService.updateAvatar(id, url);
+    public ResponseEntity<AvatarUploadJobResponse> uploadAvatar(@PathVariable Long id,
+                                                                @RequestParam("avatar") MultipartFile avatar) {
+        // Upload asincrono: 202 Accepted + job da seguire su /api/employees/avatar-jobs/{jobId}
+        return accepted(avatarUploadService.submit(id, avatar));
+    }
+
+    @GetMapping("/avatar-jobs/{jobId}")
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')") // USER: solo i propri job (controllo nel service)
+    public AvatarUploadJobResponse getAvatarJob(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
+                                                @PathVariable String jobId) {
+        return avatarUploadService.findJob(jobId, currentEmployee);
     }
 
     // ===== ENDPOINT "ME" (ANTI-IDOR) =====
@@ -82,22 +123,41 @@ public class EmployeeController {
 
     @GetMapping("/me")
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
-    public EmployeeResponse getMe(@AuthenticationPrincipal Employee currentEmployee) {
-        return employeeService.findById(currentEmployee.getId());
+    public EmployeeResponse getMe(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
+                                  ServletWebRequest request) {
+        // Interrogato di continuo dal frontend: 304 finche il profilo non cambia
+        if (ConditionalGet.isResourceNotModified(request, employeeService.versionStamp(currentEmployee.id()),
+                "employee", currentEmployee.id())) {
+            return null;
+        }
+        return employeeService.findById(currentEmployee.id());
     }
 
     @PutMapping("/me")
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
-    public EmployeeResponse updateMe(@AuthenticationPrincipal Employee currentEmployee,
+    public EmployeeResponse updateMe(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
                                      @Valid @RequestBody UpdateEmployeeRequest request) {
-        return employeeService.update(currentEmployee.getId(), request);
+        return employeeService.update(currentEmployee.id(), request);
+    }
+
+    @PostMapping("/me/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
+    public void logout(@AuthenticationPrincipal EmployeePrincipal currentEmployee) {
+        // Con JWT non c'e una sessione da chiudere: il logout revoca i token gia emessi
+        employeeService.revokeTokens(currentEmployee.id());
     }
 
     @PostMapping("/me/avatar")
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
-    public UploadAvatarResponse uploadMyAvatar(@AuthenticationPrincipal Employee currentEmployee,
-                                               @RequestParam("avatar") MultipartFile avatar) {
-        String url = cloudinaryService.uploadImage(avatar);
-        return employeeService.updateAvatar(currentEmployee.getId(), url);
+    public ResponseEntity<AvatarUploadJobResponse> uploadMyAvatar(@AuthenticationPrincipal EmployeePrincipal currentEmployee,
+                                                                  @RequestParam("avatar") MultipartFile avatar) {
+        return accepted(avatarUploadService.submit(currentEmployee.id(), avatar));
+    }
+
+    private static ResponseEntity<AvatarUploadJobResponse> accepted(AvatarUploadJobResponse job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/employees/avatar-jobs/" + job.jobId()))
+                .body(job);
     }
 }
@@ -0,0 +1,32 @@
+package it.epicode.gestioneviaggiaziendali.controller;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.MonthlyReportResponse;
+import it.epicode.gestioneviaggiaziendali.service.MonthlyReportService;
+import java.time.YearMonth;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private final MonthlyReportService monthlyReportService;
+
+    public ReportController(MonthlyReportService monthlyReportService) {
+        this.monthlyReportService = monthlyReportService;
+    }
+
+    @GetMapping("/monthly")
+    @PreAuthorize("hasAuthority('ADMIN')") // Report per l'amministrazione: solo ADMIN
+    public List<MonthlyReportResponse> getMonthly(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        // Es: /api/reports/monthly?from=2026-01&to=2026-06 (default: mese corrente), un report per mese
+        return monthlyReportService.reports(from, to);
+    }
+}
@@ -0,0 +1,40 @@
+package it.epicode.gestioneviaggiaziendali.controller;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.OccupancyResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.SeatReconciliationResponse;
+import it.epicode.gestioneviaggiaziendali.service.OccupancyStatsService;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final OccupancyStatsService occupancyStatsService;
+
+    public StatsController(OccupancyStatsService occupancyStatsService) {
+        this.occupancyStatsService = occupancyStatsService;
+    }
+
+    @GetMapping("/occupancy")
+    @PreAuthorize("hasAuthority('ADMIN')") // Cruscotto operativo: solo ADMIN
+    public OccupancyResponse getOccupancy(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer top) {
+        // Es: /api/stats/occupancy?from=2026-06-01&to=2026-06-30&top=20 (default: prossimi 30 giorni)
+        return occupancyStatsService.occupancy(from, to, top);
+    }
+
+    @PostMapping("/occupancy/reconcile")
+    @PreAuthorize("hasAuthority('ADMIN')") // Riconciliazione manuale dei contatori (di norma la fa il job)
+    public SeatReconciliationResponse reconcile() {
+        return occupancyStatsService.reconcileSeatCounters();
+    }
+}
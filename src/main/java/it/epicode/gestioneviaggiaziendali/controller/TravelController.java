@@ -1,13 +1,22 @@
 package it.epicode.gestioneviaggiaziendali.controller;
 
 import it.epicode.gestioneviaggiaziendali.dto.request.CreateTravelRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.DestinationMatch;
 import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelRequest;
 import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelStatusRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationSuggestionResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelCompletionResponse;
 import it.epicode.gestioneviaggiaziendali.dto.response.TravelResponse;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.service.TravelCompletionService;
 import it.epicode.gestioneviaggiaziendali.service.TravelService;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,28 +27,69 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequestMapping("/api/travels")
 public class TravelController {
 
     private final TravelService travelService;
+    private final TravelCompletionService travelCompletionService;
 
-    public TravelController(TravelService travelService) {
+    public TravelController(TravelService travelService, TravelCompletionService travelCompletionService) {
         this.travelService = travelService;
+        this.travelCompletionService = travelCompletionService;
     }
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')") // Tutti gli utenti autenticati possono leggere i viaggi
-    public Page<TravelResponse> getAll(Pageable pageable) {
+    public Page<TravelResponse> getAll(Pageable pageable, ServletWebRequest request) {
+        // GET condizionale: se nessun viaggio e cambiato -> 304, senza query della pagina ne JSON
+        if (ConditionalGet.isNotModified(request, travelService.versionStamp(), "travels", pageable)) {
+            return null;
+        }
         return travelService.findAll(pageable);
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
+    public CursorPage<TravelResponse> getAllAfter(@RequestParam String after,
+                                                  @RequestParam(required = false) Integer size) {
+        // Paginazione a cursore (opt-in): ?after=&size=20 per la prima pagina, poi ?after=<nextCursor>
+        return travelService.findAllAfter(after, size);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
+    public Page<TravelResponse> search(
+            @RequestParam(required = false) String destination,
+            @RequestParam(defaultValue = "PREFIX") DestinationMatch match,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) TravelStatus status,
+            Pageable pageable) {
+        // Es: /api/travels/search?destination=rom&from=2026-01-01&status=IN_PROGRAMMA&sort=travelDate
+        return travelService.search(destination, match, from, to, status, pageable);
+    }
+
+    @GetMapping("/destinations")
+    @PreAuthorize("hasAnyAuthority('ADMIN','USER')")
+    public List<DestinationSuggestionResponse> suggestDestinations(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limit) {
+        // Autocomplete servito dall'indice in memoria: nessuna query sul DB
+        return travelService.suggestDestinations(prefix, limit);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ADMIN','USER')") // Tutti gli utenti autenticati possono leggere i viaggi
-    public TravelResponse getById(@PathVariable Long id) {
+    public TravelResponse getById(@PathVariable Long id, ServletWebRequest request) {
+        if (ConditionalGet.isResourceNotModified(request, travelService.versionStamp(id), "travel", id)) {
+            return null;
+        }
         return travelService.findById(id);
     }
 
@@ -63,6 +113,13 @@ public class TravelController {
         return travelService.updateStatus(id, request);
     }
 
+    @PostMapping("/complete-past")
+    @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può chiudere in blocco i viaggi passati
+    public TravelCompletionResponse completePast() {
+        // Stesso job notturno, avviato a mano: risponde con righe aggiornate e durata
+        return travelCompletionService.completePastTravels();
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @PreAuthorize("hasAuthority('ADMIN')") // Solo ADMIN può eliminare viaggi
@@ -0,0 +1,6 @@
+package it.epicode.gestioneviaggiaziendali.dto.request;
+
+public enum BookingExportFormat {
+    NDJSON,
+    CSV
+}
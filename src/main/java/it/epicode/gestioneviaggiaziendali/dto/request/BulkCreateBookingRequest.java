@@ -0,0 +1,13 @@
+package it.epicode.gestioneviaggiaziendali.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record BulkCreateBookingRequest(
+        // Una prenotazione per elemento, stesse regole di POST /api/bookings (anti-IDOR compreso)
+        @NotEmpty @Size(max = 500) List<@Valid @NotNull CreateBookingRequest> bookings
+) {
+}
@@ -0,0 +1,9 @@
+package it.epicode.gestioneviaggiaziendali.dto.request;
+
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import jakarta.validation.constraints.NotNull;
+
+public record UpdateEmployeeRoleRequest(
+        @NotNull Role role
+) {
+}
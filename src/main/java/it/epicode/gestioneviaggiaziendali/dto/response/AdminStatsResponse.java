@@ -0,0 +1,8 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record AdminStatsResponse(
+        CacheStatsResponse principalCache,
+        CacheStatsResponse verifiedTokenCache,
+        PasswordHashingStatsResponse passwordHashing
+) {
+}
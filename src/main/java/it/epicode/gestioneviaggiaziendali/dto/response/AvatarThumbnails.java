@@ -0,0 +1,9 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+// URL delle versioni ridimensionate dell'avatar (quadrate, JPEG): 64, 128 e 512 px di lato
+public record AvatarThumbnails(
+        String small,
+        String medium,
+        String large
+) {
+}
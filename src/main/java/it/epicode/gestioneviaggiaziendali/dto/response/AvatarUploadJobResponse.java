@@ -0,0 +1,17 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.Instant;
+
+public record AvatarUploadJobResponse(
+        String jobId,
+        Long employeeId,
+        AvatarUploadStatus status,
+        String avatarUrl,
+        // SHA-256 del file caricato; deduplicated = immagine gia presente, riusata senza rielaborarla
+        String contentHash,
+        String error,
+        boolean deduplicated,
+        Instant createdAt,
+        Instant updatedAt
+) {
+}
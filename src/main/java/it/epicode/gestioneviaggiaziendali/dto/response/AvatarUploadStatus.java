@@ -0,0 +1,8 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public enum AvatarUploadStatus {
+    PENDING,     // in coda, file gia salvato su disco
+    PROCESSING,  // un worker lo sta caricando sullo storage
+    COMPLETED,   // avatar salvato e associato all'employee
+    FAILED
+}
@@ -0,0 +1,12 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.LocalDate;
+
+public record BookingArchiveResponse(
+        // Prenotazioni di viaggi completati con data precedente a questo giorno
+        LocalDate before,
+        long archived,
+        int batches,
+        long elapsedMillis
+) {
+}
@@ -1,5 +1,6 @@
 package it.epicode.gestioneviaggiaziendali.dto.response;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public record BookingResponse(
@@ -9,4 +10,19 @@ public record BookingResponse(
         EmployeeSummary employee,
         TravelSummary travel
 ) {
+
+    // Costruttore "piatto" usato dalle query JPQL con constructor expression (select new ...):
+    // JPQL non supporta i "new" annidati, quindi riceviamo le colonne e costruiamo i summary qui.
+    public BookingResponse(Long id,
+                           LocalDateTime requestDate,
+                           String notes,
+                           Long employeeId,
+                           String employeeUsername,
+                           Long travelId,
+                           String travelDestination,
+                           LocalDate travelDate) {
+        this(id, requestDate, notes,
+                new EmployeeSummary(employeeId, employeeUsername),
+                new TravelSummary(travelId, travelDestination, travelDate));
+    }
 }
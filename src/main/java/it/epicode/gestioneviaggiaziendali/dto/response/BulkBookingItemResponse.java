@@ -0,0 +1,9 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record BulkBookingItemResponse(
+        int index,
+        BulkBookingOutcome outcome,
+        BookingResponse booking,
+        String error
+) {
+}
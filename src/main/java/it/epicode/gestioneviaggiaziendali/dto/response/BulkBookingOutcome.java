@@ -0,0 +1,8 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public enum BulkBookingOutcome {
+    CREATED,
+    CONFLICT,
+    SOLD_OUT,
+    NOT_FOUND
+}
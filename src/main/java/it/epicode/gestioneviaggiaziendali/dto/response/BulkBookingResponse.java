@@ -0,0 +1,10 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.util.List;
+
+public record BulkBookingResponse(
+        int created,
+        int rejected,
+        List<BulkBookingItemResponse> results
+) {
+}
@@ -0,0 +1,9 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record CacheStatsResponse(
+        int size,
+        long hits,
+        long misses,
+        long evictions
+) {
+}
@@ -0,0 +1,12 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.util.List;
+
+// Pagina "a cursore" (keyset): niente numero di pagina e niente COUNT(*).
+// nextCursor e opaco per il client: va ripassato cosi com'e in ?after=... (null = fine lista).
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor
+) {
+}
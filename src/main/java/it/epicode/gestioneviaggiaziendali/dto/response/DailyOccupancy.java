@@ -0,0 +1,20 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.LocalDate;
+
+public record DailyOccupancy(
+        LocalDate day,
+        long travels,
+        long bookings,
+        long capacity,
+        // Prenotazioni dei soli viaggi con capienza: numeratore di occupancyRate
+        long limitedBookings,
+        Double occupancyRate
+) {
+
+    // Costruttore usato dalla query JPQL (somme dei contatori per giorno)
+    public DailyOccupancy(LocalDate day, Long travels, Long bookings, Long capacity, Long limitedBookings) {
+        this(day, travels, bookings, capacity, limitedBookings,
+                OccupancyResponse.occupancyRate(limitedBookings, capacity));
+    }
+}
@@ -0,0 +1,7 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record DestinationBookings(
+        String destination,
+        long bookings
+) {
+}
@@ -0,0 +1,18 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record DestinationOccupancy(
+        String destination,
+        long travels,
+        long bookings,
+        long capacity,
+        // Prenotazioni dei soli viaggi con capienza: numeratore di occupancyRate
+        long limitedBookings,
+        Double occupancyRate
+) {
+
+    // Costruttore usato dalla query JPQL (somme dei contatori per destinazione)
+    public DestinationOccupancy(String destination, Long travels, Long bookings, Long capacity, Long limitedBookings) {
+        this(destination, travels, bookings, capacity, limitedBookings,
+                OccupancyResponse.occupancyRate(limitedBookings, capacity));
+    }
+}
@@ -0,0 +1,7 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record DestinationSuggestionResponse(
+        String destination,
+        long travels
+) {
+}
@@ -6,6 +6,7 @@ public record EmployeeResponse(
         String name,
         String surname,
         String email,
-        String avatarUrl
+        String avatarUrl,
+        AvatarThumbnails avatarThumbnails
 ) {
 }
@@ -0,0 +1,8 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record EmployeeTrips(
+        Long employeeId,
+        String username,
+        long trips
+) {
+}
@@ -0,0 +1,18 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+public record MonthlyReportResponse(
+        YearMonth month,
+        // true = mese concluso: snapshot immutabile, ricalcolato solo se i suoi dati cambiano
+        boolean closed,
+        Instant generatedAt,
+        long bookings,
+        long plannedTravels,
+        long completedTravels,
+        List<DestinationBookings> destinations,
+        List<EmployeeTrips> employees
+) {
+}
@@ -0,0 +1,23 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Cruscotto occupazione: tutto calcolato dai contatori travels.seats_taken, mai dalla tabella bookings
+public record OccupancyResponse(
+        LocalDate from,
+        LocalDate to,
+        long travels,
+        long bookings,
+        long capacity,
+        Double occupancyRate,
+        List<DailyOccupancy> byDay,
+        List<DestinationOccupancy> byDestination,
+        List<TravelOccupancy> topTravels
+) {
+
+    // Posti occupati / posti disponibili dei soli viaggi con capienza (null se nessuno ha un limite)
+    public static Double occupancyRate(long limitedBookings, long capacity) {
+        return capacity == 0 ? null : (double) limitedBookings / capacity;
+    }
+}
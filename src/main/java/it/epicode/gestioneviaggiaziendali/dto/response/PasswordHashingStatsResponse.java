@@ -0,0 +1,13 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record PasswordHashingStatsResponse(
+        int poolSize,
+        int activeThreads,
+        int queueDepth,
+        int queueCapacity,
+        long completed,
+        long rejected,
+        double averageLatencyMs,
+        double maxLatencyMs
+) {
+}
@@ -0,0 +1,7 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+public record SeatReconciliationResponse(
+        int repaired,
+        long elapsedMillis
+) {
+}
@@ -0,0 +1,12 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.LocalDate;
+
+public record TravelCompletionResponse(
+        // Viaggi con data precedente a questo giorno
+        LocalDate before,
+        long updated,
+        int chunks,
+        long elapsedMillis
+) {
+}
@@ -0,0 +1,18 @@
+package it.epicode.gestioneviaggiaziendali.dto.response;
+
+import java.time.LocalDate;
+
+public record TravelOccupancy(
+        Long id,
+        String destination,
+        LocalDate travelDate,
+        Integer capacity,
+        int seatsTaken,
+        Double occupancyRate
+) {
+
+    public TravelOccupancy(Long id, String destination, LocalDate travelDate, Integer capacity, Integer seatsTaken) {
+        this(id, destination, travelDate, capacity, seatsTaken,
+                capacity == null ? null : OccupancyResponse.occupancyRate(seatsTaken, capacity));
+    }
+}
@@ -7,6 +7,8 @@ public record TravelResponse(
         Long id,
         String destination,
         LocalDate travelDate,
-        TravelStatus status
+        TravelStatus status,
+        Integer capacity,
+        int seatsTaken
 ) {
 }
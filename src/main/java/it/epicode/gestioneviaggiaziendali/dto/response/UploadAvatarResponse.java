@@ -1,6 +0,0 @@
-package it.epicode.gestioneviaggiaziendali.dto.response;
-
-public record UploadAvatarResponse(
-        String avatarUrl
-) {
-}
@@ -0,0 +1,61 @@
+package it.epicode.gestioneviaggiaziendali.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+// Avatar gia elaborato e salvato, indicizzato per SHA-256 del file originale.
+// Se lo stesso file viene ricaricato (anche da un altro employee) si riusano questi URL
+// senza rielaborare l'immagine ne ricaricarla sullo storage.
+@Entity
+@Table(name = "avatar_images")
+public class AvatarImage {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "url_64", nullable = false)
+    private String url64;
+
+    @Column(name = "url_128", nullable = false)
+    private String url128;
+
+    @Column(name = "url_512", nullable = false)
+    private String url512;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    protected AvatarImage() {
+    }
+
+    public AvatarImage(String contentHash, String url64, String url128, String url512) {
+        this.contentHash = contentHash;
+        this.url64 = url64;
+        this.url128 = url128;
+        this.url512 = url512;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getUrl64() {
+        return url64;
+    }
+
+    public String getUrl128() {
+        return url128;
+    }
+
+    public String getUrl512() {
+        return url512;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -6,17 +6,41 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Prenotazioni di un employee (/api/bookings/me), anche in paginazione keyset per id
+        @Index(name = "idx_bookings_employee_id_id", columnList = "employee_id, id"),
+        // Prenotazioni di un viaggio: spostamento di data, controllo prima della delete, riconciliazione posti
+        @Index(name = "idx_bookings_travel_id", columnList = "travel_id"),
+        // Report mensili: range su travel_date (employee_id incluso per il conteggio per employee)
+        @Index(name = "idx_bookings_travel_date_employee_id", columnList = "travel_date, employee_id")
+}, uniqueConstraints = {
+        // Regola "una prenotazione per employee al giorno" garantita dal DB, anche sotto concorrenza
+        @UniqueConstraint(name = Booking.ONE_PER_DAY_CONSTRAINT, columnNames = {"employee_id", "travel_date"})
+})
 public class Booking {
 
+    public static final String ONE_PER_DAY_CONSTRAINT = "uk_bookings_employee_travel_date";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence "pooled" (50 id per chiamata) invece di IDENTITY: Hibernate conosce l'id
+    // prima dell'insert e puo raggruppare gli insert in batch JDBC (hibernate.jdbc.batch_size)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -27,19 +51,50 @@ public class Booking {
     @JoinColumn(name = "travel_id", nullable = false)
     private Travel travel;
 
+    // Copia di travel.travelDate: serve al vincolo unique (un vincolo non puo attraversare la join).
+    // Viene impostata da setTravel(); se il viaggio cambia data, TravelService aggiorna anche qui.
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
     @Column(name = "request_date", nullable = false)
     private LocalDateTime requestDate;
 
     @Column(columnDefinition = "text")
     private String notes;
 
+    // Validatori HTTP e optimistic locking, come in Travel.
+    // Gli update in blocco (BookingRepository) li aggiornano a mano: non passano dalle callback JPA.
+    // I default SQL coprono le righe inserite senza JPA (script, righe gia esistenti).
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    @ColumnDefault("current_timestamp")
+    private Instant updatedAt;
+
     public Booking() {
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
 
     public Employee getEmployee() {
         return employee;
@@ -55,6 +110,11 @@ public class Booking {
 
     public void setTravel(Travel travel) {
         this.travel = travel;
+        this.travelDate = travel.getTravelDate();
+    }
+
+    public LocalDate getTravelDate() {
+        return travelDate;
     }
 
     public LocalDateTime getRequestDate() {
@@ -0,0 +1,102 @@
+package it.epicode.gestioneviaggiaziendali.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Prenotazioni "fredde": viaggi completati oltre l'orizzonte di archiviazione (BookingArchiveService).
+// Stesse colonne di bookings, stesso id: le righe vengono solo spostate, mai ricreate con JPA.
+// Le query di tutti i giorni leggono solo bookings; lo storico completo passa da BookingHistory.
+@Entity
+@Table(name = "booking_archive", indexes = {
+        @Index(name = "idx_booking_archive_employee_id_id", columnList = "employee_id, id"),
+        @Index(name = "idx_booking_archive_travel_id", columnList = "travel_id"),
+        @Index(name = "idx_booking_archive_travel_date_employee_id", columnList = "travel_date, employee_id"),
+        // max(archived_at) per l'ETag della collezione bookings (TravelRepository.findBookingsVersionStamp)
+        @Index(name = "idx_booking_archive_archived_at", columnList = "archived_at")
+}, uniqueConstraints = {
+        // La regola "una prenotazione per employee al giorno" vale anche per lo storico
+        @UniqueConstraint(name = BookingArchive.ONE_PER_DAY_CONSTRAINT, columnNames = {"employee_id", "travel_date"})
+})
+public class BookingArchive {
+
+    public static final String ONE_PER_DAY_CONSTRAINT = "uk_booking_archive_employee_travel_date";
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "employee_id", nullable = false)
+    private Employee employee;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "travel_id", nullable = false)
+    private Travel travel;
+
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
+    @Column(name = "request_date", nullable = false)
+    private LocalDateTime requestDate;
+
+    @Column(columnDefinition = "text")
+    private String notes;
+
+    // Copiati da bookings: gli ETag delle risposte con includeArchived restano stabili dopo lo spostamento
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    protected BookingArchive() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public Travel getTravel() {
+        return travel;
+    }
+
+    public LocalDate getTravelDate() {
+        return travelDate;
+    }
+
+    public LocalDateTime getRequestDate() {
+        return requestDate;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,68 @@
+package it.epicode.gestioneviaggiaziendali.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+// Vista in sola lettura: prenotazioni correnti + archiviate (UNION ALL, gli id non si sovrappongono).
+// Usata solo dove serve lo storico completo: includeArchived, report mensili, riconciliazione posti.
+// I filtri (employee_id, travel_id, travel_date) vengono spinti dal DB dentro i due rami,
+// quindi ciascuna tabella usa i propri indici.
+@Entity
+@Immutable
+@Subselect(BookingHistory.SQL)
+@Synchronize({"bookings", "booking_archive"})
+public class BookingHistory {
+
+    public static final String SQL = """
+            select id, employee_id, travel_id, travel_date, request_date, notes, version, updated_at
+            from bookings
+            union all
+            select id, employee_id, travel_id, travel_date, request_date, notes, version, updated_at
+            from booking_archive
+            """;
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id")
+    private Employee employee;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "travel_id")
+    private Travel travel;
+
+    @Column(name = "travel_date")
+    private LocalDate travelDate;
+
+    @Column(name = "request_date")
+    private LocalDateTime requestDate;
+
+    private String notes;
+
+    private long version;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    protected BookingHistory() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getTravelDate() {
+        return travelDate;
+    }
+}
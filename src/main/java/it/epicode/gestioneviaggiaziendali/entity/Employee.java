@@ -1,6 +1,7 @@
 package it.epicode.gestioneviaggiaziendali.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -8,9 +9,18 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,11 +35,19 @@ import org.springframework.security.core.userdetails.UserDetails;
         "enabled"
 })
 @Entity
-@Table(name = "employees")
+// Cache di secondo livello: region e limiti in SecondLevelCacheConfig / app.cache.employees.*
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employees")
+@Table(name = "employees", indexes = {
+        // Refresh incrementale della TokenVersionRegistry ogni pochi secondi: range su
+        // token_version_changed_at > :since, cosi legge solo le righe cambiate e non tutta la tabella
+        @Index(name = "idx_employees_token_version_changed_at", columnList = "token_version_changed_at")
+})
 public class Employee implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -51,9 +69,40 @@ public class Employee implements UserDetails {
     @Column(nullable = false)
     private Role role;
 
+    // avatarUrl = versione grande (512 px); le miniature sono copie degli URL di AvatarImage,
+    // cosi le risposte non richiedono join
     @Column(name = "avatar_url")
     private String avatarUrl;
 
+    @Column(name = "avatar_url_64")
+    private String avatarUrl64;
+
+    @Column(name = "avatar_url_128")
+    private String avatarUrl128;
+
+    @Column(name = "avatar_hash", length = 64)
+    private String avatarHash;
+
+    // Versione dei token: incrementandola si revocano tutti i JWT emessi in precedenza
+    // (logout, cambio ruolo, revoca da parte di un admin).
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
+    // Quando e cambiata l'ultima volta tokenVersion: serve al refresh incrementale
+    // della TokenVersionRegistry (legge solo le righe cambiate dall'ultimo giro).
+    @Column(name = "token_version_changed_at", nullable = false)
+    private Instant tokenVersionChangedAt = Instant.now();
+
+    // Validatori HTTP e optimistic locking, come in Travel
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    @ColumnDefault("current_timestamp")
+    private Instant updatedAt;
+
     public Employee() {
     }
 
@@ -66,10 +115,24 @@ public class Employee implements UserDetails {
         this.role = Role.USER; // ruolo di default per chi si registra
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
     @Override
     public String getUsername() {
         // UserDetails richiede un "username". Qui usiamo il campo username dell'Employee.
@@ -109,6 +172,25 @@ public class Employee implements UserDetails {
         this.avatarUrl = avatarUrl;
     }
 
+    public String getAvatarUrl64() {
+        return avatarUrl64;
+    }
+
+    public String getAvatarUrl128() {
+        return avatarUrl128;
+    }
+
+    public String getAvatarHash() {
+        return avatarHash;
+    }
+
+    public void setAvatar(AvatarImage image) {
+        this.avatarHash = image.getContentHash();
+        this.avatarUrl64 = image.getUrl64();
+        this.avatarUrl128 = image.getUrl128();
+        this.avatarUrl = image.getUrl512();
+    }
+
     public String getPassword() {
         return password;
     }
@@ -117,6 +199,19 @@ public class Employee implements UserDetails {
         this.password = password;
     }
 
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public Instant getTokenVersionChangedAt() {
+        return tokenVersionChangedAt;
+    }
+
+    public void bumpTokenVersion() {
+        this.tokenVersion++;
+        this.tokenVersionChangedAt = Instant.now();
+    }
+
     public Role getRole() {
         return role;
     }
@@ -0,0 +1,44 @@
+package it.epicode.gestioneviaggiaziendali.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+// Employee eliminati i cui token potrebbero essere ancora in giro (modalita stateless).
+// La riga di employees non esiste piu: senza questa tabella gli altri nodi (e lo stesso nodo
+// dopo un riavvio) non saprebbero della revoca fino alla scadenza del token.
+// Nessuna FK: l'employee e gia stato cancellato. Le righe piu vecchie della durata di un token
+// non servono piu e vengono rimosse da TokenVersionRegistry.
+@Entity
+@Table(name = "revoked_employees", indexes = {
+        // Refresh incrementale della TokenVersionRegistry: revoked_at > ultimo giro
+        @Index(name = "idx_revoked_employees_revoked_at", columnList = "revoked_at")
+})
+public class RevokedEmployee {
+
+    @Id
+    @Column(name = "employee_id")
+    private Long employeeId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    protected RevokedEmployee() {
+    }
+
+    public RevokedEmployee(Long employeeId, Instant revokedAt) {
+        this.employeeId = employeeId;
+        this.revokedAt = revokedAt;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+}
@@ -1,5 +1,7 @@
 package it.epicode.gestioneviaggiaziendali.entity;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.CheckConstraint;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -7,20 +9,55 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.text.Normalizer;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "travels")
+// Cache di secondo livello: region e limiti in SecondLevelCacheConfig / app.cache.travels.*
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "travels")
+@Table(name = "travels", indexes = {
+        // Paginazione keyset: ORDER BY travel_date, id
+        // (copre anche i filtri per range di date della ricerca: travel_date e la colonna iniziale)
+        @Index(name = "idx_travels_travel_date_id", columnList = "travel_date, id"),
+        // Ricerca: filtro per stato (+ range di date nello stesso indice)
+        @Index(name = "idx_travels_status_travel_date", columnList = "status, travel_date"),
+        // Ricerca per prefisso della destinazione (LIKE 'rom%')
+        @Index(name = "idx_travels_destination_normalized", columnList = "destination_normalized")
+}, check = {
+        // Rete di sicurezza: anche un update scritto male non puo vendere piu posti di quelli disponibili
+        @CheckConstraint(name = "ck_travels_seats_taken",
+                constraint = "seats_taken >= 0 and (capacity is null or seats_taken <= capacity)")
+})
 public class Travel {
 
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "travels_seq")
+    @SequenceGenerator(name = "travels_seq", sequenceName = "travels_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String destination;
 
+    // Destinazione in minuscolo e senza accenti: la ricerca case-insensitive
+    // diventa un LIKE su una colonna indicizzata, senza lower() a runtime
+    @Column(name = "destination_normalized", nullable = false)
+    private String destinationNormalized;
+
     @Column(name = "travel_date", nullable = false)
     private LocalDate travelDate;
 
@@ -28,13 +65,49 @@ public class Travel {
     @Column(nullable = false)
     private TravelStatus status = TravelStatus.IN_PROGRAMMA;
 
+    // Posti disponibili: null = nessun limite
+    @Column
+    private Integer capacity;
+
+    // Posti occupati: cambia SOLO con l'update condizionale di TravelRepository.reserveSeats
+    // (updatable = false: il salvataggio dell'entity non lo riscrive con un valore letto prima)
+    @Column(name = "seats_taken", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int seatsTaken;
+
+    // Versione (optimistic locking) e data di ultima modifica: sono i validatori HTTP
+    // (ETag / Last-Modified) e due modifiche concorrenti non si sovrascrivono in silenzio.
+    // Gli update dei posti cambiano solo updated_at (vedi TravelRepository.reserveSeats)
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    @ColumnDefault("current_timestamp")
+    private Instant updatedAt;
+
     public Travel() {
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
 
     public String getDestination() {
         return destination;
@@ -42,6 +115,11 @@ public class Travel {
 
     public void setDestination(String destination) {
         this.destination = destination;
+        this.destinationNormalized = normalizeDestination(destination);
+    }
+
+    public String getDestinationNormalized() {
+        return destinationNormalized;
     }
 
     public LocalDate getTravelDate() {
@@ -59,4 +137,25 @@ public class Travel {
     public void setStatus(TravelStatus status) {
         this.status = status;
     }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    // "  São Paulo " -> "sao paulo": stessa regola per i dati salvati e per i termini di ricerca
+    public static String normalizeDestination(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(destination.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
 }
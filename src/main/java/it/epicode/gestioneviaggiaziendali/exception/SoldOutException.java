@@ -0,0 +1,20 @@
+package it.epicode.gestioneviaggiaziendali.exception;
+
+public class SoldOutException extends ConflictException {
+    private final Long travelId;
+    private final Integer capacity;
+
+    public SoldOutException(Long travelId, Integer capacity) {
+        super("Viaggio " + travelId + " esaurito: nessun posto libero");
+        this.travelId = travelId;
+        this.capacity = capacity;
+    }
+
+    public Long getTravelId() {
+        return travelId;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+}
@@ -2,13 +2,18 @@ package it.epicode.gestioneviaggiaziendali.handler;
 
 import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
 import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.exception.SoldOutException;
+import it.epicode.gestioneviaggiaziendali.exception.TooManyRequestsException;
 import it.epicode.gestioneviaggiaziendali.exception.UnauthorizedException;
 import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -38,6 +43,28 @@ public class GlobalExceptionHandler {
         return problem;
     }
 
+    @ExceptionHandler(SoldOutException.class)
+    public ProblemDetail handleSoldOut(SoldOutException ex) {
+        // Sempre 409, ma riconoscibile dal client senza interpretare il messaggio
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problem.setTitle("Sold Out");
+        problem.setDetail(ex.getMessage());
+        problem.setProperty("travelId", ex.getTravelId());
+        problem.setProperty("capacity", ex.getCapacity());
+        problem.setProperty("timestamp", Instant.now());
+        return problem;
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail handleOptimisticLock(OptimisticLockingFailureException ex) {
+        // Due modifiche concorrenti della stessa riga (@Version): la seconda non sovrascrive la prima
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problem.setTitle("Conflict");
+        problem.setDetail("La risorsa e stata modificata da un'altra richiesta, ricaricala e riprova");
+        problem.setProperty("timestamp", Instant.now());
+        return problem;
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ProblemDetail handleUnauthorized(UnauthorizedException ex) {
         ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.UNAUTHORIZED);
@@ -47,6 +74,17 @@ public class GlobalExceptionHandler {
         return problem;
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ProblemDetail> handleTooManyRequests(TooManyRequestsException ex) {
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS);
+        problem.setTitle("Too Many Requests");
+        problem.setDetail(ex.getMessage());
+        problem.setProperty("timestamp", Instant.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(problem);
+    }
+
     @ExceptionHandler(ValidationException.class)
     public ProblemDetail handleValidationException(ValidationException ex) {
         ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
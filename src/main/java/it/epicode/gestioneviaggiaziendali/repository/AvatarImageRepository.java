@@ -0,0 +1,7 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.entity.AvatarImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AvatarImageRepository extends JpaRepository<AvatarImage, String> {
+}
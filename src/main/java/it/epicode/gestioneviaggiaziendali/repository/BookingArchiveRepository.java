@@ -0,0 +1,48 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.entity.BookingArchive;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BookingArchiveRepository extends JpaRepository<BookingArchive, Long> {
+    boolean existsByTravelId(Long travelId);
+    boolean existsByEmployeeId(Long employeeId);
+    boolean existsByEmployeeIdAndTravelDate(Long employeeId, LocalDate travelDate);
+
+    // Come BookingRepository.findBookedDays: la regola "un viaggio al giorno" vale anche per i giorni archiviati
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.EmployeeDay(b.employee.id, b.travelDate)
+            from BookingArchive b
+            where b.employee.id in :employeeIds and b.travelDate in :travelDates
+            """)
+    List<EmployeeDay> findBookedDays(@Param("employeeIds") Collection<Long> employeeIds,
+                                     @Param("travelDates") Collection<LocalDate> travelDates);
+
+    // Copia set-based di un blocco di bookings (stesso id, version e updated_at): INSERT ... SELECT sul DB,
+    // nessuna entity caricata. BookingArchiveService cancella poi le stesse righe nella stessa transazione.
+    @Modifying
+    @Query("""
+            insert into BookingArchive (id, employee, travel, travelDate, requestDate, notes, version, updatedAt, archivedAt)
+            select b.id, b.employee, b.travel, b.travelDate, b.requestDate, b.notes, b.version, b.updatedAt, :now
+            from Booking b
+            where b.id in :ids
+            """)
+    int copyFromBookings(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    // Stesso allineamento di BookingRepository.updateTravelDateByTravelId per le righe archiviate
+    @Modifying
+    @Query("""
+            update BookingArchive b
+            set b.travelDate = :travelDate, b.version = b.version + 1, b.updatedAt = :now
+            where b.travel.id = :travelId
+            """)
+    int updateTravelDateByTravelId(@Param("travelId") Long travelId,
+                                   @Param("travelDate") LocalDate travelDate,
+                                   @Param("now") Instant now);
+}
@@ -0,0 +1,117 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
+import it.epicode.gestioneviaggiaziendali.entity.BookingHistory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+// Storico completo (prenotazioni correnti + archiviate), in sola lettura.
+// Stesse query di BookingRepository: le risposte hanno la stessa forma con o senza includeArchived.
+public interface BookingHistoryRepository extends Repository<BookingHistory, Long> {
+    long countByTravelId(Long travelId);
+
+    @Query(value = """
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from BookingHistory b join b.employee e join b.travel t
+            """,
+            countQuery = "select count(b) from BookingHistory b")
+    Page<BookingResponse> findAllResponses(Pageable pageable);
+
+    @Query(value = """
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from BookingHistory b join b.employee e join b.travel t
+            where e.id = :employeeId
+            """,
+            countQuery = "select count(b) from BookingHistory b where b.employee.id = :employeeId")
+    Page<BookingResponse> findResponsesByEmployeeId(@Param("employeeId") Long employeeId, Pageable pageable);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from BookingHistory b join b.employee e join b.travel t
+            where b.id = :id
+            """)
+    Optional<BookingResponse> findResponseById(@Param("id") Long id);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from BookingHistory b join b.employee e join b.travel t
+            where b.id > :afterId
+            order by b.id
+            """)
+    List<BookingResponse> findResponsesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from BookingHistory b join b.employee e join b.travel t
+            where e.id = :employeeId and b.id > :afterId
+            order by b.id
+            """)
+    List<BookingResponse> findResponsesByEmployeeIdAfter(@Param("employeeId") Long employeeId,
+                                                         @Param("afterId") Long afterId,
+                                                         Limit limit);
+
+    // ===== VALIDATORI HTTP (ETag / Last-Modified) =====
+    // Version e updated_at vengono copiati nell'archivio: spostare una riga non cambia la somma
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(b), coalesce(sum(b.version + t.version), 0), max(b.updatedAt), max(t.updatedAt))
+            from BookingHistory b join b.travel t
+            where b.employee.id = :employeeId
+            """)
+    VersionStamp findVersionStampByEmployeeId(@Param("employeeId") Long employeeId);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(b), coalesce(sum(b.version + t.version), 0), max(b.updatedAt), max(t.updatedAt))
+            from BookingHistory b join b.travel t
+            where b.id = :id
+            """)
+    VersionStamp findVersionStampById(@Param("id") Long id);
+
+    // Validatore di un mese (report mensili): prenotazioni del range e i loro viaggi
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(b), coalesce(sum(b.version + t.version), 0), max(b.updatedAt), max(t.updatedAt))
+            from BookingHistory b join b.travel t
+            where b.travelDate >= :from and b.travelDate < :to
+            """)
+    VersionStamp findVersionStampByTravelDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // ===== REPORT MENSILI =====
+    // Tutto aggregato dal DB: range su travel_date (indici *_travel_date_employee_id di entrambe le tabelle),
+    // poi GROUP BY su anno/mese estratti dalla data. Il costo dipende dai mesi richiesti, non dallo storico.
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.MonthlyDestinationCount(
+                extract(year from b.travelDate), extract(month from b.travelDate), t.destination, count(b))
+            from BookingHistory b join b.travel t
+            where b.travelDate >= :from and b.travelDate < :to
+            group by extract(year from b.travelDate), extract(month from b.travelDate), t.destination
+            order by count(b) desc, t.destination
+            """)
+    List<MonthlyDestinationCount> countByMonthAndDestination(@Param("from") LocalDate from,
+                                                             @Param("to") LocalDate to);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.MonthlyEmployeeCount(
+                extract(year from b.travelDate), extract(month from b.travelDate), e.id, e.username, count(b))
+            from BookingHistory b join b.employee e
+            where b.travelDate >= :from and b.travelDate < :to
+            group by extract(year from b.travelDate), extract(month from b.travelDate), e.id, e.username
+            order by count(b) desc, e.username
+            """)
+    List<MonthlyEmployeeCount> countByMonthAndEmployee(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,13 +1,149 @@
 package it.epicode.gestioneviaggiaziendali.repository;
 
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
 import it.epicode.gestioneviaggiaziendali.entity.Booking;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    boolean existsByEmployeeIdAndTravel_TravelDate(Long employeeId, LocalDate travelDate);
     boolean existsByTravelId(Long travelId);
+    long countByTravelId(Long travelId);
     boolean existsByEmployeeId(Long employeeId);
     List<Booking> findByEmployeeId(Long employeeId);
+
+    // Giorni gia occupati per un gruppo di employee (bulk): una query invece di una per elemento.
+    // Restituisce un sovrainsieme (tutte le combinazioni employee x data): il chiamante filtra le coppie.
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.EmployeeDay(b.employee.id, b.travelDate)
+            from Booking b
+            where b.employee.id in :employeeIds and b.travelDate in :travelDates
+            """)
+    List<EmployeeDay> findBookedDays(@Param("employeeIds") Collection<Long> employeeIds,
+                                     @Param("travelDates") Collection<LocalDate> travelDates);
+
+    // Tiene allineata la copia bookings.travel_date quando un viaggio cambia data.
+    // Se lo spostamento crea due prenotazioni nello stesso giorno per un employee, scatta il vincolo unique.
+    // Update in blocco: niente callback JPA, versione e updated_at vanno aggiornati qui.
+    @Modifying
+    @Query("""
+            update Booking b
+            set b.travelDate = :travelDate, b.version = b.version + 1, b.updatedAt = :now
+            where b.travel.id = :travelId
+            """)
+    int updateTravelDateByTravelId(@Param("travelId") Long travelId,
+                                   @Param("travelDate") LocalDate travelDate,
+                                   @Param("now") Instant now);
+
+    // ===== ARCHIVIAZIONE =====
+    // Prossimo blocco da spostare in booking_archive: range su travel_date (idx_bookings_travel_date_employee_id),
+    // solo viaggi nello stato richiesto. Le righe spostate escono dalla tabella: la stessa query da il blocco dopo.
+    // SELECT ... FOR UPDATE SKIP LOCKED (lock timeout -2): due run sovrapposti (cron + POST, o due nodi)
+    // non prendono mai gli stessi id, ognuno salta le righe che l'altro sta spostando.
+    // Stato del viaggio in una subquery e non in join: il lock riguarda solo le righe di bookings,
+    // i viaggi restano liberi per le prenotazioni (reserveSeats).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("""
+            select b.id
+            from Booking b
+            where b.travelDate < :before
+              and b.travel.id in (select t.id from Travel t where t.status = :status)
+            order by b.travelDate, b.id
+            """)
+    List<Long> findIdsToArchive(@Param("before") LocalDate before,
+                                @Param("status") TravelStatus status,
+                                Limit limit);
+
+    @Modifying
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // ===== LETTURE IN SOLA PROIEZIONE =====
+    // Una sola query con join su employee e travel, direttamente in BookingResponse:
+    // niente entity nel persistence context e niente lazy loading riga per riga (N+1).
+
+    @Query(value = """
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from Booking b join b.employee e join b.travel t
+            """,
+            countQuery = "select count(b) from Booking b")
+    Page<BookingResponse> findAllResponses(Pageable pageable);
+
+    @Query(value = """
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from Booking b join b.employee e join b.travel t
+            where e.id = :employeeId
+            """,
+            countQuery = "select count(b) from Booking b where b.employee.id = :employeeId")
+    Page<BookingResponse> findResponsesByEmployeeId(@Param("employeeId") Long employeeId, Pageable pageable);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from Booking b join b.employee e join b.travel t
+            where b.id = :id
+            """)
+    Optional<BookingResponse> findResponseById(@Param("id") Long id);
+
+    // Paginazione keyset sulla primary key (tutte) e su (employee_id, id) per /me
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from Booking b join b.employee e join b.travel t
+            where b.id > :afterId
+            order by b.id
+            """)
+    List<BookingResponse> findResponsesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse(
+                b.id, b.requestDate, b.notes, e.id, e.username, t.id, t.destination, t.travelDate)
+            from Booking b join b.employee e join b.travel t
+            where e.id = :employeeId and b.id > :afterId
+            order by b.id
+            """)
+    List<BookingResponse> findResponsesByEmployeeIdAfter(@Param("employeeId") Long employeeId,
+                                                         @Param("afterId") Long afterId,
+                                                         Limit limit);
+
+    // ===== VALIDATORI HTTP (ETag / Last-Modified) =====
+    // BookingResponse contiene anche destinazione e data del viaggio: le versioni dei viaggi
+    // entrano nella somma, cosi modificare un viaggio cambia l'ETag delle sue prenotazioni.
+    // Qui solo sottoinsiemi indicizzati (employee, id); la collezione intera usa i contatori dei
+    // viaggi (TravelRepository.findBookingsVersionStamp).
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(b), coalesce(sum(b.version + t.version), 0), max(b.updatedAt), max(t.updatedAt))
+            from Booking b join b.travel t
+            where b.employee.id = :employeeId
+            """)
+    VersionStamp findVersionStampByEmployeeId(@Param("employeeId") Long employeeId);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(b), coalesce(sum(b.version + t.version), 0), max(b.updatedAt), max(t.updatedAt))
+            from Booking b join b.travel t
+            where b.id = :id
+            """)
+    VersionStamp findVersionStampById(@Param("id") Long id);
 }
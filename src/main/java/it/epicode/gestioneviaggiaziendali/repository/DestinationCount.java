@@ -0,0 +1,4 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+public record DestinationCount(String destination, long travels) {
+}
@@ -1,11 +1,64 @@
 package it.epicode.gestioneviaggiaziendali.repository;
 
 import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    // Finder usati da login e registrazione: risultati nella query cache (l'entity arriva dalla region
+    // "employees"). Hibernate li invalida da solo a ogni insert/update/delete sulla tabella employees.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByUsername(String username);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Employee> findByEmail(String email);
+
+    // Principal del filtro JWT (modalita database): la PrincipalCache ha gia il suo TTL. Se il caricamento
+    // passasse anche dalla region "employees" le due scadenze si sommerebbero (ruolo vecchio fino a ~10 min):
+    // letto sempre dal DB, cosi il ritardo massimo e solo app.auth.principal-cache.ttl-seconds
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select e from Employee e where e.id = :id")
+    Optional<Employee> findByIdBypassingCache(@Param("id") Long id);
+
+    // Paginazione keyset sulla primary key (cursore = ultimo id restituito)
+    @Query("select e from Employee e where e.id > :afterId order by e.id")
+    List<Employee> findNextById(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.TokenVersionView(
+                e.id, e.tokenVersion, e.tokenVersionChangedAt)
+            from Employee e
+            where e.tokenVersion > 0 and e.tokenVersionChangedAt > :since
+            """)
+    List<TokenVersionView> findTokenVersionsChangedSince(@Param("since") Instant since);
+
+    // ===== VALIDATORI HTTP (ETag / Last-Modified) =====
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(e), coalesce(sum(e.version), 0), max(e.updatedAt))
+            from Employee e
+            """)
+    VersionStamp findVersionStamp();
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(e), coalesce(sum(e.version), 0), max(e.updatedAt))
+            from Employee e
+            where e.id = :id
+            """)
+    VersionStamp findVersionStampById(@Param("id") Long id);
 }
@@ -0,0 +1,5 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+// Righe dei report mensili: l'anno e il mese arrivano dalla GROUP BY (extract su travel_date)
+public record MonthlyDestinationCount(int year, int month, String destination, long bookings) {
+}
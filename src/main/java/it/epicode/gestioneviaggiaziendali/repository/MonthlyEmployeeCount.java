@@ -0,0 +1,4 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+public record MonthlyEmployeeCount(int year, int month, Long employeeId, String username, long trips) {
+}
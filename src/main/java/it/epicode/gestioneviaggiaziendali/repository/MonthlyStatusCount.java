@@ -0,0 +1,6 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+
+public record MonthlyStatusCount(int year, int month, TravelStatus status, long travels) {
+}
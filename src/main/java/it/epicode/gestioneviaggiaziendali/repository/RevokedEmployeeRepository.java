@@ -0,0 +1,22 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.entity.RevokedEmployee;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RevokedEmployeeRepository extends JpaRepository<RevokedEmployee, Long> {
+
+    // Range sull'indice idx_revoked_employees_revoked_at
+    List<RevokedEmployee> findByRevokedAtAfter(Instant since);
+
+    // Pulizia: dopo la durata massima di un token la revoca non serve piu
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedEmployee r where r.revokedAt < :before")
+    int deleteRevokedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,5 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+// Viaggio il cui contatore seats_taken non corrisponde al numero reale di prenotazioni
+public record SeatCountDrift(Long travelId, int seatsTaken, long bookings) {
+}
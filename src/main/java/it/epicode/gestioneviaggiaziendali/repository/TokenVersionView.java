@@ -0,0 +1,11 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import java.time.Instant;
+
+// Proiezione minimale usata dalla TokenVersionRegistry (niente entity, niente password)
+public record TokenVersionView(
+        Long id,
+        long tokenVersion,
+        Instant changedAt
+) {
+}
@@ -0,0 +1,12 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import java.util.Collection;
+
+// Frammento di TravelRepository: gli update nativi dei contatori non passano dalla cache di
+// secondo livello, quindi le righe toccate vanno tolte dalla region "travels" una per una.
+public interface TravelCacheEviction {
+
+    // Dopo il commit (o subito, fuori da una transazione): prima la nuova riga non e ancora visibile
+    // agli altri e una lettura concorrente rimetterebbe in cache il valore vecchio.
+    void evictAfterCommit(Collection<Long> travelIds);
+}
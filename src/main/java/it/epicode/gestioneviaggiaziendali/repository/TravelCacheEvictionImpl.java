@@ -0,0 +1,41 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TravelCacheEvictionImpl implements TravelCacheEviction {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    TravelCacheEvictionImpl(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void evictAfterCommit(Collection<Long> travelIds) {
+        List<Long> ids = List.copyOf(travelIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Anche dopo un rollback: togliere una riga invariata costa solo una lettura in piu
+                evict(ids);
+            }
+        });
+    }
+
+    private void evict(List<Long> ids) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Long id : ids) {
+            cache.evict(Travel.class, id);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import java.time.LocalDate;
+
+public record TravelDay(Long id, LocalDate travelDate) {
+}
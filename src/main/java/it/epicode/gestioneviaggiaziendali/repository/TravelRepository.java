@@ -1,7 +1,244 @@
 package it.epicode.gestioneviaggiaziendali.repository;
 
+import it.epicode.gestioneviaggiaziendali.dto.response.DailyOccupancy;
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationOccupancy;
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelOccupancy;
 import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface TravelRepository extends JpaRepository<Travel, Long> {
+public interface TravelRepository extends JpaRepository<Travel, Long>, JpaSpecificationExecutor<Travel>,
+        TravelCacheEviction {
+
+    // ===== UPDATE IN BLOCCO E CACHE DI SECONDO LIVELLO =====
+    // Un update JPQL su Travel svuota TUTTA la region "travels" (Hibernate non sa quali righe tocca):
+    // con una prenotazione ogni pochi millisecondi la cache non servirebbe piu a niente.
+    // Gli update frequenti (contatori, stato) sono quindi nativi e dichiarano solo questo spazio
+    // sintetico, che nessuna entity usa: Hibernate non invalida nulla e il chiamante toglie dalla
+    // cache le sole righe toccate con evictAfterCommit. Nessuna query su travels usa la query cache;
+    // se una la usasse, non vedrebbe questi update.
+    String BULK_UPDATE_SPACE = "travels_bulk_update";
+
+    // ===== PAGINAZIONE KEYSET su (travel_date, id) =====
+    // Usano l'indice idx_travels_travel_date_id: costo costante a qualunque profondita,
+    // a differenza di OFFSET che scarta tutte le righe precedenti (e del COUNT(*) per pagina).
+
+    @Query("select t from Travel t order by t.travelDate, t.id")
+    List<Travel> findFirstByTravelDate(Limit limit);
+
+    @Query("""
+            select t from Travel t
+            where (t.travelDate, t.id) > (:travelDate, :id)
+            order by t.travelDate, t.id
+            """)
+    List<Travel> findNextByTravelDate(@Param("travelDate") LocalDate travelDate,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    // Sorgente dell'indice in memoria per l'autocomplete (una riga per destinazione distinta)
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.DestinationCount(t.destination, count(t))
+            from Travel t
+            group by t.destination
+            """)
+    List<DestinationCount> countByDestination();
+
+    // ===== PRENOTAZIONE POSTI =====
+    // Controllo e incremento nello STESSO statement: il DB blocca la riga, le richieste concorrenti
+    // sullo stesso viaggio si mettono in coda e ognuna rivaluta la WHERE sul valore aggiornato.
+    // Niente lettura-poi-scrittura: 1 = posti riservati, 0 = viaggio esaurito (o inesistente).
+    // Update nativo (vedi BULK_UPDATE_SPACE): niente callback JPA, updated_at va aggiornato qui.
+    // La @Version NON cambia: i posti non fanno parte dei dati modificabili dall'admin, quindi una
+    // prenotazione non deve far fallire con 409 la PUT concorrente (che controlla i posti sotto lock).
+    // ETag e Last-Modified cambiano comunque tramite updated_at.
+    // travelDate = la data letta dal chiamante e copiata in bookings.travel_date: se nel frattempo
+    // TravelService.update ha spostato il viaggio l'update non tocca righe (vedi findTravelDateById).
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = BULK_UPDATE_SPACE))
+    @Query(nativeQuery = true, value = """
+            update travels
+            set seats_taken = seats_taken + :seats, updated_at = :now
+            where id = :id and travel_date = :travelDate
+              and (capacity is null or seats_taken + :seats <= capacity)
+            """)
+    int reserveSeats(@Param("id") Long id, @Param("travelDate") LocalDate travelDate,
+                     @Param("seats") int seats, @Param("now") Instant now);
+
+    // Viaggio da prenotare (BookingService.create): la data viene copiata nella prenotazione, quindi
+    // la leggo dal DB e non dalla region "travels" (fino a ttl-seconds di ritardo dopo un update di
+    // un altro nodo). Un update concorrente resta possibile: lo intercetta reserveSeats.
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select t from Travel t where t.id = :id")
+    Optional<Travel> findByIdBypassingCache(@Param("id") Long id);
+
+    // Data attuale dal DB (query scalare: niente cache di secondo livello ne entity gia caricate),
+    // per capire se reserveSeats ha fallito perche il viaggio e esaurito o perche e stato spostato
+    @Query("select t.travelDate from Travel t where t.id = :id")
+    Optional<LocalDate> findTravelDateById(@Param("id") Long id);
+
+    // ===== COMPLETAMENTO IN BLOCCO DEI VIAGGI PASSATI =====
+    // Prossimo blocco da aggiornare: WHERE status = ? AND travel_date < ? letta dall'indice
+    // idx_travels_status_travel_date, senza caricare entity. I viaggi aggiornati escono dal filtro,
+    // quindi la stessa query restituisce sempre il blocco successivo.
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.TravelDay(t.id, t.travelDate)
+            from Travel t
+            where t.status = :status and t.travelDate < :before
+            order by t.travelDate, t.id
+            """)
+    List<TravelDay> findChunkByStatusBefore(@Param("status") TravelStatus status,
+                                            @Param("before") LocalDate before,
+                                            Limit limit);
+
+    // Update set-based del blocco; la condizione sullo stato lo rende idempotente se due job si sovrappongono.
+    // Update nativo (vedi BULK_UPDATE_SPACE): niente callback JPA, versione e updated_at vanno aggiornati qui.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = BULK_UPDATE_SPACE))
+    @Query(nativeQuery = true, value = """
+            update travels
+            set status = :#{#to.name()}, version = version + 1, updated_at = :now
+            where id in (:ids) and status = :#{#from.name()}
+            """)
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("from") TravelStatus from,
+                          @Param("to") TravelStatus to,
+                          @Param("now") Instant now);
+
+    // ===== OCCUPAZIONE (contatori) =====
+    // Aggregano travels.seats_taken sul range di date (indice idx_travels_travel_date_id):
+    // i viaggi sono molti meno delle prenotazioni e la tabella bookings non viene mai letta.
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.DailyOccupancy(
+                t.travelDate, count(t), sum(t.seatsTaken), coalesce(sum(t.capacity), 0),
+                sum(case when t.capacity is not null then t.seatsTaken else 0 end))
+            from Travel t
+            where t.travelDate between :from and :to
+            group by t.travelDate
+            order by t.travelDate
+            """)
+    List<DailyOccupancy> findDailyOccupancy(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.DestinationOccupancy(
+                t.destination, count(t), sum(t.seatsTaken), coalesce(sum(t.capacity), 0),
+                sum(case when t.capacity is not null then t.seatsTaken else 0 end))
+            from Travel t
+            where t.travelDate between :from and :to
+            group by t.destination
+            order by sum(t.seatsTaken) desc, t.destination
+            """)
+    List<DestinationOccupancy> findDestinationOccupancy(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.dto.response.TravelOccupancy(
+                t.id, t.destination, t.travelDate, t.capacity, t.seatsTaken)
+            from Travel t
+            where t.travelDate between :from and :to
+            order by t.seatsTaken desc, t.id
+            """)
+    List<TravelOccupancy> findTopOccupancy(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    // ===== RICONCILIAZIONE DEI CONTATORI =====
+
+    // Conteggio completo (costoso): solo per il job periodico, restituisce i viaggi fuori allineamento.
+    // Conta anche le prenotazioni archiviate: i posti occupati non cambiano quando una riga viene spostata.
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.SeatCountDrift(t.id, t.seatsTaken, count(b.id))
+            from Travel t left join BookingHistory b on b.travel = t
+            group by t.id, t.seatsTaken
+            having t.seatsTaken <> count(b.id)
+            """)
+    List<SeatCountDrift> findSeatCountDrift();
+
+    // SELECT ... FOR UPDATE: la stessa riga bloccata da reserveSeats, quindi nessuna prenotazione
+    // puo cambiare il contatore tra la lettura e la scrittura (riconciliazione, modifica della capienza)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Travel t where t.id = :id")
+    Optional<Travel> findByIdForUpdate(@Param("id") Long id);
+
+    // Come reserveSeats: cambia updated_at ma non la @Version
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = BULK_UPDATE_SPACE))
+    @Query(nativeQuery = true, value = """
+            update travels
+            set seats_taken = :seatsTaken, updated_at = :now
+            where id = :id and seats_taken <> :seatsTaken
+            """)
+    int updateSeatsTaken(@Param("id") Long id, @Param("seatsTaken") int seatsTaken, @Param("now") Instant now);
+
+    // ===== VALIDATORI HTTP (ETag / Last-Modified) =====
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(t), coalesce(sum(t.version), 0), max(t.updatedAt))
+            from Travel t
+            """)
+    VersionStamp findVersionStamp();
+
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(t), coalesce(sum(t.version), 0), max(t.updatedAt))
+            from Travel t
+            where t.id = :id
+            """)
+    VersionStamp findVersionStampById(@Param("id") Long id);
+
+    // Validatori della collezione delle prenotazioni, calcolati sui contatori dei viaggi invece che su
+    // bookings JOIN travels: i viaggi sono molti meno delle prenotazioni e nessun join viene letto.
+    // Ogni prenotazione passa da reserveSeats (seats_taken e updated_at del suo viaggio cambiano),
+    // una modifica del viaggio cambia la sua @Version: somma dei posti, somma delle versioni e ultima
+    // modifica cambiano quindi a ogni variazione del contenuto.
+    // Storico completo (bookings + archivio): archiviare sposta righe senza cambiare il contenuto.
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                coalesce(sum(t.seatsTaken), 0), coalesce(sum(t.version), 0), max(t.updatedAt))
+            from Travel t
+            """)
+    VersionStamp findBookingHistoryVersionStamp();
+
+    // Solo bookings: in piu l'ultima archiviazione, che toglie righe dalla collezione
+    // (max(archived_at) letto dall'indice idx_booking_archive_archived_at)
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                coalesce(sum(t.seatsTaken), 0), coalesce(sum(t.version), 0), max(t.updatedAt),
+                (select max(a.archivedAt) from BookingArchive a))
+            from Travel t
+            """)
+    VersionStamp findBookingsVersionStamp();
+
+    // Validatore di un mese (report mensili): viaggi del range, anche quelli senza prenotazioni
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.VersionStamp(
+                count(t), coalesce(sum(t.version), 0), max(t.updatedAt))
+            from Travel t
+            where t.travelDate >= :from and t.travelDate < :to
+            """)
+    VersionStamp findVersionStampByTravelDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Report mensili: viaggi per stato (IN_PROGRAMMA / COMPLETATO), range sull'indice di travel_date
+    @Query("""
+            select new it.epicode.gestioneviaggiaziendali.repository.MonthlyStatusCount(
+                extract(year from t.travelDate), extract(month from t.travelDate), t.status, count(t))
+            from Travel t
+            where t.travelDate >= :from and t.travelDate < :to
+            group by extract(year from t.travelDate), extract(month from t.travelDate), t.status
+            """)
+    List<MonthlyStatusCount> countByMonthAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
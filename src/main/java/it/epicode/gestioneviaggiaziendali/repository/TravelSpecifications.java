@@ -0,0 +1,55 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import java.time.LocalDate;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class TravelSpecifications {
+
+    // ===== FILTRI DELLA RICERCA VIAGGI =====
+    // Ogni filtro assente non aggiunge nulla alla WHERE: niente "(:param is null or ...)",
+    // che impedirebbe al database di usare gli indici.
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TravelSpecifications() {
+    }
+
+    // Prefisso: LIKE 'rom%' sulla colonna normalizzata, usa idx_travels_destination_normalized
+    public static Specification<Travel> destinationStartsWith(String normalizedPrefix) {
+        return (root, query, cb) -> cb.like(root.get("destinationNormalized"),
+                escapeLike(normalizedPrefix) + "%", LIKE_ESCAPE);
+    }
+
+    // Sottostringa: LIKE '%rom%' (su PostgreSQL accelerato dall'indice trigram, se disponibile)
+    public static Specification<Travel> destinationContains(String normalizedTerm) {
+        return (root, query, cb) -> cb.like(root.get("destinationNormalized"),
+                "%" + escapeLike(normalizedTerm) + "%", LIKE_ESCAPE);
+    }
+
+    public static Specification<Travel> travelDateFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("travelDate"), from);
+    }
+
+    public static Specification<Travel> travelDateTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("travelDate"), to);
+    }
+
+    public static Specification<Travel> hasStatus(TravelStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // "100%_sconto" non deve diventare un pattern: escape di \, % e _
+    static String escapeLike(String term) {
+        StringBuilder escaped = new StringBuilder(term.length() + 4);
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
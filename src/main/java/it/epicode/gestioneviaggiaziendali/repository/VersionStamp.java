@@ -0,0 +1,29 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import java.time.Instant;
+
+// Proiezione aggregata (count, somma delle @Version, ultima modifica) da cui si calcolano ETag e Last-Modified:
+// una riga sola, senza caricare ne serializzare le entity. Su una risorsa singola count e 0 o 1.
+// La somma delle versioni cresce a ogni update, il count cambia a ogni insert/delete.
+public record VersionStamp(
+        long count,
+        long versionSum,
+        Instant lastModified
+) {
+
+    // Su zero righe sum() e max() sono null. Hibernate pero puo scegliere il costruttore canonico
+    // (long primitivi): per questo le query passano coalesce(sum(...), 0); max() resta null (Instant)
+    public VersionStamp(Long count, Long versionSum, Instant lastModified) {
+        this(count == null ? 0 : count, versionSum == null ? 0 : versionSum, lastModified);
+    }
+
+    // Variante con join: l'ultima modifica e la piu recente tra le due tabelle
+    public VersionStamp(Long count, Long versionSum, Instant lastModified, Instant joinedLastModified) {
+        this(count, versionSum, lastModified == null || (joinedLastModified != null
+                && joinedLastModified.isAfter(lastModified)) ? joinedLastModified : lastModified);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
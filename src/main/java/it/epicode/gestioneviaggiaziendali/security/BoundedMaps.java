@@ -0,0 +1,38 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
+
+final class BoundedMaps {
+
+    // ===== PULIZIA DELLE MAPPE LIMITATE (max-entries) =====
+    // Stessa politica per VerifiedTokenCache, PrincipalCache e RateLimiter quando la mappa e piena:
+    // 1) tolgo le entry che non servono piu (token o principal scaduti, bucket tornati pieni);
+    // 2) se e ancora piena libero ~10% delle restanti (ordine arbitrario),
+    //    cosi la scansione non si ripete ad ogni nuovo inserimento.
+    // Gli iteratori di ConcurrentHashMap tollerano scritture concorrenti (weakly consistent).
+
+    private BoundedMaps() {
+    }
+
+    // Restituisce quante entry sono state rimosse (per il contatore delle evictions del chiamante)
+    static <V> int makeRoom(Map<?, V> entries, int maxEntries, Predicate<? super V> stale) {
+        int removed = 0;
+        Iterator<V> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (stale.test(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        it = entries.values().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            removed++;
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,37 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import java.util.List;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+// Snapshot immutabile dell'utente autenticato, usato come principal nel SecurityContext.
+// Contiene solo cio che serve ad autorizzare la richiesta (niente password, niente entity JPA),
+// quindi puo essere condiviso tra thread e tenuto in cache senza rischi.
+// tokenVersion: i token emessi con una versione inferiore sono considerati revocati.
+public record EmployeePrincipal(
+        Long id,
+        String username,
+        Role role,
+        long tokenVersion,
+        List<GrantedAuthority> authorities
+) {
+
+    public EmployeePrincipal(Long id, String username, Role role, long tokenVersion) {
+        this(id, username, role, tokenVersion, List.of(new SimpleGrantedAuthority(role.name())));
+    }
+
+    public EmployeePrincipal(Long id, String username, Role role) {
+        this(id, username, role, 0L);
+    }
+
+    public static EmployeePrincipal of(Employee employee) {
+        return new EmployeePrincipal(employee.getId(), employee.getUsername(),
+                employee.getRole(), employee.getTokenVersion());
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
+    }
+}
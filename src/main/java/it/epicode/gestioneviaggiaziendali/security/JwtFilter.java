@@ -1,7 +1,11 @@
 package it.epicode.gestioneviaggiaziendali.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,7 +21,6 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
-import it.epicode.gestioneviaggiaziendali.entity.Employee;
 import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
 import it.epicode.gestioneviaggiaziendali.service.EmployeeService;
 
@@ -26,13 +29,37 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtTools jwtTools;
     private final EmployeeService employeeService;
+    private final TokenVersionRegistry tokenVersionRegistry;
     private final ObjectMapper objectMapper;
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
-    public JwtFilter(JwtTools jwtTools, EmployeeService employeeService, ObjectMapper objectMapper) {
+    // Metriche: tempo di verifica del token (firma/cache + principal + versione) e 401 per codice
+    private final Timer verificationTimer;
+    private final Counter missingTokenCounter;
+    private final Counter invalidTokenCounter;
+
+    public JwtFilter(JwtTools jwtTools,
+                     EmployeeService employeeService,
+                     TokenVersionRegistry tokenVersionRegistry,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry) {
         this.jwtTools = jwtTools;
         this.employeeService = employeeService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
         this.objectMapper = objectMapper;
+        this.verificationTimer = Timer.builder("app.jwt.verification")
+                .description("Tempo di verifica del JWT nel JwtFilter")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.missingTokenCounter = failureCounter(meterRegistry, "MISSING_TOKEN");
+        this.invalidTokenCounter = failureCounter(meterRegistry, "INVALID_TOKEN");
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, String errorCode) {
+        return Counter.builder("app.jwt.failures")
+                .description("Richieste rifiutate dal JwtFilter (401)")
+                .tag("errorCode", errorCode)
+                .register(meterRegistry);
     }
 
     @Override
@@ -45,8 +72,14 @@ public class JwtFilter extends OncePerRequestFilter {
         //    - ma per ottenere il token devi fare login
         //
         // Esempio: /auth/login e /auth/register sono pubblici.
+        // Anche /actuator/** (health, prometheus) resta fuori: lo scraper non ha un token.
+        // Risponde solo sulla porta di management (management.server.port), non pubblicata:
+        // sulla porta dell'API questi endpoint non esistono.
+        // E /avatars/** (storage locale): immagini pubbliche, come gli URL Cloudinary.
         String path = request.getServletPath();
-        return pathMatcher.match("/auth/**", path);
+        return pathMatcher.match("/auth/**", path)
+                || pathMatcher.match("/actuator/**", path)
+                || pathMatcher.match("/avatars/**", path);
     }
 
     @Override
@@ -75,20 +108,35 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7); // rimuove "Bearer "
 
+        // Misuro solo la verifica: il resto della chain (controller) ha le sue metriche
+        Timer.Sample sample = Timer.start();
         try {
-            // 4) Verifico firma e scadenza del token
-            jwtTools.verifyTokenAndGetClaims(token);
-
-            // 5) Estraggo l'id dal token (subject) e carico l'utente dal DB
-            Long employeeId = jwtTools.extractIdFromToken(token);
-            Employee authenticatedEmployee = employeeService.findEntityById(employeeId);
-
-            // 6) Creo un Authentication completo (principal = Employee, authorities = ruoli)
+            // 4) Verifico firma e scadenza del token (una sola volta, eventualmente da cache)
+            Claims claims = jwtTools.verifyTokenAndGetClaims(token);
+
+            // 5) Ricavo il principal:
+            //    - modalita "stateless": direttamente dalle claims (ruolo + versione), zero query;
+            //    - modalita "database": dalla PrincipalCache, oppure dal DB se non presente/scaduto.
+            EmployeePrincipal principal = tokenVersionRegistry.isStateless()
+                    ? jwtTools.extractPrincipal(claims)
+                    : employeeService.findPrincipalById(jwtTools.extractId(claims));
+
+            // 5.1) Token revocato (logout, cambio ruolo, revoca admin): la sua versione e vecchia
+            long tokenVersion = jwtTools.extractTokenVersion(claims);
+            if (tokenVersion < principal.tokenVersion()
+                    || !tokenVersionRegistry.isCurrent(principal.id(), tokenVersion)) {
+                sample.stop(verificationTimer);
+                writeUnauthorized(response, request.getRequestURI(),
+                        "Token non valido o scaduto", "INVALID_TOKEN");
+                return;
+            }
+
+            // 6) Creo un Authentication completo (principal = snapshot dell'Employee, authorities = ruoli)
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(
-                            authenticatedEmployee,
+                            principal,
                             null,
-                            authenticatedEmployee.getAuthorities()
+                            principal.authorities()
                     );
 
             // Aggiungo dettagli della richiesta (IP, session id, ecc.)
@@ -96,11 +144,13 @@ public class JwtFilter extends OncePerRequestFilter {
 
             // 7) Salvo nel contesto di sicurezza (da qui in poi l'utente e "autenticato")
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            sample.stop(verificationTimer);
 
             // 8) Passo al prossimo filtro/endpoint
             filterChain.doFilter(request, response);
         } catch (JwtException | IllegalArgumentException | NotFoundException ex) {
             // Tutte le eccezioni di JJWT finiscono qui: token scaduto, firma invalida, token malformato, ecc.
+            sample.stop(verificationTimer);
             writeUnauthorized(response, request.getRequestURI(),
                     "Token non valido o scaduto", "INVALID_TOKEN");
         }
@@ -114,6 +164,8 @@ public class JwtFilter extends OncePerRequestFilter {
         // Le eccezioni lanciate nei filtri NON passano automaticamente dal GlobalExceptionHandler.
         // Quindi qui costruiamo manualmente una risposta coerente con ProblemDetail.
 
+        ("MISSING_TOKEN".equals(errorCode) ? missingTokenCounter : invalidTokenCounter).increment();
+
         ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.UNAUTHORIZED);
         problem.setTitle("Unauthorized");
         problem.setDetail(detail);
@@ -1,10 +1,13 @@
 package it.epicode.gestioneviaggiaziendali.security;
 
 import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.util.Date;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,19 +16,32 @@ import org.springframework.stereotype.Component;
 @Component
 public class JwtTools {
 
+    private static final String ROLE_CLAIM = "role";
+    private static final String VERSION_CLAIM = "ver";
+
     // ===== CONFIGURAZIONE DA application.properties =====
     // jwt.secret -> chiave segreta usata per firmare e verificare il token
     // jwt.expirationms -> durata del token in millisecondi
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    @Value("${jwt.expirationms}")
-    private long jwtExpirationMs;
+    // jwt.cache.max-entries -> numero massimo di token gia verificati tenuti in cache (0 = disattivata)
+    //
+    // Chiave e parser vengono costruiti UNA sola volta: sono immutabili e thread-safe,
+    // quindi non ha senso ricrearli ad ogni richiesta.
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpirationMs;
+    private final VerifiedTokenCache verifiedTokens;
 
-    private SecretKey getSigningKey() {
+    public JwtTools(@Value("${jwt.secret}") String jwtSecret,
+                    @Value("${jwt.expirationms}") long jwtExpirationMs,
+                    @Value("${jwt.cache.max-entries:10000}") int tokenCacheMaxEntries) {
         // 1) Converto la stringa in bytes.
         // 2) Creo la chiave HMAC (HS256/HS512). La chiave deve essere abbastanza lunga.
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.verifiedTokens = new VerifiedTokenCache(tokenCacheMaxEntries, Clock.systemUTC());
     }
 
     public String generateToken(Employee employee) {
@@ -36,12 +52,15 @@ public class JwtTools {
 
         // 2) Preparo le claims NON sensibili da inserire nel token.
         //    - NON inserire password o dati personali sensibili.
-        //    - Qui mettiamo solo ID/username/email.
+        //    - Qui mettiamo ID/username/email piu ruolo e versione del token:
+        //      in modalita "stateless" JwtFilter costruisce il principal solo da queste claims.
         //    Esempio di payload:
         //    {
         //      "sub": "10",
         //      "username": "mrossi",
         //      "email": "m.rossi@example.com",
+        //      "role": "USER",
+        //      "ver": 0,
         //      "iat": 1700000000,
         //      "exp": 1700086400
         //    }
@@ -49,34 +68,63 @@ public class JwtTools {
                 .subject(employee.getId().toString())
                 .claim("username", employee.getUsername())
                 .claim("email", employee.getEmail())
+                .claim(ROLE_CLAIM, employee.getRole().name())
+                .claim(VERSION_CLAIM, employee.getTokenVersion())
                 .issuedAt(now)
                 .expiration(expiration)
                 // 3) Firma del token con chiave segreta (HS256 implicito in base alla key).
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 // 4) Serializzazione finale in stringa compatta "header.payload.signature".
                 .compact();
     }
 
     public Claims verifyTokenAndGetClaims(String token) {
         // ===== LOGICA PASSO-PASSO (numerata) =====
-        // 1) Verifico firma e scadenza del token usando la stessa chiave segreta.
-        // 2) Se il token e valido, ottengo le Claims (payload).
-        // 3) Se e invalido/scaduto/manomesso, JJWT lancia eccezioni (da gestire nel filtro).
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        // 1) Se il token e gia stato verificato (e non e scaduto) riuso le claims in cache.
+        // 2) Altrimenti verifico firma e scadenza del token usando la stessa chiave segreta.
+        // 3) Se il token e valido, ottengo le Claims (payload) e le metto in cache fino a exp.
+        // 4) Se e invalido/scaduto/manomesso, JJWT lancia eccezioni (da gestire nel filtro).
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        verifiedTokens.put(token, claims);
+        return claims;
     }
 
     public Long extractIdFromToken(String token) {
         // Estraiamo il subject (che contiene l'id utente come stringa)
-        String subject = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-        return Long.valueOf(subject);
+        return extractId(verifyTokenAndGetClaims(token));
+    }
+
+    public Long extractId(Claims claims) {
+        // Variante da usare quando le claims sono gia state verificate (evita un secondo parsing)
+        return Long.valueOf(claims.getSubject());
+    }
+
+    public long extractTokenVersion(Claims claims) {
+        // Token emessi prima dell'introduzione della claim "ver" valgono come versione 0
+        Number version = claims.get(VERSION_CLAIM, Number.class);
+        return version == null ? 0L : version.longValue();
+    }
+
+    public EmployeePrincipal extractPrincipal(Claims claims) {
+        // Modalita "stateless": il principal nasce dalle claims firmate, senza leggere il DB.
+        // Un token senza ruolo (emesso da una versione precedente) non e utilizzabile qui.
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (role == null) {
+            throw new IllegalArgumentException("Claim role mancante");
+        }
+        return new EmployeePrincipal(
+                extractId(claims),
+                claims.get("username", String.class),
+                Role.valueOf(role),
+                extractTokenVersion(claims)
+        );
+    }
+
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokens;
     }
 }
@@ -0,0 +1,144 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.PasswordHashingStatsResponse;
+import it.epicode.gestioneviaggiaziendali.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PasswordHashingService {
+
+    // ===== POOL DEDICATO PER BCRYPT =====
+    // BCrypt(12) costa centinaia di millisecondi di CPU. Se lo eseguissimo sui thread di Tomcat,
+    // un picco di login occuperebbe tutto il connettore bloccando anche le normali chiamate /api/**.
+    // Qui l'hashing gira su un pool limitato (thread + coda fissi):
+    // - se la coda e piena rispondiamo subito 429 con Retry-After (admission control);
+    // - se l'attesa supera il timeout rinunciamo invece di accumulare richieste.
+    // Il thread della richiesta resta comunque fermo in future.get() fino a timeout-ms: e accettabile solo
+    // perche le richieste girano su virtual thread (spring.threads.virtual.enabled, default true), che
+    // in attesa non occupano un thread di piattaforma. Con VIRTUAL_THREADS=false ogni login in coda
+    // terrebbe bloccato un thread di Tomcat: per questo il timeout di default e basso (1 s, circa
+    // 4 hash BCrypt(12)) e un pool saturo risponde 429 in fretta invece di far crescere l'attesa.
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+
+    // Hash di una password casuale: per le email inesistenti eseguiamo comunque un matches()
+    // sullo stesso pool, cosi tempi di risposta e carico sono uguali a una password errata.
+    private final String dummyHash;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${app.auth.hashing.threads:0}") int threads,
+                                  @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.auth.hashing.timeout-ms:1000}") long timeoutMs,
+                                  @Value("${app.auth.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public void matchDummy(String rawPassword) {
+        // Risultato ignorato: conta solo aver speso lo stesso tempo (e lo stesso slot del pool)
+        submit(() -> passwordEncoder.matches(rawPassword, dummyHash));
+    }
+
+    public PasswordHashingStatsResponse stats() {
+        long count = completed.sum();
+        return new PasswordHashingStatsResponse(
+                executor.getCorePoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                count,
+                rejected.sum(),
+                count == 0 ? 0 : totalLatencyNanos.sum() / 1_000_000.0 / count,
+                maxLatencyNanos.get() / 1_000_000.0
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new TooManyRequestsException("Troppe richieste di autenticazione, riprova tra poco", retryAfterSeconds);
+        }
+        try {
+            // Attesa bloccante: su virtual thread costa solo memoria (vedi commento in cima)
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            record(System.nanoTime() - start);
+            return result;
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException("Troppe richieste di autenticazione, riprova tra poco", retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing della password interrotto", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Errore durante l'hashing della password", ex.getCause());
+        }
+    }
+
+    private void record(long latencyNanos) {
+        completed.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+}
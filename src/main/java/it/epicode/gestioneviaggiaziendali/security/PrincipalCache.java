@@ -0,0 +1,105 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PrincipalCache {
+
+    // ===== CACHE DEI PRINCIPAL AUTENTICATI =====
+    // Evita la SELECT su employees che JwtFilter farebbe ad ogni richiesta /api/**.
+    // - limitata (max-entries) e con TTL, cosi anche modifiche fatte da altri nodi
+    //   diventano visibili entro un tempo massimo;
+    // - invalidata esplicitamente da EmployeeService su update/avatar/ruolo/delete.
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    // Incrementato ad ogni invalidazione: un caricamento iniziato prima di una invalidazione
+    // non deve rimettere in cache un valore ormai vecchio.
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public PrincipalCache(@Value("${app.auth.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${app.auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this(maxEntries, ttlSeconds * 1000, Clock.systemUTC());
+    }
+
+    PrincipalCache(int maxEntries, long ttlMillis, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    public EmployeePrincipal get(Long employeeId, Function<Long, EmployeePrincipal> loader) {
+        long now = clock.millis();
+        Entry entry = entries.get(employeeId);
+        if (entry != null) {
+            if (entry.expiresAtMillis() > now) {
+                hits.increment();
+                return entry.principal();
+            }
+            if (entries.remove(employeeId, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        long epoch = invalidationEpoch.get();
+        EmployeePrincipal loaded = loader.apply(employeeId);
+        if (maxEntries > 0) {
+            if (entries.size() >= maxEntries) {
+                makeRoom(now);
+            }
+            entries.put(employeeId, new Entry(loaded, now + ttlMillis));
+            if (invalidationEpoch.get() != epoch) {
+                // Nel frattempo qualcuno ha invalidato: non mi fido del valore appena caricato
+                entries.remove(employeeId);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long employeeId) {
+        invalidationEpoch.incrementAndGet();
+        if (entries.remove(employeeId) != null) {
+            evictions.increment();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private void makeRoom(long now) {
+        // Prima le entry scadute, poi ~10% delle restanti (vedi BoundedMaps)
+        evictions.add(BoundedMaps.makeRoom(entries, maxEntries, entry -> entry.expiresAtMillis() <= now));
+    }
+
+    private record Entry(EmployeePrincipal principal, long expiresAtMillis) {
+    }
+}
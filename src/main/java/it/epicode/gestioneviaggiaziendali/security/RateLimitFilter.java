@@ -0,0 +1,123 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // ===== RATE LIMITING PER CLIENT =====
+    // Gira subito dopo JwtFilter (vedi SecurityConfig), con un token bucket per gruppo di route:
+    // - /api/**  -> chiave = id dell'employee autenticato (un client non consuma i token degli altri)
+    // - /auth/** -> chiave = IP del client (non c'e ancora un utente; il login costa un hash BCrypt)
+    // L'IP e request.getRemoteAddr(): dietro un proxy va attivato server.forward-headers-strategy,
+    // non leggiamo X-Forwarded-For a mano (sarebbe falsificabile dal client).
+    // Oltre il limite: 429 ProblemDetail con Retry-After, come GlobalExceptionHandler.
+
+    private static final String API_PREFIX = "/api/";
+    private static final String AUTH_PREFIX = "/auth/";
+
+    private final boolean enabled;
+    private final RateLimiter apiLimiter;
+    private final RateLimiter authLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter apiRejections;
+    private final Counter authRejections;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.max-entries:100000}") int maxEntries,
+                           @Value("${app.rate-limit.api.capacity:200}") int apiCapacity,
+                           @Value("${app.rate-limit.api.refill-per-second:100}") double apiRefillPerSecond,
+                           @Value("${app.rate-limit.auth.capacity:10}") int authCapacity,
+                           @Value("${app.rate-limit.auth.refill-per-second:1}") double authRefillPerSecond) {
+        this.enabled = enabled;
+        this.apiLimiter = new RateLimiter(apiCapacity, apiRefillPerSecond, maxEntries);
+        this.authLimiter = new RateLimiter(authCapacity, authRefillPerSecond, maxEntries);
+        this.objectMapper = objectMapper;
+        this.apiRejections = rejectionCounter(meterRegistry, "api");
+        this.authRejections = rejectionCounter(meterRegistry, "auth");
+        Gauge.builder("app.rate-limit.buckets", apiLimiter, RateLimiter::size)
+                .description("Bucket attivi del rate limiter")
+                .tag("group", "api")
+                .register(meterRegistry);
+        Gauge.builder("app.rate-limit.buckets", authLimiter, RateLimiter::size)
+                .description("Bucket attivi del rate limiter")
+                .tag("group", "auth")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String group) {
+        return Counter.builder("app.rate-limit.rejections")
+                .description("Richieste rifiutate dal RateLimitFilter (429)")
+                .tag("group", group)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // startsWith invece di AntPathMatcher: il filtro gira su ogni richiesta e deve costare poco
+        String path = request.getServletPath();
+        return !enabled || !(path.startsWith(API_PREFIX) || path.startsWith(AUTH_PREFIX));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean auth = request.getServletPath().startsWith(AUTH_PREFIX);
+        long waitNanos = auth
+                ? authLimiter.tryAcquire(request.getRemoteAddr())
+                : apiLimiter.tryAcquire(apiKey(request));
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        (auth ? authRejections : apiRejections).increment();
+        writeTooManyRequests(response, request.getRequestURI(), waitNanos);
+    }
+
+    private static Object apiKey(HttpServletRequest request) {
+        // JwtFilter ha gia autenticato la richiesta; senza principal (non dovrebbe succedere) uso l'IP
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof EmployeePrincipal principal) {
+            return principal.id();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void writeTooManyRequests(HttpServletResponse response, String path, long waitNanos) throws IOException {
+        // Come in JwtFilter: le risposte dei filtri non passano dal GlobalExceptionHandler
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS);
+        problem.setTitle("Too Many Requests");
+        problem.setDetail("Troppe richieste, riprova tra " + retryAfterSeconds + " secondi");
+        problem.setProperty("timestamp", Instant.now());
+        problem.setProperty("path", path);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+}
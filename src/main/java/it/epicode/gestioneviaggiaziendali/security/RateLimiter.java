@@ -0,0 +1,108 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class RateLimiter {
+
+    // ===== TOKEN BUCKET SENZA LOCK =====
+    // Ogni chiave (id employee o IP) ha un solo AtomicLong: il "theoretical arrival time" (GCRA),
+    // cioe l'istante in cui il bucket tornerebbe pieno. E un token bucket equivalente:
+    // - capacity     = richieste consecutive ammesse a bucket pieno (burst)
+    // - refill       = token al secondo, cioe una richiesta ogni emissionInterval
+    // LOGICA PASSO-PASSO (tryAcquire):
+    // 1) tat' = max(tat, adesso) + emissionInterval
+    // 2) se tat' - adesso supera il burst il bucket e vuoto: rifiuto e restituisco l'attesa
+    // 3) altrimenti CAS tat -> tat' (se un altro thread ha vinto, ricalcolo)
+    // Nessun lock: chiavi diverse stanno su celle diverse della mappa, la stessa chiave si contende
+    // un solo CAS. I contatori sono LongAdder (celle per core, niente contesa su un'unica variabile).
+    //
+    // Limitata e auto-ripulita: un bucket con tat <= adesso e pieno, identico a uno nuovo, quindi si puo
+    // togliere senza perdere nulla. Quando la mappa e piena un solo thread fa pulizia (come PrincipalCache:
+    // prima i bucket pieni, poi ~10% arbitrario); gli altri proseguono senza aspettare.
+
+    private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoTime;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RateLimiter(int capacity, double refillPerSecond, int maxEntries) {
+        this(capacity, refillPerSecond, maxEntries, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, double refillPerSecond, int maxEntries, LongSupplier nanoTime) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity e refill-per-second devono essere positivi");
+        }
+        this.emissionIntervalNanos = Math.max(1, Math.round(1_000_000_000 / refillPerSecond));
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.nanoTime = nanoTime;
+    }
+
+    // 0 = richiesta ammessa, altrimenti nanosecondi da attendere prima del prossimo token
+    public long tryAcquire(Object key) {
+        long now = nanoTime.getAsLong();
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            if (buckets.size() >= maxEntries) {
+                makeRoom(now);
+            }
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long overflow = next - now - burstNanos;
+            if (overflow > 0) {
+                rejected.increment();
+                return overflow;
+            }
+            if (tat.compareAndSet(current, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long allowed() {
+        return allowed.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private void makeRoom(long now) {
+        // Un solo thread alla volta; chi arriva intanto inserisce comunque (il limite puo essere superato
+        // di poco e solo per un istante)
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Prima i bucket pieni (tat <= adesso), poi ~10% arbitrario (vedi BoundedMaps).
+            // Se resta piena ci sono tanti client attivi insieme: togliere un bucket attivo gli regala
+            // un burst, per questo max-entries va dimensionato ben sopra i client contemporanei.
+            evictions.add(BoundedMaps.makeRoom(buckets, maxEntries, tat -> tat.get() - now <= 0));
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
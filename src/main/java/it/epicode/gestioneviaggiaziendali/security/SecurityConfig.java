@@ -1,5 +1,6 @@
 package it.epicode.gestioneviaggiaziendali.security;
 
+import jakarta.servlet.DispatcherType;
 import java.util.List;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,7 +23,9 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtFilter jwtFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   JwtFilter jwtFilter,
+                                                   RateLimitFilter rateLimitFilter) throws Exception {
         // Questo Bean costruisce la "catena di filtri" che intercetta TUTTE le richieste HTTP
         // prima che arrivino ai controller. Ogni filtro può:
         // - lasciar passare la richiesta
@@ -51,8 +54,11 @@ public class SecurityConfig {
         // Endpoint pubblici e protetti:
         // - /auth/** => pubblici (login/registrazione)
         // - /api/**  => protetti (serve token valido)
-        // - il resto resta libero (es. root o actuator se presente)
+        // - il resto resta libero (es. root; actuator e solo sulla porta di management interna)
+        // - dispatch ASYNC => la richiesta e gia stata autorizzata al primo dispatch; senza sessione il
+        //   SecurityContext non c'e piu e lo streaming (export) fallirebbe a risposta gia scritta
         http.authorizeHttpRequests(auth -> auth
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers("/api/**").authenticated()
                 .anyRequest().permitAll()
@@ -62,6 +68,10 @@ public class SecurityConfig {
         // Così intercetto il token, lo verifico e valorizzo il SecurityContext.
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
+        // Rate limiting subito dopo il JWT: su /api/** la chiave e l'employee gia autenticato,
+        // su /auth/** (saltato da JwtFilter) l'IP del client.
+        http.addFilterAfter(rateLimitFilter, JwtFilter.class);
+
         // Attiva CORS usando la configurazione del bean CorsConfigurationSource.
         // Senza questa riga, la config CORS non viene applicata da Spring Security.
         http.cors(Customizer.withDefaults());
@@ -0,0 +1,136 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import it.epicode.gestioneviaggiaziendali.entity.RevokedEmployee;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.RevokedEmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TokenVersionView;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class TokenVersionRegistry {
+
+    // ===== VERSIONI DEI TOKEN (modalita stateless) =====
+    // In modalita "stateless" JwtFilter non legge l'employee dal DB: si fida di ruolo e versione
+    // scritti nel token. Per poter revocare i token teniamo in memoria SOLO le versioni > 0
+    // (cioe gli employee che hanno fatto logout / cambiato ruolo / sono stati revocati),
+    // quindi la mappa resta piccola anche con milioni di dipendenti.
+    //
+    // - Le revoche fatte su questo nodo sono visibili subito (record()).
+    // - Le revoche fatte da altri nodi arrivano col refresh incrementale (righe con
+    //   token_version_changed_at successivo all'ultimo giro): ritardo massimo = refresh-ms.
+    // - Gli employee eliminati non hanno piu una riga in employees: la revoca e salvata in
+    //   revoked_employees (stessa transazione della delete) e letta dallo stesso refresh.
+    //   Le due query sono range su un indice (token_version_changed_at, revoked_at): il costo
+    //   dipende dalle righe cambiate nel giro, non dal numero di dipendenti.
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    // Sovrapposizione tra un giro e l'altro: copre transazioni committate in ritardo
+    // e piccoli sfasamenti di orologio tra nodi. Riapplicare una versione e idempotente.
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(30);
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+    private final EmployeeRepository employeeRepository;
+    private final RevokedEmployeeRepository revokedEmployeeRepository;
+    private final boolean stateless;
+    private final Duration tokenLifetime;
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public TokenVersionRegistry(EmployeeRepository employeeRepository,
+                                RevokedEmployeeRepository revokedEmployeeRepository,
+                                @Value("${app.auth.mode:database}") String authMode,
+                                @Value("${jwt.expirationms}") long jwtExpirationMs) {
+        this.employeeRepository = employeeRepository;
+        this.revokedEmployeeRepository = revokedEmployeeRepository;
+        this.stateless = "stateless".equalsIgnoreCase(authMode);
+        this.tokenLifetime = Duration.ofMillis(jwtExpirationMs);
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    public boolean isCurrent(Long employeeId, long tokenVersion) {
+        // Nessuna entry = versione 0 = nessuna revoca
+        return tokenVersion >= versions.getOrDefault(employeeId, 0L);
+    }
+
+    public void record(Long employeeId, long tokenVersion) {
+        versions.merge(employeeId, tokenVersion, Math::max);
+    }
+
+    public void recordDeleted(Long employeeId) {
+        // Tombstone locale, visibile subito su questo nodo. Gli altri nodi la ricevono dalla riga
+        // di revoked_employees (EmployeeService.delete). Dentro una transazione solo dopo il commit:
+        // una delete annullata non deve revocare i token di un employee che esiste ancora.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.put(employeeId, DELETED);
+                }
+            });
+        } else {
+            versions.put(employeeId, DELETED);
+        }
+    }
+
+    public int size() {
+        return versions.size();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.auth.token-version.refresh-ms:5000}")
+    public void refresh() {
+        if (!stateless) {
+            // In modalita "database" la versione arriva gia dal principal letto dal DB
+            return;
+        }
+        Instant since = watermark == Instant.EPOCH ? Instant.EPOCH : watermark.minus(REFRESH_OVERLAP);
+        List<TokenVersionView> changed = employeeRepository.findTokenVersionsChangedSince(since);
+        List<RevokedEmployee> deleted = revokedEmployeeRepository.findByRevokedAtAfter(since);
+        Instant newWatermark = watermark;
+        for (TokenVersionView view : changed) {
+            record(view.id(), view.tokenVersion());
+            if (view.changedAt().isAfter(newWatermark)) {
+                newWatermark = view.changedAt();
+            }
+        }
+        for (RevokedEmployee revoked : deleted) {
+            versions.put(revoked.getEmployeeId(), DELETED);
+            if (revoked.getRevokedAt().isAfter(newWatermark)) {
+                newWatermark = revoked.getRevokedAt();
+            }
+        }
+        watermark = newWatermark;
+        if (!changed.isEmpty() || !deleted.isEmpty()) {
+            log.debug("Token version registry: {} righe aggiornate, {} eliminati, {} employee con token revocati",
+                    changed.size(), deleted.size(), versions.size());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.auth.token-version.purge-ms:3600000}",
+            fixedDelayString = "${app.auth.token-version.purge-ms:3600000}")
+    public void purgeExpiredDeletions() {
+        if (!stateless) {
+            return;
+        }
+        // Oltre la durata di un token (piu il margine del refresh) nessun JWT dell'employee e ancora valido
+        int purged = revokedEmployeeRepository.deleteRevokedBefore(
+                Instant.now().minus(tokenLifetime).minus(REFRESH_OVERLAP));
+        if (purged > 0) {
+            log.debug("Token version registry: {} revoche di employee eliminati scadute", purged);
+        }
+    }
+}
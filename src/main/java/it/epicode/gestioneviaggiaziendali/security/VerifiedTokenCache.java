@@ -0,0 +1,102 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import io.jsonwebtoken.Claims;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class VerifiedTokenCache {
+
+    // ===== CACHE DEI TOKEN GIA VERIFICATI =====
+    // Chiave = digest SHA-256 del token (non teniamo in memoria il token in chiaro).
+    // Valore = claims gia verificate + istante di scadenza (exp) del token.
+    // Un client "caldo" che manda sempre lo stesso token salta firma HMAC e parsing JSON.
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(int maxEntries, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public Claims get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAtMillis() <= clock.millis()) {
+            // Token scaduto: lo rimuovo e lascio che il parser lanci ExpiredJwtException
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.claims();
+    }
+
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (maxEntries <= 0 || expiration == null) {
+            // Senza exp non sappiamo quando rimuoverlo: meglio non metterlo in cache
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+        entries.put(digest(token), new Entry(claims, expiration.getTime()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private void makeRoom() {
+        // Prima i token scaduti, poi ~10% delle restanti (vedi BoundedMaps)
+        long now = clock.millis();
+        evictions.add(BoundedMaps.makeRoom(entries, maxEntries, entry -> entry.expiresAtMillis() <= now));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            // SHA-256 e obbligatorio in ogni JVM: non puo succedere
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAtMillis) {
+    }
+}
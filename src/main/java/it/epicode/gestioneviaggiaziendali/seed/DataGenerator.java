@@ -0,0 +1,355 @@
+package it.epicode.gestioneviaggiaziendali.seed;
+
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class DataGenerator {
+
+    // ===== GENERATORE DI DATASET SINTETICI =====
+    // Milioni di righe scritte con insert JDBC in batch (niente entity, niente persistence context).
+    // Su PostgreSQL conviene reWriteBatchedInserts=true nell'URL: ogni batch diventa un solo
+    // INSERT multi-riga, che in pratica si avvicina a un COPY.
+    //
+    // Distribuzioni:
+    // - destinazioni con popolarita "a coda lunga" (Zipf: poche citta prendono quasi tutti i viaggi);
+    // - date dei viaggi sparse su piu anni, i viaggi passati risultano COMPLETATO;
+    // - pochi "heavy booker" (es. 1% degli employee) fanno una quota grande delle prenotazioni;
+    // - mai due prenotazioni dello stesso employee nello stesso giorno (vincolo unique).
+    //
+    // Gli id vengono assegnati qui (1..N); alla fine le sequence ripartono oltre il massimo,
+    // cosi gli insert successivi via JPA non collidono.
+
+    private static final Logger log = LoggerFactory.getLogger(DataGenerator.class);
+
+    // Gli utenti del vecchio seeder restano (stesse credenziali): mrossi e ADMIN
+    private static final String[][] NAMED = {
+            {"mrossi", "Mario", "Rossi", "m.rossi@example.com"},
+            {"lbianchi", "Luca", "Bianchi", "l.bianchi@example.com"},
+            {"gverdi", "Giulia", "Verdi", "g.verdi@example.com"}
+    };
+    public static final int NAMED_EMPLOYEES = NAMED.length;
+
+    private static final List<String> DESTINATIONS = List.of(
+            "Milano", "Roma", "Torino", "Napoli", "Bologna", "Firenze", "Venezia", "Genova",
+            "Londra", "Parigi", "Berlino", "Madrid", "Barcellona", "Monaco di Baviera", "Zurigo", "Vienna",
+            "Amsterdam", "Bruxelles", "Lisbona", "Dublino", "Praga", "Varsavia", "Budapest", "Atene",
+            "New York", "Boston", "Chicago", "San Francisco", "Toronto", "Dubai", "Singapore", "Tokyo",
+            "Bari", "Palermo", "Catania", "Verona", "Padova", "Trieste", "Cagliari", "Pescara",
+            "Francoforte", "Lione", "Marsiglia", "Stoccolma", "Copenaghen", "Oslo", "Helsinki", "Istanbul");
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final int FUTURE_DAYS = 180;
+
+    private static final List<String> NAMES = List.of(
+            "Marco", "Giulia", "Luca", "Francesca", "Andrea", "Chiara", "Matteo", "Sara", "Davide", "Elena");
+    private static final List<String> SURNAMES = List.of(
+            "Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo", "Ricci", "Marino", "Greco");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataGenerator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public Report generate(DataGeneratorSettings settings, String encodedPassword) {
+        // LOGICA PASSO-PASSO:
+        // 1) Employee (i primi 3 sono gli utenti "storici" del seeder, mrossi e ADMIN).
+        // 2) Viaggi: destinazione Zipf + giorno casuale; li indicizzo per giorno (counting sort).
+        // 3) Prenotazioni employee per employee: k giorni DISTINTI con un Fisher-Yates parziale
+        //    su un array di giorni riusato (O(k), nessun Set), poi un viaggio di quel giorno.
+        // 4) Posti occupati dei viaggi contati in memoria durante il punto 3 (capienza illimitata:
+        //    la distribuzione casuale non rispetterebbe un limite).
+        // 5) Sequence riallineate oltre gli id generati.
+        SplittableRandom random = new SplittableRandom(settings.randomSeed());
+        LocalDate firstDay = LocalDate.now().minusDays((long) settings.years() * 365 - FUTURE_DAYS);
+        int days = settings.years() * 365;
+        long start = System.nanoTime();
+
+        long employeesNanos = System.nanoTime();
+        insertEmployees(settings, encodedPassword);
+        employeesNanos = System.nanoTime() - employeesNanos;
+
+        long travelsNanos = System.nanoTime();
+        int[] travelDay = insertTravels(settings, random, firstDay, days);
+        travelsNanos = System.nanoTime() - travelsNanos;
+
+        long bookingsNanos = System.nanoTime();
+        int[] seatsTaken = new int[settings.travels()];
+        long bookings = insertBookings(settings, random, firstDay, days, travelDay, seatsTaken);
+        updateSeatsTaken(settings, seatsTaken);
+        bookingsNanos = System.nanoTime() - bookingsNanos;
+
+        restartSequence("employees_seq", settings.employees());
+        restartSequence("travels_seq", settings.travels());
+        restartSequence("bookings_seq", bookings);
+
+        Report report = new Report(settings.employees(), settings.travels(), bookings,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Dataset generato: {} employee ({} righe/s), {} viaggi ({} righe/s), "
+                        + "{} prenotazioni ({} righe/s) in {} ms",
+                report.employees(), rowsPerSecond(report.employees(), employeesNanos),
+                report.travels(), rowsPerSecond(report.travels(), travelsNanos),
+                report.bookings(), rowsPerSecond(report.bookings(), bookingsNanos),
+                report.elapsedMillis());
+        return report;
+    }
+
+    private void insertEmployees(DataGeneratorSettings settings, String encodedPassword) {
+        // Stessa password (gia codificata) per tutti: un solo BCrypt invece di milioni
+        Timestamp now = Timestamp.from(Instant.now());
+        String sql = """
+                insert into employees (id, username, name, surname, email, password, role,
+                                       token_version, token_version_changed_at, version, updated_at)
+                values (?, ?, ?, ?, ?, ?, ?, 0, ?, 0, ?)
+                """;
+        inBatches(sql, settings.employees(), settings.batchSize(), (ps, i) -> {
+            long id = i + 1;
+            String[] named = i < NAMED_EMPLOYEES ? NAMED[i] : null;
+            String username = named != null ? named[0] : "user" + id;
+            String name = named != null ? named[1] : NAMES.get(i % NAMES.size());
+            String surname = named != null ? named[2] : SURNAMES.get((i / NAMES.size()) % SURNAMES.size());
+            String email = named != null ? named[3] : username + "@example.com";
+            ps.setLong(1, id);
+            ps.setString(2, username);
+            ps.setString(3, name);
+            ps.setString(4, surname);
+            ps.setString(5, email);
+            ps.setString(6, encodedPassword);
+            ps.setString(7, (i == 0 ? Role.ADMIN : Role.USER).name());
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+    }
+
+    private int[] insertTravels(DataGeneratorSettings settings, SplittableRandom random, LocalDate firstDay, int days) {
+        double[] cumulativeWeights = new double[DESTINATIONS.size()];
+        double total = 0;
+        for (int rank = 0; rank < cumulativeWeights.length; rank++) {
+            total += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulativeWeights[rank] = total;
+        }
+        double totalWeight = total;
+
+        LocalDate today = LocalDate.now();
+        Timestamp now = Timestamp.from(Instant.now());
+        int[] travelDay = new int[settings.travels()];
+        String sql = """
+                insert into travels (id, destination, destination_normalized, travel_date, status,
+                                     version, updated_at)
+                values (?, ?, ?, ?, ?, 0, ?)
+                """;
+        inBatches(sql, settings.travels(), settings.batchSize(), (ps, i) -> {
+            int rank = Arrays.binarySearch(cumulativeWeights, random.nextDouble(totalWeight));
+            String destination = DESTINATIONS.get(rank >= 0 ? rank : -rank - 1);
+            int day = random.nextInt(days);
+            travelDay[i] = day;
+            LocalDate date = firstDay.plusDays(day);
+            ps.setLong(1, i + 1);
+            ps.setString(2, destination);
+            ps.setString(3, Travel.normalizeDestination(destination));
+            ps.setDate(4, Date.valueOf(date));
+            ps.setString(5, (date.isBefore(today) ? TravelStatus.COMPLETATO : TravelStatus.IN_PROGRAMMA).name());
+            ps.setTimestamp(6, now);
+        });
+        return travelDay;
+    }
+
+    private long insertBookings(DataGeneratorSettings settings, SplittableRandom random,
+                                LocalDate firstDay, int days, int[] travelDay, int[] seatsTaken) {
+        // Viaggi raggruppati per giorno: travelsOfDay[dayStart[d] .. dayStart[d + 1]) = indici dei viaggi del giorno d
+        int[] dayStart = new int[days + 1];
+        for (int day : travelDay) {
+            dayStart[day + 1]++;
+        }
+        for (int d = 0; d < days; d++) {
+            dayStart[d + 1] += dayStart[d];
+        }
+        int[] travelsOfDay = new int[travelDay.length];
+        int[] cursor = Arrays.copyOf(dayStart, days);
+        for (int t = 0; t < travelDay.length; t++) {
+            travelsOfDay[cursor[travelDay[t]]++] = t;
+        }
+        int[] dayPool = IntStream.range(0, days).filter(d -> dayStart[d + 1] > dayStart[d]).toArray();
+
+        // Quote: heavyCount employee si dividono heavyBookingShare delle prenotazioni, gli altri il resto.
+        // Heavy booker sparsi tra gli id (uno ogni "stride"), esclusi gli utenti nominati.
+        int employees = settings.employees();
+        int candidates = Math.max(1, employees - NAMED_EMPLOYEES);
+        int heavyCount = Math.min(candidates, Math.max(1, (int) Math.round(employees * settings.heavyBookerShare())));
+        int stride = Math.max(1, candidates / heavyCount);
+        long heavyLeft = Math.round(settings.bookings() * settings.heavyBookingShare());
+        long normalLeft = settings.bookings() - heavyLeft;
+        int heavyMembersLeft = heavyCount;
+        int normalMembersLeft = employees - heavyCount;
+
+        BookingBuffer buffer = new BookingBuffer(settings.batchSize());
+        long nextId = 1;
+        for (int e = 0; e < employees; e++) {
+            int candidate = e - NAMED_EMPLOYEES;
+            boolean heavy = candidate >= 0 && candidate % stride == 0 && candidate / stride < heavyCount;
+            // Divido il residuo tra i membri rimasti del gruppo: il totale torna esatto
+            // (salvo employee con piu prenotazioni richieste che giorni disponibili)
+            long left = heavy ? heavyLeft : normalLeft;
+            int members = heavy ? heavyMembersLeft-- : normalMembersLeft--;
+            int k = (int) Math.min(dayPool.length, (left + members - 1) / Math.max(1, members));
+            if (heavy) {
+                heavyLeft -= k;
+            } else {
+                normalLeft -= k;
+            }
+
+            for (int i = 0; i < k; i++) {
+                // Fisher-Yates parziale: dayPool[i] e un giorno non ancora usato da questo employee
+                int j = i + random.nextInt(dayPool.length - i);
+                int day = dayPool[j];
+                dayPool[j] = dayPool[i];
+                dayPool[i] = day;
+
+                int travel = travelsOfDay[dayStart[day] + random.nextInt(dayStart[day + 1] - dayStart[day])];
+                seatsTaken[travel]++;
+                LocalDate travelDate = firstDay.plusDays(day);
+                LocalDateTime requestDate = travelDate.minusDays(1 + random.nextInt(60))
+                        .atTime(8 + random.nextInt(10), random.nextInt(60));
+                buffer.add(nextId++, e + 1, travel + 1, travelDate, requestDate,
+                        random.nextInt(10) == 0 ? "Richiesta generata automaticamente" : null);
+                if (buffer.isFull()) {
+                    buffer.flush();
+                }
+            }
+        }
+        buffer.flush();
+        return nextId - 1;
+    }
+
+    private void updateSeatsTaken(DataGeneratorSettings settings, int[] seatsTaken) {
+        // Un update per viaggio in batch, invece di un count correlato su tutta la tabella bookings
+        inBatches("update travels set seats_taken = ? where id = ?", seatsTaken.length, settings.batchSize(),
+                (ps, i) -> {
+                    ps.setInt(1, seatsTaken[i]);
+                    ps.setLong(2, i + 1);
+                });
+    }
+
+    private void restartSequence(String sequence, long maxId) {
+        // Hibernate (pooled, allocationSize 50) usa i 50 id che precedono il valore letto:
+        // ripartire da maxId + 51 garantisce che il primo blocco sia tutto oltre maxId
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + 51));
+    }
+
+    private void inBatches(String sql, int rows, int batchSize, RowWriter writer) {
+        for (int from = 0; from < rows; from += batchSize) {
+            int offset = from;
+            int size = Math.min(batchSize, rows - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos == 0 ? rows : rows * 1_000_000_000L / nanos;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, int row) throws SQLException;
+    }
+
+    // Buffer a colonne per le prenotazioni: un batch alla volta in memoria, mai tutto il dataset
+    private final class BookingBuffer {
+        private final long[] ids;
+        private final long[] employeeIds;
+        private final long[] travelIds;
+        private final LocalDate[] travelDates;
+        private final LocalDateTime[] requestDates;
+        private final String[] notes;
+        private int size;
+
+        BookingBuffer(int capacity) {
+            ids = new long[capacity];
+            employeeIds = new long[capacity];
+            travelIds = new long[capacity];
+            travelDates = new LocalDate[capacity];
+            requestDates = new LocalDateTime[capacity];
+            notes = new String[capacity];
+        }
+
+        void add(long id, long employeeId, long travelId, LocalDate travelDate, LocalDateTime requestDate, String note) {
+            ids[size] = id;
+            employeeIds[size] = employeeId;
+            travelIds[size] = travelId;
+            travelDates[size] = travelDate;
+            requestDates[size] = requestDate;
+            notes[size] = note;
+            size++;
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        void flush() {
+            if (size == 0) {
+                return;
+            }
+            jdbcTemplate.batchUpdate("""
+                    insert into bookings (id, employee_id, travel_id, travel_date, request_date, notes,
+                                          version, updated_at)
+                    values (?, ?, ?, ?, ?, ?, 0, ?)
+                    """, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, ids[i]);
+                    ps.setLong(2, employeeIds[i]);
+                    ps.setLong(3, travelIds[i]);
+                    ps.setDate(4, Date.valueOf(travelDates[i]));
+                    ps.setTimestamp(5, Timestamp.valueOf(requestDates[i]));
+                    if (notes[i] == null) {
+                        ps.setNull(6, Types.VARCHAR);
+                    } else {
+                        ps.setString(6, notes[i]);
+                    }
+                    ps.setTimestamp(7, Timestamp.valueOf(requestDates[i]));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+            size = 0;
+        }
+    }
+
+    public record Report(long employees, long travels, long bookings, long elapsedMillis) {
+
+        public long rowsPerSecond() {
+            return DataGenerator.rowsPerSecond(employees + travels + bookings, elapsedMillis * 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package it.epicode.gestioneviaggiaziendali.seed;
+
+public record DataGeneratorSettings(
+        int employees,
+        int travels,
+        int bookings,
+        // Le date dei viaggi coprono questi anni (fino a ~6 mesi nel futuro)
+        int years,
+        // Quota di employee "heavy booker" e quota delle prenotazioni che fanno loro
+        double heavyBookerShare,
+        double heavyBookingShare,
+        int batchSize,
+        // Stesso seme = stesso dataset (utile per confrontare misure tra run diversi)
+        long randomSeed
+) {
+
+    public DataGeneratorSettings {
+        if (employees < DataGenerator.NAMED_EMPLOYEES || travels < 1 || bookings < 0 || years < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Parametri del generatore non validi");
+        }
+    }
+}
@@ -1,16 +1,10 @@
 package it.epicode.gestioneviaggiaziendali.seed;
 
-import it.epicode.gestioneviaggiaziendali.entity.Booking;
-import it.epicode.gestioneviaggiaziendali.entity.Employee;
-import it.epicode.gestioneviaggiaziendali.entity.Role;
-import it.epicode.gestioneviaggiaziendali.entity.Travel;
-import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
-import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
 import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
-import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,65 +15,40 @@ import org.springframework.stereotype.Component;
 public class DatabaseSeeder implements CommandLineRunner {
 
     private final EmployeeRepository employeeRepository;
-    private final TravelRepository travelRepository;
-    private final BookingRepository bookingRepository;
     private final PasswordEncoder passwordEncoder;
+    private final DataGenerator dataGenerator;
+    private final DataGeneratorSettings settings;
+    private final EntityManagerFactory entityManagerFactory;
 
     public DatabaseSeeder(EmployeeRepository employeeRepository,
-                          TravelRepository travelRepository,
-                          BookingRepository bookingRepository,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          DataSource dataSource,
+                          EntityManagerFactory entityManagerFactory,
+                          @Value("${app.seed.employees:20}") int employees,
+                          @Value("${app.seed.travels:50}") int travels,
+                          @Value("${app.seed.bookings:200}") int bookings,
+                          @Value("${app.seed.years:3}") int years,
+                          @Value("${app.seed.heavy-booker-share:0.01}") double heavyBookerShare,
+                          @Value("${app.seed.heavy-booking-share:0.3}") double heavyBookingShare,
+                          @Value("${app.seed.batch-size:1000}") int batchSize,
+                          @Value("${app.seed.random-seed:42}") long randomSeed) {
         this.employeeRepository = employeeRepository;
-        this.travelRepository = travelRepository;
-        this.bookingRepository = bookingRepository;
         this.passwordEncoder = passwordEncoder;
+        this.dataGenerator = new DataGenerator(dataSource);
+        this.entityManagerFactory = entityManagerFactory;
+        this.settings = new DataGeneratorSettings(employees, travels, bookings, years,
+                heavyBookerShare, heavyBookingShare, batchSize, randomSeed);
     }
 
     @Override
     public void run(String... args) {
-        if (employeeRepository.count() > 0 || travelRepository.count() > 0 || bookingRepository.count() > 0) {
+        if (employeeRepository.count() > 0) {
             return;
         }
-
-        String encodedPwd = passwordEncoder.encode("Password1");
-        Employee e1 = new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", encodedPwd);
-        Employee e2 = new Employee("lbianchi", "Luca", "Bianchi", "l.bianchi@example.com", encodedPwd);
-        Employee e3 = new Employee("gverdi", "Giulia", "Verdi", "g.verdi@example.com", encodedPwd);
-        // Rendo uno degli utenti admin per testare le autorizzazioni
-        e1.setRole(Role.ADMIN);
-        employeeRepository.saveAll(List.of(e1, e2, e3));
-
-        Travel t1 = new Travel();
-        t1.setDestination("Milano");
-        t1.setTravelDate(LocalDate.now().plusDays(5));
-
-        Travel t2 = new Travel();
-        t2.setDestination("Roma");
-        t2.setTravelDate(LocalDate.now().plusDays(10));
-        t2.setStatus(TravelStatus.COMPLETATO);
-
-        Travel t3 = new Travel();
-        t3.setDestination("Torino");
-        t3.setTravelDate(LocalDate.now().plusDays(15));
-
-        travelRepository.saveAll(List.of(t1, t2, t3));
-
-        Booking b1 = new Booking();
-        b1.setEmployee(e1);
-        b1.setTravel(t1);
-        b1.setRequestDate(LocalDateTime.now().minusDays(1));
-        b1.setNotes("Finestrino se possibile");
-
-        Booking b2 = new Booking();
-        b2.setEmployee(e2);
-        b2.setTravel(t1);
-        b2.setRequestDate(LocalDateTime.now().minusHours(6));
-
-        Booking b3 = new Booking();
-        b3.setEmployee(e1);
-        b3.setTravel(t3);
-        b3.setRequestDate(LocalDateTime.now().minusHours(2));
-
-        bookingRepository.saveAll(List.of(b1, b2, b3));
+        // Tutti gli employee generati hanno la password "Password1" (mrossi, lbianchi, gverdi compresi)
+        dataGenerator.generate(settings, passwordEncoder.encode("Password1"));
+        // Insert via JDBC, all'insaputa di Hibernate: la cache di secondo livello (e la query cache,
+        // che ha appena visto la tabella employees vuota) va svuotata
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
     }
 }
@@ -4,7 +4,8 @@ import it.epicode.gestioneviaggiaziendali.dto.request.LoginRequest;
 import it.epicode.gestioneviaggiaziendali.entity.Employee;
 import it.epicode.gestioneviaggiaziendali.exception.UnauthorizedException;
 import it.epicode.gestioneviaggiaziendali.security.JwtTools;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import it.epicode.gestioneviaggiaziendali.security.PasswordHashingService;
+import java.util.Optional;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -12,31 +13,36 @@ public class AuthService {
 
     private final EmployeeService employeeService;
     private final JwtTools jwtTools;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
-    public AuthService(EmployeeService employeeService, JwtTools jwtTools, PasswordEncoder passwordEncoder) {
+    public AuthService(EmployeeService employeeService, JwtTools jwtTools, PasswordHashingService passwordHashingService) {
         this.employeeService = employeeService;
         this.jwtTools = jwtTools;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
     }
 
     public String checkCredentialsAndGenerateToken(LoginRequest body) {
         // ===== LOGICA PASSO-PASSO (numerata) =====
         // 1) Recupero l'utente (Employee) dal database in base all'email fornita.
-        //    - Se non esiste, EmployeeService lancia NotFoundException -> verra gestita a livello globale.
-        Employee found = this.employeeService.findByEmail(body.email());
+        //    - Se non esiste eseguo comunque un BCrypt "finto" sul pool dedicato e rispondo 401
+        //      come per una password errata: stessi tempi, stessa risposta, e una raffica di
+        //      email inventate passa comunque dal limite del pool (niente scorciatoie).
+        Optional<Employee> found = this.employeeService.findOptionalByEmail(body.email());
+        if (found.isEmpty()) {
+            passwordHashingService.matchDummy(body.password());
+            throw new UnauthorizedException("Credenziali errate");
+        }
 
-        // 2) Verifico la password.
-        //    - In questo progetto (didattico) la password e in chiaro.
-        //    - In un progetto reale si usa sempre hashing (es. BCrypt).
-        if (!passwordEncoder.matches(body.password(), found.getPassword())) {
+        // 2) Verifico la password (hash BCrypt) sul pool dedicato, non sul thread di Tomcat.
+        //    - Se il pool e saturo viene lanciata TooManyRequestsException -> 429 + Retry-After.
+        if (!passwordHashingService.matches(body.password(), found.get().getPassword())) {
             // 2.1) Se la password non coincide, rifiuto con 401 Unauthorized.
             throw new UnauthorizedException("Credenziali errate");
         }
 
         // 3) Se credenziali OK, genero il JWT.
-        //    - Dentro il token mettiamo solo informazioni non sensibili (id, username, email).
-        String accessToken = jwtTools.generateToken(found);
+        //    - Dentro il token mettiamo solo informazioni non sensibili (id, username, email, ruolo).
+        String accessToken = jwtTools.generateToken(found.get());
 
         // 4) Ritorno il token al controller, che lo invia al client.
         return accessToken;
@@ -0,0 +1,250 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AvatarImageProcessor {
+
+    // ===== ELABORAZIONE AVATAR =====
+    // LOGICA PASSO-PASSO:
+    // 1) Decodifica con ImageIO ignorando i metadati (EXIF, GPS, profili): non vengono nemmeno letti.
+    //    Unica eccezione l'orientamento EXIF (tag 0x0112, letto dall'header a parte): i telefoni salvano
+    //    le foto verticali "coricate" con il tag che dice come girarle, quindi la rotazione va applicata
+    //    ai pixel prima di scartare i metadati, altrimenti l'avatar esce ruotato
+    // 2) Rifiuta immagini troppo grandi PRIMA di decodificarle (dimensioni lette dall'header)
+    // 3) Ritaglio quadrato centrale, poi ridimensionamento a dimezzamenti successivi (512 -> 128 -> 64)
+    // 4) Ogni versione e un JPEG ricodificato da zero (quindi senza metadati)
+    // JPEG e il formato compatto che il JDK sa scrivere senza librerie native (WebP/AVIF no);
+    // su Cloudinary la consegna puo comunque convertire al volo (f_auto).
+
+    public static final List<Integer> SIZES = List.of(512, 128, 64);
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private final long maxPixels;
+    private final float jpegQuality;
+
+    public AvatarImageProcessor(@Value("${app.avatar.max-pixels:40000000}") long maxPixels,
+                                @Value("${app.avatar.jpeg-quality:0.85}") float jpegQuality) {
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    // SHA-256 del file letto in streaming: e la chiave di deduplica
+    public static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Restituisce lato in pixel -> file JPEG creato in workDirectory (il chiamante lo cancella)
+    public Map<Integer, Path> process(Path source, Path workDirectory) throws IOException {
+        BufferedImage square = cropToSquare(orient(decode(source), exifOrientation(source)));
+        Map<Integer, Path> result = new LinkedHashMap<>();
+        BufferedImage current = square;
+        for (int size : SIZES) {
+            // Mai ingrandire: un originale piccolo resta alla sua risoluzione
+            current = resize(current, Math.min(size, square.getWidth()));
+            Path target = workDirectory.resolve(size + ".jpg");
+            writeJpeg(current, target);
+            result.put(size, target);
+        }
+        return result;
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw invalid("Il file non e un'immagine supportata (PNG, JPEG, GIF, BMP)");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true); // seekForwardOnly, ignoreMetadata
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw invalid("Immagine troppo grande: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return reader.read(0);
+            } catch (IOException | RuntimeException ex) {
+                if (ex instanceof ValidationException validation) {
+                    throw validation;
+                }
+                throw invalid("Immagine non leggibile");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Orientamento EXIF di un JPEG (1 = gia dritta, 2-8 = specchiata e/o ruotata). Scorre solo i segmenti
+    // dell'header fino all'APP1 "Exif": i dati dell'immagine non vengono letti
+    static int exifOrientation(Path source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1; // non e un JPEG
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1; // inizio dei dati compressi: nessun EXIF
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1; // header malformato: lo decide poi il decoder
+                }
+                if (marker == 0xFFE1) {
+                    int orientation = orientationTag(in.readNBytes(length));
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        } catch (EOFException ex) {
+            return 1;
+        }
+    }
+
+    // 0 = segmento APP1 che non e EXIF (es. XMP); EXIF malformato o senza tag = 1
+    private static int orientationTag(byte[] segment) {
+        if (segment.length < 14 || !new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+            return 0;
+        }
+        try {
+            // Header TIFF: byte order ("II" little endian, "MM" big endian), poi offset del primo IFD
+            ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+            tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int ifd = tiff.getInt(4);
+            int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if (Short.toUnsignedInt(tiff.getShort(entry)) == 0x0112) {
+                    int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                    return orientation >= 1 && orientation <= 8 ? orientation : 1;
+                }
+            }
+        } catch (IndexOutOfBoundsException ex) {
+            // Offset fuori dal segmento: EXIF corrotto, l'immagine resta com'e
+        }
+        return 1;
+    }
+
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // Trasformazione da coordinate salvate a coordinate di visualizzazione (specifica EXIF 2.3)
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // specchiata in orizzontale
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // ruotata di 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // specchiata in verticale
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // trasposta
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // da ruotare di 90 in senso orario
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // trasversa
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);  // 8: da ruotare di 90 in senso antiorario
+        };
+        boolean swap = orientation >= 5;
+        BufferedImage target = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        return image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+    }
+
+    private static BufferedImage resize(BufferedImage image, int target) {
+        // Dimezzamenti successivi con interpolazione bilineare: qualita vicina al bicubico
+        // a una frazione del costo, senza l'aliasing di un unico salto da 4000 a 64 px
+        BufferedImage current = image;
+        int side = image.getWidth();
+        while (side > target) {
+            side = Math.max(target, side / 2);
+            current = draw(current, side);
+        }
+        // Nessun ridimensionamento (originale piccolo): ridisegno comunque per togliere l'alpha
+        return current.getType() == BufferedImage.TYPE_INT_RGB ? current : draw(current, side);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int side) {
+        // TYPE_INT_RGB + sfondo bianco: la trasparenza (PNG/GIF) viene appiattita, JPEG non ha alpha
+        BufferedImage target = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, side, side);
+            graphics.drawImage(source, 0, 0, side, side, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static ValidationException invalid(String message) {
+        return new ValidationException(List.of(message));
+    }
+}
@@ -0,0 +1,210 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarUploadJobResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarUploadStatus;
+import it.epicode.gestioneviaggiaziendali.entity.AvatarImage;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.exception.TooManyRequestsException;
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import it.epicode.gestioneviaggiaziendali.repository.AvatarImageRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.storage.AvatarStorage;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+@Service
+public class AvatarUploadService {
+
+    // ===== UPLOAD AVATAR ASINCRONO =====
+    // LOGICA PASSO-PASSO:
+    // 1) La richiesta salva il file nella cartella di spool (transferTo: da file temporaneo a file,
+    //    niente byte[] in memoria) e registra un job PENDING -> il controller risponde 202 + jobId
+    // 2) Un worker del pool prende il job e calcola lo SHA-256 del file:
+    //    - hash gia visto (avatar_images): riusa gli URL, niente elaborazione ne upload
+    //    - hash nuovo: AvatarImageProcessor crea le versioni 512/128/64, che vanno sullo storage
+    //    poi chiama EmployeeService.updateAvatar
+    // 3) Il client segue lo stato con GET /api/employees/avatar-jobs/{jobId}
+    // Pool e coda sono limitati: a coda piena rispondiamo 429, come per BCrypt.
+    // I job vivono in memoria (per istanza) e vengono eliminati job-ttl dopo la fine.
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarUploadService.class);
+
+    private final AvatarStorage avatarStorage;
+    private final AvatarImageProcessor avatarImageProcessor;
+    private final AvatarImageRepository avatarImageRepository;
+    private final EmployeeService employeeService;
+    private final Path spoolDirectory;
+    private final Duration jobTtl;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, AvatarUploadJobResponse> jobs = new ConcurrentHashMap<>();
+
+    public AvatarUploadService(AvatarStorage avatarStorage,
+                               AvatarImageProcessor avatarImageProcessor,
+                               AvatarImageRepository avatarImageRepository,
+                               EmployeeService employeeService,
+                               @Value("${app.avatar.upload.spool-dir:${java.io.tmpdir}/avatar-uploads}") Path spoolDirectory,
+                               @Value("${app.avatar.upload.workers:4}") int workers,
+                               @Value("${app.avatar.upload.queue-capacity:100}") int queueCapacity,
+                               @Value("${app.avatar.upload.job-ttl-seconds:3600}") long jobTtlSeconds,
+                               @Value("${app.avatar.upload.retry-after-seconds:5}") long retryAfterSeconds,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.avatarStorage = avatarStorage;
+        this.avatarImageProcessor = avatarImageProcessor;
+        this.avatarImageRepository = avatarImageRepository;
+        this.employeeService = employeeService;
+        this.spoolDirectory = spoolDirectory.toAbsolutePath().normalize();
+        this.jobTtl = Duration.ofSeconds(jobTtlSeconds);
+        this.retryAfterSeconds = retryAfterSeconds;
+        try {
+            Files.createDirectories(this.spoolDirectory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        // Upload e I/O di rete: con i virtual thread attivi anche i worker lo sono.
+        // Il numero di worker resta comunque fisso: limita gli upload paralleli verso lo storage
+        // e le immagini decodificate in memoria nello stesso momento.
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("avatar-upload-", 1).factory()
+                : Thread.ofPlatform().name("avatar-upload-", 1).daemon(true).factory();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    public AvatarUploadJobResponse submit(Long employeeId, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new ConflictException("File avatar mancante");
+        }
+        // 404 subito se l'employee non esiste, invece di un job che fallisce dopo
+        employeeService.findEntityById(employeeId);
+
+        String jobId = UUID.randomUUID().toString();
+        Path spooled = spoolDirectory.resolve(jobId + ".upload");
+        try {
+            file.transferTo(spooled);
+        } catch (IOException ex) {
+            throw new ConflictException("Errore durante l'upload dell'immagine");
+        }
+
+        Instant now = Instant.now();
+        AvatarUploadJobResponse job = new AvatarUploadJobResponse(
+                jobId, employeeId, AvatarUploadStatus.PENDING, null, null, null, false, now, now);
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> process(job, spooled));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(jobId);
+            deleteQuietly(spooled);
+            throw new TooManyRequestsException("Troppi upload avatar in corso, riprova tra poco", retryAfterSeconds);
+        }
+        return job;
+    }
+
+    public AvatarUploadJobResponse findJob(String jobId, EmployeePrincipal currentEmployee) {
+        // Anti-IDOR: un USER vede solo i propri job (un job altrui risponde 404 come se non esistesse)
+        AvatarUploadJobResponse job = jobs.get(jobId);
+        if (job == null || (currentEmployee.role() != Role.ADMIN && !job.employeeId().equals(currentEmployee.id()))) {
+            throw new NotFoundException("Upload avatar con id " + jobId + " non trovato");
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${app.avatar.upload.cleanup-ms:60000}")
+    public void purgeFinishedJobs() {
+        Instant threshold = Instant.now().minus(jobTtl);
+        jobs.values().removeIf(job -> (job.status() == AvatarUploadStatus.COMPLETED
+                || job.status() == AvatarUploadStatus.FAILED) && job.updatedAt().isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void process(AvatarUploadJobResponse job, Path spooled) {
+        update(job, AvatarUploadStatus.PROCESSING, null, null, false);
+        try {
+            String hash = AvatarImageProcessor.sha256(spooled);
+            AvatarImage existing = avatarImageRepository.findById(hash).orElse(null);
+            AvatarImage image = existing != null ? existing : processAndStore(hash, spooled, job.jobId());
+            employeeService.updateAvatar(job.employeeId(), image);
+            update(job, AvatarUploadStatus.COMPLETED, image, null, existing != null);
+        } catch (ValidationException ex) {
+            update(job, AvatarUploadStatus.FAILED, null, String.join("; ", ex.getErrors()), false);
+        } catch (Exception ex) {
+            log.warn("Upload avatar {} per employee {} fallito", job.jobId(), job.employeeId(), ex);
+            update(job, AvatarUploadStatus.FAILED, null, "Errore durante l'upload dell'immagine", false);
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    private AvatarImage processAndStore(String hash, Path spooled, String jobId) throws IOException {
+        Path workDirectory = Files.createDirectories(spoolDirectory.resolve(jobId));
+        try {
+            Map<Integer, Path> versions = avatarImageProcessor.process(spooled, workDirectory);
+            // Chiave = hash del contenuto: stesso file -> stessa chiave, file diverso -> URL nuovo
+            // (nessun problema di cache CDN con l'immagine vecchia)
+            Map<Integer, String> urls = new HashMap<>();
+            for (Map.Entry<Integer, Path> version : versions.entrySet()) {
+                urls.put(version.getKey(), avatarStorage.store(hash + "/" + version.getKey(),
+                        version.getValue(), AvatarImageProcessor.CONTENT_TYPE));
+            }
+            try {
+                return avatarImageRepository.save(new AvatarImage(hash, urls.get(64), urls.get(128), urls.get(512)));
+            } catch (DataIntegrityViolationException ex) {
+                // Stesso file caricato in parallelo da un altro job: vince il primo, gli URL coincidono
+                return avatarImageRepository.findById(hash).orElseThrow(() -> ex);
+            }
+        } finally {
+            try (var files = Files.list(workDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(AvatarUploadService::deleteQuietly);
+            }
+            deleteQuietly(workDirectory);
+        }
+    }
+
+    private void update(AvatarUploadJobResponse job, AvatarUploadStatus status,
+                        AvatarImage image, String error, boolean deduplicated) {
+        jobs.put(job.jobId(), new AvatarUploadJobResponse(job.jobId(), job.employeeId(), status,
+                image == null ? null : image.getUrl512(), image == null ? null : image.getContentHash(),
+                error, deduplicated, job.createdAt(), Instant.now()));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Impossibile eliminare il file di spool {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingArchiveResponse;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingArchiveRepository;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class BookingArchiveService {
+
+    // ===== ARCHIVIAZIONE DELLE PRENOTAZIONI (tabella calda / fredda) =====
+    // LOGICA PASSO-PASSO:
+    // 1) Blocco successivo: id delle prime batch-size prenotazioni di viaggi COMPLETATO con data
+    //    precedente all'orizzonte (oggi - horizon-days), letti per range su travel_date.
+    //    FOR UPDATE SKIP LOCKED: run sovrapposti (cron e POST, piu nodi) si dividono le righe
+    //    invece di copiare due volte lo stesso blocco
+    // 2) In una transazione breve per blocco: INSERT ... SELECT in booking_archive e DELETE da bookings
+    //    degli stessi id. Lock solo su quelle righe, la tabella resta utilizzabile
+    // 3) Le righe spostate escono da bookings: si ripete finche il blocco non torna vuoto
+    // 4) Copia e delete devono toccare le stesse righe, altrimenti il blocco va in rollback e il run
+    //    termina con ConflictException (409): i blocchi gia committati restano archiviati
+    // I contatori dei posti (travels.seats_taken) non cambiano: le prenotazioni archiviate restano valide.
+    // Niente TravelDataChangedEvent: i report mensili leggono lo storico completo, il contenuto e lo stesso.
+
+    private static final Logger log = LoggerFactory.getLogger(BookingArchiveService.class);
+
+    private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final TransactionTemplate transaction;
+    private final int horizonDays;
+    private final int batchSize;
+
+    public BookingArchiveService(BookingRepository bookingRepository,
+                                 BookingArchiveRepository bookingArchiveRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.bookings.archive.horizon-days:365}") int horizonDays,
+                                 @Value("${app.bookings.archive.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.horizonDays = Math.max(1, horizonDays);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(cron = "${app.bookings.archive.cron:0 30 0 * * *}")
+    public BookingArchiveResponse archiveCompleted() {
+        return archiveCompletedBefore(LocalDate.now().minusDays(horizonDays));
+    }
+
+    public BookingArchiveResponse archiveCompletedBefore(LocalDate before) {
+        long start = System.nanoTime();
+        long archived = 0;
+        int batches = 0;
+        while (true) {
+            Integer moved = transaction.execute(status -> {
+                List<Long> ids = bookingRepository.findIdsToArchive(before, TravelStatus.COMPLETATO, Limit.of(batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int copied = bookingArchiveRepository.copyFromBookings(ids, Instant.now());
+                int deleted = bookingRepository.deleteByIds(ids);
+                if (copied != deleted) {
+                    // Una riga cambiata tra la copia e la delete: rollback del SOLO blocco corrente (i blocchi
+                    // precedenti restano archiviati) e il run si ferma con 409. Non si passa al blocco dopo:
+                    // la query rileggerebbe gli stessi id. Riprende il prossimo run schedulato o una nuova POST.
+                    throw new ConflictException("Archiviazione interrotta: " + copied + " prenotazioni copiate, "
+                            + deleted + " eliminate. Dati modificati durante lo spostamento, riprovare");
+                }
+                return deleted;
+            });
+            if (moved == 0) {
+                break;
+            }
+            archived += moved;
+            batches++;
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Prenotazioni precedenti al {} archiviate: {} righe in {} blocchi, {} ms",
+                before, archived, batches, elapsedMillis);
+        return new BookingArchiveResponse(before, archived, batches, elapsedMillis);
+    }
+}
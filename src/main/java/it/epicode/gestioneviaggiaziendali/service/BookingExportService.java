@@ -0,0 +1,215 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.epicode.gestioneviaggiaziendali.dto.request.BookingExportFormat;
+import it.epicode.gestioneviaggiaziendali.entity.BookingHistory;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class BookingExportService {
+
+    // ===== EXPORT IN STREAMING =====
+    // Le prenotazioni NON vengono mai caricate tutte in memoria:
+    // 1) JDBC con cursore forward-only e fetch size configurata (il driver legge a blocchi);
+    // 2) ogni riga viene scritta subito sull'OutputStream della risposta (NDJSON o CSV);
+    // 3) nessuna entity JPA, nessuna lista: l'heap usato non dipende dal numero di righe.
+    //
+    // Nota PostgreSQL: il driver usa davvero il cursore (fetch size) solo con autocommit
+    // disattivato, per questo la query gira dentro una transazione read-only.
+
+    private static final String SELECT = """
+            select b.id, b.request_date, b.notes,
+                   e.id as employee_id, e.username,
+                   t.id as travel_id, t.destination, t.travel_date, t.status
+            """;
+    private static final String JOINS = """
+            join employees e on e.id = b.employee_id
+            join travels t on t.id = b.travel_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public BookingExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public long export(BookingExportFormat format,
+                       LocalDate from,
+                       LocalDate to,
+                       TravelStatus status,
+                       boolean includeArchived,
+                       OutputStream out) {
+        // ===== LOGICA PASSO-PASSO (numerata) =====
+        // 1) Costruisco la WHERE solo con i filtri presenti (range di date del viaggio, stato).
+        // 2) Apro la transazione read-only ed eseguo la query con cursore.
+        // 3) Ogni riga letta viene scritta subito sul writer del formato richiesto.
+        // 4) Ritorno il numero di righe esportate.
+        // Con includeArchived le righe arrivano da bookings + booking_archive (stessa union di BookingHistory)
+        StringBuilder sql = new StringBuilder(SELECT)
+                .append(includeArchived ? "from (" + BookingHistory.SQL + ") b\n" : "from bookings b\n")
+                .append(JOINS);
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("t.travel_date >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            conditions.add("t.travel_date <= ?");
+            params.add(to);
+        }
+        if (status != null) {
+            conditions.add("t.status = ?");
+            params.add(status.name());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append("where ").append(String.join(" and ", conditions)).append('\n');
+        }
+        sql.append("order by b.id");
+
+        try (RowWriter writer = format == BookingExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+            Long rows = readOnlyTransaction.execute(tx -> {
+                long[] count = {0};
+                jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+                    writer.write(rs);
+                    count[0]++;
+                }, params.toArray());
+                return count[0];
+            });
+            return rows == null ? 0 : rows;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void write(ResultSet rs) throws SQLException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException {
+            try {
+                // Stessa forma di BookingResponse, piu lo stato del viaggio
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                generator.writeStringField("requestDate", String.valueOf(rs.getObject("request_date", LocalDateTime.class)));
+                generator.writeStringField("notes", rs.getString("notes"));
+                generator.writeObjectFieldStart("employee");
+                generator.writeNumberField("id", rs.getLong("employee_id"));
+                generator.writeStringField("username", rs.getString("username"));
+                generator.writeEndObject();
+                generator.writeObjectFieldStart("travel");
+                generator.writeNumberField("id", rs.getLong("travel_id"));
+                generator.writeStringField("destination", rs.getString("destination"));
+                generator.writeStringField("travelDate", String.valueOf(rs.getObject("travel_date", LocalDate.class)));
+                generator.writeStringField("status", rs.getString("status"));
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            this.writer.write("id,request_date,notes,employee_id,employee_username,travel_id,destination,travel_date,status\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException {
+            try {
+                writer.write(Long.toString(rs.getLong("id")));
+                writer.write(',');
+                writer.write(String.valueOf(rs.getObject("request_date", LocalDateTime.class)));
+                writer.write(',');
+                writeEscaped(rs.getString("notes"));
+                writer.write(',');
+                writer.write(Long.toString(rs.getLong("employee_id")));
+                writer.write(',');
+                writeEscaped(rs.getString("username"));
+                writer.write(',');
+                writer.write(Long.toString(rs.getLong("travel_id")));
+                writer.write(',');
+                writeEscaped(rs.getString("destination"));
+                writer.write(',');
+                writer.write(String.valueOf(rs.getObject("travel_date", LocalDate.class)));
+                writer.write(',');
+                writer.write(rs.getString("status"));
+                writer.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            // RFC 4180: campi con virgole, virgolette o a capo vanno tra virgolette (e le " raddoppiate)
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flush senza chiudere lo stream della risposta (lo chiude il container)
+            writer.flush();
+        }
+    }
+}
@@ -2,72 +2,169 @@ package it.epicode.gestioneviaggiaziendali.service;
 
 import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
 import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingItemResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingOutcome;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
 import it.epicode.gestioneviaggiaziendali.dto.response.EmployeeSummary;
 import it.epicode.gestioneviaggiaziendali.dto.response.TravelSummary;
 import it.epicode.gestioneviaggiaziendali.entity.Booking;
+import it.epicode.gestioneviaggiaziendali.entity.BookingArchive;
 import it.epicode.gestioneviaggiaziendali.entity.Employee;
-import it.epicode.gestioneviaggiaziendali.entity.Role;
 import it.epicode.gestioneviaggiaziendali.entity.Travel;
 import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
 import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.exception.SoldOutException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingArchiveRepository;
+import it.epicode.gestioneviaggiaziendali.repository.BookingHistoryRepository;
 import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeDay;
 import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
 import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class BookingService {
 
     private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
     private final EmployeeRepository employeeRepository;
     private final TravelRepository travelRepository;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher events;
 
     public BookingService(BookingRepository bookingRepository,
+                          BookingArchiveRepository bookingArchiveRepository,
+                          BookingHistoryRepository bookingHistoryRepository,
                           EmployeeRepository employeeRepository,
-                          TravelRepository travelRepository) {
+                          TravelRepository travelRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher events) {
         this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.bookingHistoryRepository = bookingHistoryRepository;
         this.employeeRepository = employeeRepository;
         this.travelRepository = travelRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.events = events;
     }
 
-    public List<BookingResponse> findAll() {
-        return bookingRepository.findAll().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    // ===== LETTURE: SOLO CORRENTI O STORICO COMPLETO =====
+    // Di default solo la tabella bookings (piccola: le prenotazioni vecchie sono in booking_archive).
+    // Con includeArchived=true le stesse query leggono BookingHistory (bookings + booking_archive).
+
+    public Page<BookingResponse> findAll(Pageable pageable, boolean includeArchived) {
+        return includeArchived
+                ? bookingHistoryRepository.findAllResponses(pageable)
+                : bookingRepository.findAllResponses(pageable);
+    }
+
+    public CursorPage<BookingResponse> findAllAfter(String after, Integer size, boolean includeArchived) {
+        // Modalita cursore: ordinamento per id (primary key), nessun COUNT(*)
+        int pageSize = CursorCodec.normalizeSize(size);
+        Long afterId = CursorCodec.isFirstPage(after) ? 0L : CursorCodec.decodeId(after);
+        Limit limit = Limit.of(pageSize + 1);
+        List<BookingResponse> rows = includeArchived
+                ? bookingHistoryRepository.findResponsesAfter(afterId, limit)
+                : bookingRepository.findResponsesAfter(afterId, limit);
+        return CursorCodec.toPage(rows, pageSize, booking -> booking, booking -> CursorCodec.encodeId(booking.id()));
     }
 
-    public BookingResponse findById(Long id) {
-        Booking booking = bookingRepository.findById(id)
+    public BookingResponse findById(Long id, boolean includeArchived) {
+        return (includeArchived ? bookingHistoryRepository.findResponseById(id) : bookingRepository.findResponseById(id))
                 .orElseThrow(() -> new NotFoundException("Booking con id " + id + " non trovata"));
-        return toResponse(booking);
     }
 
-    public List<BookingResponse> findMine(Employee currentEmployee) {
+    public Page<BookingResponse> findMine(EmployeePrincipal currentEmployee, Pageable pageable, boolean includeArchived) {
         // Ritorna solo le prenotazioni dell'utente autenticato
-        return bookingRepository.findByEmployeeId(currentEmployee.getId()).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return includeArchived
+                ? bookingHistoryRepository.findResponsesByEmployeeId(currentEmployee.id(), pageable)
+                : bookingRepository.findResponsesByEmployeeId(currentEmployee.id(), pageable);
+    }
+
+    // Validatori per GET condizionale (vedi TravelService.versionStamp).
+    // Collezione intera: dai contatori dei viaggi, senza leggere le prenotazioni (vedi TravelRepository)
+    public VersionStamp versionStamp(boolean includeArchived) {
+        return includeArchived
+                ? travelRepository.findBookingHistoryVersionStamp()
+                : travelRepository.findBookingsVersionStamp();
+    }
+
+    public VersionStamp versionStamp(Long id, boolean includeArchived) {
+        return includeArchived
+                ? bookingHistoryRepository.findVersionStampById(id)
+                : bookingRepository.findVersionStampById(id);
+    }
+
+    public VersionStamp mineVersionStamp(EmployeePrincipal currentEmployee, boolean includeArchived) {
+        return includeArchived
+                ? bookingHistoryRepository.findVersionStampByEmployeeId(currentEmployee.id())
+                : bookingRepository.findVersionStampByEmployeeId(currentEmployee.id());
+    }
+
+    public CursorPage<BookingResponse> findMineAfter(EmployeePrincipal currentEmployee, String after, Integer size,
+                                                     boolean includeArchived) {
+        int pageSize = CursorCodec.normalizeSize(size);
+        Long afterId = CursorCodec.isFirstPage(after) ? 0L : CursorCodec.decodeId(after);
+        Limit limit = Limit.of(pageSize + 1);
+        List<BookingResponse> rows = includeArchived
+                ? bookingHistoryRepository.findResponsesByEmployeeIdAfter(currentEmployee.id(), afterId, limit)
+                : bookingRepository.findResponsesByEmployeeIdAfter(currentEmployee.id(), afterId, limit);
+        return CursorCodec.toPage(rows, pageSize, booking -> booking, booking -> CursorCodec.encodeId(booking.id()));
     }
 
-    public BookingResponse create(CreateBookingRequest request, Employee currentEmployee) {
+    public BookingResponse create(CreateBookingRequest request, EmployeePrincipal currentEmployee) {
         // ===== ANTI-IDOR =====
         // Se l'utente NON e admin, IGNORIAMO l'employeeId nel payload e usiamo l'id del principal.
         // In questo modo un utente non puo prenotare viaggi per conto di altri.
-        boolean isAdmin = currentEmployee.getRole() == Role.ADMIN;
-        Long effectiveEmployeeId = isAdmin ? request.employeeId() : currentEmployee.getId();
+        Long effectiveEmployeeId = currentEmployee.isAdmin() ? request.employeeId() : currentEmployee.id();
 
         Employee employee = employeeRepository.findById(effectiveEmployeeId)
                 .orElseThrow(() -> new NotFoundException("Employee con id " + effectiveEmployeeId + " non trovato"));
-        Travel travel = travelRepository.findById(request.travelId())
+
+        // Dal DB e non dalla cache L2: la data viene copiata nella prenotazione (vedi reserveSeats)
+        Travel travel = travelRepository.findByIdBypassingCache(request.travelId())
                 .orElseThrow(() -> new NotFoundException("Travel con id " + request.travelId() + " non trovato"));
 
-        LocalDate travelDate = travel.getTravelDate();
-        if (bookingRepository.existsByEmployeeIdAndTravel_TravelDate(employee.getId(), travelDate)) {
-            throw new ConflictException("Employee gia prenotato per il giorno " + travelDate);
+        // ===== PRENOTAZIONE + POSTO IN UNA TRANSAZIONE =====
+        // LOGICA PASSO-PASSO:
+        // 1) Inserisco la prenotazione. Nessun controllo preventivo "esiste gia?": tra il controllo e
+        //    l'insert due richieste concorrenti passerebbero entrambe. Decide il vincolo unique
+        //    (employee_id, travel_date): vince il primo insert, gli altri ricevono la violazione (409)
+        // 2) Riservo il posto con l'update condizionale (mai "leggo i posti liberi, poi scrivo"):
+        //    0 righe aggiornate = viaggio esaurito -> eccezione e rollback anche della prenotazione.
+        //    L'update richiede anche travel_date = data letta sopra: la prenotazione ne ha una copia e
+        //    il viaggio e stato letto fuori dalla transazione. Se un TravelService.update concorrente
+        //    lo ha spostato, 0 righe -> 409 e rollback, invece di una prenotazione con la data vecchia
+        // Il posto viene riservato PER ULTIMO: la riga del viaggio, contesa da tutte le prenotazioni
+        // dello stesso viaggio, resta bloccata solo tra questo update e il commit.
+        // Il vincolo unique vede solo bookings: per un giorno gia passato (archiviabile) controllo anche l'archivio
+        if (isPast(travel.getTravelDate())
+                && bookingArchiveRepository.existsByEmployeeIdAndTravelDate(employee.getId(), travel.getTravelDate())) {
+            throw new ConflictException("Employee gia prenotato per il giorno " + travel.getTravelDate());
         }
 
         Booking booking = new Booking();
@@ -76,10 +173,194 @@ public class BookingService {
         booking.setRequestDate(LocalDateTime.now());
         booking.setNotes(request.notes());
 
-        return toResponse(bookingRepository.save(booking));
+        BookingResponse created = transaction.execute(status -> {
+            BookingResponse response;
+            try {
+                response = toResponse(bookingRepository.saveAndFlush(booking));
+            } catch (DataIntegrityViolationException ex) {
+                if (isOneBookingPerDayViolation(ex)) {
+                    throw new ConflictException("Employee gia prenotato per il giorno " + travel.getTravelDate());
+                }
+                throw ex;
+            }
+            if (travelRepository.reserveSeats(travel.getId(), travel.getTravelDate(), 1, Instant.now()) == 0) {
+                throw seatsNotReserved(travel);
+            }
+            travelRepository.evictAfterCommit(List.of(travel.getId()));
+            return response;
+        });
+        events.publishEvent(new TravelDataChangedEvent(travel.getTravelDate()));
+        return created;
+    }
+
+    public BulkBookingResponse createAll(List<CreateBookingRequest> requests, EmployeePrincipal currentEmployee) {
+        // ===== CREAZIONE IN BLOCCO =====
+        // LOGICA PASSO-PASSO:
+        // 1) Employee e viaggi di TUTTI gli elementi con due query IN (invece di 2 findById per elemento).
+        // 2) Giorni gia occupati con una sola query set-based su (employee_id, travel_date).
+        // 3) Ogni elemento riceve il suo esito: NOT_FOUND, CONFLICT (anche doppioni nella stessa
+        //    richiesta), SOLD_OUT oppure CREATED.
+        // 4) Nella transazione: posti riservati con un update condizionale per viaggio (in ordine di id,
+        //    cosi due richieste in blocco concorrenti non si bloccano a vicenda), poi gli elementi
+        //    rimasti vengono inseriti con insert in batch JDBC (id presi dalla sequence pooled).
+        //    Come nella create singola l'update controlla anche la data del viaggio: se e stato
+        //    spostato dopo la lettura, rollback di tutto e 409.
+        List<Long> employeeIds = new ArrayList<>(requests.size());
+        for (CreateBookingRequest request : requests) {
+            // Anti-IDOR come nella create singola
+            employeeIds.add(currentEmployee.isAdmin() ? request.employeeId() : currentEmployee.id());
+        }
+        Map<Long, Employee> employees = new HashMap<>();
+        employeeRepository.findAllById(new HashSet<>(employeeIds)).forEach(e -> employees.put(e.getId(), e));
+        Map<Long, Travel> travels = new HashMap<>();
+        travelRepository.findAllById(requests.stream().map(CreateBookingRequest::travelId).collect(Collectors.toSet()))
+                .forEach(t -> travels.put(t.getId(), t));
+
+        Set<EmployeeDay> bookedDays = new HashSet<>();
+        if (!employees.isEmpty() && !travels.isEmpty()) {
+            Set<LocalDate> dates = travels.values().stream().map(Travel::getTravelDate).collect(Collectors.toSet());
+            bookedDays.addAll(bookingRepository.findBookedDays(employees.keySet(), dates));
+            List<LocalDate> pastDates = dates.stream().filter(BookingService::isPast).toList();
+            if (!pastDates.isEmpty()) {
+                bookedDays.addAll(bookingArchiveRepository.findBookedDays(employees.keySet(), pastDates));
+            }
+        }
+
+        BulkBookingItemResponse[] results = new BulkBookingItemResponse[requests.size()];
+        Booking[] candidates = new Booking[requests.size()];
+        // Indici degli elementi validi, raggruppati per viaggio (TreeMap: ordine di lock stabile)
+        Map<Long, List<Integer>> candidatesByTravel = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateBookingRequest request = requests.get(i);
+            Employee employee = employees.get(employeeIds.get(i));
+            Travel travel = travels.get(request.travelId());
+            if (employee == null) {
+                results[i] = rejected(i, BulkBookingOutcome.NOT_FOUND,
+                        "Employee con id " + employeeIds.get(i) + " non trovato");
+            } else if (travel == null) {
+                results[i] = rejected(i, BulkBookingOutcome.NOT_FOUND,
+                        "Travel con id " + request.travelId() + " non trovato");
+            } else if (!bookedDays.add(new EmployeeDay(employee.getId(), travel.getTravelDate()))) {
+                results[i] = rejected(i, BulkBookingOutcome.CONFLICT,
+                        "Employee gia prenotato per il giorno " + travel.getTravelDate());
+            } else {
+                Booking booking = new Booking();
+                booking.setEmployee(employee);
+                booking.setTravel(travel);
+                booking.setRequestDate(LocalDateTime.now());
+                booking.setNotes(request.notes());
+                candidates[i] = booking;
+                candidatesByTravel.computeIfAbsent(travel.getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Booking> toInsert = new ArrayList<>();
+        List<Integer> insertedIndexes = new ArrayList<>();
+        if (!candidatesByTravel.isEmpty()) {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    Instant now = Instant.now();
+                    for (Map.Entry<Long, List<Integer>> entry : candidatesByTravel.entrySet()) {
+                        List<Integer> indexes = entry.getValue();
+                        int reserved = reserveUpTo(travels.get(entry.getKey()), indexes.size(), now);
+                        for (int k = 0; k < indexes.size(); k++) {
+                            int index = indexes.get(k);
+                            if (k < reserved) {
+                                toInsert.add(candidates[index]);
+                                insertedIndexes.add(index);
+                            } else {
+                                results[index] = rejected(index, BulkBookingOutcome.SOLD_OUT,
+                                        "Viaggio " + entry.getKey() + " esaurito: nessun posto libero");
+                            }
+                        }
+                    }
+                    travelRepository.evictAfterCommit(candidatesByTravel.keySet());
+                    bookingRepository.saveAll(toInsert);
+                    bookingRepository.flush();
+                });
+            } catch (DataIntegrityViolationException ex) {
+                // Una create concorrente ha occupato un giorno dopo il controllo: il vincolo unique
+                // fa fallire l'intera transazione, quindi nessun elemento (ne posto) e stato registrato.
+                if (isOneBookingPerDayViolation(ex)) {
+                    throw new ConflictException("Prenotazioni concorrenti per gli stessi employee e giorni: riprovare");
+                }
+                throw ex;
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            events.publishEvent(new TravelDataChangedEvent(
+                    toInsert.stream().map(Booking::getTravelDate).distinct().toList()));
+        }
+        for (int j = 0; j < toInsert.size(); j++) {
+            int index = insertedIndexes.get(j);
+            results[index] = new BulkBookingItemResponse(index, BulkBookingOutcome.CREATED,
+                    toResponse(toInsert.get(j)), null);
+        }
+        return new BulkBookingResponse(toInsert.size(), requests.size() - toInsert.size(), List.of(results));
+    }
+
+    private int reserveUpTo(Travel travel, int seats, Instant now) {
+        // Caso normale: tutti i posti con un solo update. Se non bastano, uno alla volta
+        // finche il viaggio si esaurisce (al massimo posti liberi + 1 update)
+        if (travelRepository.reserveSeats(travel.getId(), travel.getTravelDate(), seats, now) == 1) {
+            return seats;
+        }
+        int reserved = 0;
+        while (reserved < seats && travelRepository.reserveSeats(travel.getId(), travel.getTravelDate(), 1, now) == 1) {
+            reserved++;
+        }
+        if (reserved < seats && travelMoved(travel)) {
+            throw travelMovedConflict(travel);
+        }
+        return reserved;
+    }
+
+    // reserveSeats ha aggiornato 0 righe: viaggio esaurito, oppure spostato dopo la lettura
+    private RuntimeException seatsNotReserved(Travel travel) {
+        return travelMoved(travel)
+                ? travelMovedConflict(travel)
+                : new SoldOutException(travel.getId(), travel.getCapacity());
+    }
+
+    private boolean travelMoved(Travel travel) {
+        return !travelRepository.findTravelDateById(travel.getId())
+                .map(travel.getTravelDate()::equals)
+                .orElse(false);
+    }
+
+    private static ConflictException travelMovedConflict(Travel travel) {
+        return new ConflictException("Il viaggio " + travel.getId()
+                + " e stato modificato durante la prenotazione: riprovare");
+    }
+
+    // Solo i viaggi passati possono avere prenotazioni in archivio (BookingArchiveService)
+    private static boolean isPast(LocalDate travelDate) {
+        return travelDate.isBefore(LocalDate.now());
+    }
+
+    private static BulkBookingItemResponse rejected(int index, BulkBookingOutcome outcome, String error) {
+        return new BulkBookingItemResponse(index, outcome, null, error);
+    }
+
+    static boolean isOneBookingPerDayViolation(DataIntegrityViolationException ex) {
+        // Il nome del vincolo arriva dal driver (maiuscolo/minuscolo a seconda del DB):
+        // lo cerco nella catena delle cause per non confondere altre violazioni (FK, not null...)
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && isOneBookingPerDayConstraint(violation.getConstraintName().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOneBookingPerDayConstraint(String constraintName) {
+        return constraintName.contains(Booking.ONE_PER_DAY_CONSTRAINT)
+                || constraintName.contains(BookingArchive.ONE_PER_DAY_CONSTRAINT);
     }
 
-    private BookingResponse toResponse(Booking booking) {
+    // Package-private: misurato anche da BookingMappingBenchmarks (JMH)
+    BookingResponse toResponse(Booking booking) {
         return new BookingResponse(
                 booking.getId(),
                 booking.getRequestDate(),
@@ -0,0 +1,100 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+public final class CursorCodec {
+
+    // ===== CURSORI OPACHI PER LA PAGINAZIONE KEYSET =====
+    // Il cursore contiene la chiave di ordinamento dell'ultima riga restituita
+    // (es. "2026-05-01:42" per travels ordinati per (travel_date, id)).
+    // Lo codifichiamo in Base64 URL-safe cosi il client non ci fa affidamento.
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 200;
+
+    private CursorCodec() {
+    }
+
+    public static String encodeId(Long id) {
+        return encode(id.toString());
+    }
+
+    public static Long decodeId(String cursor) {
+        try {
+            return Long.valueOf(decode(cursor));
+        } catch (NumberFormatException ex) {
+            throw invalid();
+        }
+    }
+
+    public static String encodeDateAndId(LocalDate date, Long id) {
+        return encode(date + ":" + id);
+    }
+
+    public static DateAndId decodeDateAndId(String cursor) {
+        String value = decode(cursor);
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            throw invalid();
+        }
+        try {
+            return new DateAndId(LocalDate.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw invalid();
+        }
+    }
+
+    public static boolean isFirstPage(String cursor) {
+        // ?after= (vuoto) = prima pagina in modalita cursore
+        return cursor == null || cursor.isBlank();
+    }
+
+    public static int normalizeSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public static <E, R> CursorPage<R> toPage(List<E> rowsPlusOne,
+                                              int size,
+                                              Function<E, R> mapper,
+                                              Function<E, String> cursorOf) {
+        // Le query chiedono size+1 righe: se arriva la riga in piu esiste una pagina successiva
+        boolean hasNext = rowsPlusOne.size() > size;
+        List<E> rows = hasNext ? rowsPlusOne.subList(0, size) : rowsPlusOne;
+        List<R> content = new ArrayList<>(rows.size());
+        for (E row : rows) {
+            content.add(mapper.apply(row));
+        }
+        String nextCursor = hasNext ? cursorOf.apply(rows.get(rows.size() - 1)) : null;
+        return new CursorPage<>(content, size, nextCursor);
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw invalid();
+        }
+    }
+
+    private static ValidationException invalid() {
+        return new ValidationException(List.of("Cursore di paginazione non valido"));
+    }
+
+    public record DateAndId(LocalDate date, Long id) {
+    }
+}
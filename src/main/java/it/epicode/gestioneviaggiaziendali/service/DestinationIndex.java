@@ -0,0 +1,93 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationSuggestionResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.repository.DestinationCount;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DestinationIndex {
+
+    // ===== INDICE IN MEMORIA DELLE DESTINAZIONI (autocomplete) =====
+    // Mappa ordinata: destinazione normalizzata -> (destinazione da mostrare, numero di viaggi).
+    // Le destinazioni distinte sono poche rispetto ai viaggi, quindi l'indice e piccolo;
+    // un prefisso diventa un subMap() sulla skip list: O(log n + risultati), senza DB.
+    //
+    // - create/update/delete su questo nodo aggiornano l'indice subito (add/remove);
+    // - il refresh periodico lo ricostruisce dal DB (modifiche di altri nodi, correzioni).
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationIndex.class);
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private final TravelRepository travelRepository;
+    private volatile ConcurrentSkipListMap<String, DestinationSuggestionResponse> entries =
+            new ConcurrentSkipListMap<>();
+
+    public DestinationIndex(TravelRepository travelRepository) {
+        this.travelRepository = travelRepository;
+    }
+
+    public List<DestinationSuggestionResponse> suggest(String prefix, Integer limit) {
+        int max = limit == null || limit < 1 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        String from = Travel.normalizeDestination(prefix == null ? "" : prefix);
+
+        // Tutte le chiavi che iniziano con "from" stanno in [from, from + Character.MAX_VALUE)
+        NavigableMap<String, DestinationSuggestionResponse> matches =
+                entries.subMap(from, true, from + Character.MAX_VALUE, false);
+        List<DestinationSuggestionResponse> result = new ArrayList<>(Math.min(max, 16));
+        for (DestinationSuggestionResponse suggestion : matches.values()) {
+            if (result.size() == max) {
+                break;
+            }
+            result.add(suggestion);
+        }
+        return result;
+    }
+
+    public void add(String destination) {
+        entries.merge(Travel.normalizeDestination(destination),
+                new DestinationSuggestionResponse(destination, 1),
+                (current, added) -> new DestinationSuggestionResponse(current.destination(), current.travels() + 1));
+    }
+
+    public void remove(String destination) {
+        // computeIfPresent che restituisce null rimuove la chiave quando non restano viaggi
+        entries.computeIfPresent(Travel.normalizeDestination(destination), (key, current) ->
+                current.travels() <= 1 ? null
+                        : new DestinationSuggestionResponse(current.destination(), current.travels() - 1));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.travel.destination-index.refresh-ms:60000}")
+    public void rebuild() {
+        // LOGICA PASSO-PASSO:
+        // 1) Una sola GROUP BY sul DB (una riga per destinazione distinta).
+        // 2) Costruisco una mappa nuova e la pubblico con un solo assegnamento volatile:
+        //    chi legge vede sempre o la vecchia o la nuova, mai una mappa a meta.
+        // 3) Un add/remove concorrente alla ricostruzione puo finire sulla mappa vecchia:
+        //    lo recupera il giro successivo.
+        ConcurrentSkipListMap<String, DestinationSuggestionResponse> rebuilt = new ConcurrentSkipListMap<>();
+        for (DestinationCount row : travelRepository.countByDestination()) {
+            // "Roma" e "roma" finiscono sulla stessa chiave: sommo i conteggi
+            rebuilt.merge(Travel.normalizeDestination(row.destination()),
+                    new DestinationSuggestionResponse(row.destination(), row.travels()),
+                    (current, other) -> new DestinationSuggestionResponse(current.destination(),
+                            current.travels() + other.travels()));
+        }
+        entries = rebuilt;
+        log.debug("Indice destinazioni ricostruito: {} destinazioni distinte", rebuilt.size());
+    }
+}
@@ -2,49 +2,101 @@ package it.epicode.gestioneviaggiaziendali.service;
 
 import it.epicode.gestioneviaggiaziendali.dto.request.CreateEmployeeRequest;
 import it.epicode.gestioneviaggiaziendali.dto.request.UpdateEmployeeRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateEmployeeRoleRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarThumbnails;
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
 import it.epicode.gestioneviaggiaziendali.dto.response.EmployeeResponse;
-import it.epicode.gestioneviaggiaziendali.dto.response.UploadAvatarResponse;
+import it.epicode.gestioneviaggiaziendali.entity.AvatarImage;
 import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.RevokedEmployee;
 import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
 import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingArchiveRepository;
 import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
 import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.RevokedEmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.security.PasswordHashingService;
+import it.epicode.gestioneviaggiaziendali.security.PrincipalCache;
+import it.epicode.gestioneviaggiaziendali.security.TokenVersionRegistry;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class EmployeeService {
 
     private final EmployeeRepository employeeRepository;
     private final BookingRepository bookingRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final RevokedEmployeeRepository revokedEmployeeRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     public EmployeeService(EmployeeRepository employeeRepository,
                            BookingRepository bookingRepository,
-                           PasswordEncoder passwordEncoder) {
+                           BookingArchiveRepository bookingArchiveRepository,
+                           RevokedEmployeeRepository revokedEmployeeRepository,
+                           PasswordHashingService passwordHashingService,
+                           PrincipalCache principalCache,
+                           TokenVersionRegistry tokenVersionRegistry) {
         this.employeeRepository = employeeRepository;
         this.bookingRepository = bookingRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.revokedEmployeeRepository = revokedEmployeeRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.principalCache = principalCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
     }
 
     public Page<EmployeeResponse> findAll(Pageable pageable) {
         return employeeRepository.findAll(pageable).map(this::toResponse);
     }
 
+    public CursorPage<EmployeeResponse> findAllAfter(String after, Integer size) {
+        // Modalita cursore: ordinamento per id (primary key), nessun COUNT(*)
+        int pageSize = CursorCodec.normalizeSize(size);
+        Long afterId = CursorCodec.isFirstPage(after) ? 0L : CursorCodec.decodeId(after);
+        return CursorCodec.toPage(employeeRepository.findNextById(afterId, Limit.of(pageSize + 1)),
+                pageSize, this::toResponse, employee -> CursorCodec.encodeId(employee.getId()));
+    }
+
     public EmployeeResponse findById(Long id) {
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Employee con id " + id + " non trovato"));
         return toResponse(employee);
     }
 
+    // Validatori per GET condizionale (vedi TravelService.versionStamp)
+    public VersionStamp versionStamp() {
+        return employeeRepository.findVersionStamp();
+    }
+
+    public VersionStamp versionStamp(Long id) {
+        return employeeRepository.findVersionStampById(id);
+    }
+
     public Employee findEntityById(Long id) {
         // Metodo interno usato dal filtro JWT per ottenere l'entity completa (con ruolo e password)
         return employeeRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Employee con id " + id + " non trovato"));
     }
 
+    public EmployeePrincipal findPrincipalById(Long id) {
+        // Usato dal filtro JWT ad ogni richiesta: passa dalla PrincipalCache per evitare
+        // una SELECT su employees prima di ogni query di business.
+        // In caso di miss legge dal DB e non dalla cache L2: una sola cache, una sola scadenza.
+        return principalCache.get(id, employeeId -> EmployeePrincipal.of(
+                employeeRepository.findByIdBypassingCache(employeeId)
+                        .orElseThrow(() -> new NotFoundException("Employee con id " + employeeId + " non trovato"))));
+    }
+
     public EmployeeResponse create(CreateEmployeeRequest request) {
         // 1) Controllo vincoli di unicita (username/email).
         // 2) Creo entity Employee valorizzando anche la password (per login JWT).
@@ -60,7 +112,8 @@ public class EmployeeService {
                 request.name(),
                 request.surname(),
                 request.email(),
-                passwordEncoder.encode(request.password())
+                // BCrypt sul pool dedicato: una raffica di registrazioni non blocca Tomcat
+                passwordHashingService.encode(request.password())
         );
         return toResponse(employeeRepository.save(employee));
     }
@@ -77,7 +130,32 @@ public class EmployeeService {
         employee.setName(request.name());
         employee.setSurname(request.surname());
         employee.setEmail(request.email());
-        return toResponse(employeeRepository.save(employee));
+        EmployeeResponse response = toResponse(employeeRepository.save(employee));
+        principalCache.invalidate(id);
+        return response;
+    }
+
+    public EmployeeResponse updateRole(Long id, UpdateEmployeeRoleRequest request) {
+        Employee employee = employeeRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Employee con id " + id + " non trovato"));
+        employee.setRole(request.role());
+        // Il ruolo fa parte del principal e (in modalita stateless) del token:
+        // revoco i token emessi col vecchio ruolo e invalido la cache.
+        employee.bumpTokenVersion();
+        EmployeeResponse response = toResponse(employeeRepository.save(employee));
+        tokenVersionRegistry.record(id, employee.getTokenVersion());
+        principalCache.invalidate(id);
+        return response;
+    }
+
+    public void revokeTokens(Long id) {
+        // Usato da logout e dalla revoca admin: tutti i JWT gia emessi smettono di essere validi
+        Employee employee = employeeRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Employee con id " + id + " non trovato"));
+        employee.bumpTokenVersion();
+        employeeRepository.save(employee);
+        tokenVersionRegistry.record(id, employee.getTokenVersion());
+        principalCache.invalidate(id);
     }
 
     public Employee findByEmail(String email) {
@@ -86,21 +164,32 @@ public class EmployeeService {
                 .orElseThrow(() -> new NotFoundException("Employee con email " + email + " non trovato"));
     }
 
+    public Optional<Employee> findOptionalByEmail(String email) {
+        // Variante del login: un'email sconosciuta non deve produrre una risposta diversa (404)
+        return employeeRepository.findByEmail(email);
+    }
+
+    @Transactional
     public void delete(Long id) {
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Employee con id " + id + " non trovato"));
-        if (bookingRepository.existsByEmployeeId(id)) {
+        if (bookingRepository.existsByEmployeeId(id) || bookingArchiveRepository.existsByEmployeeId(id)) {
             throw new ConflictException("Impossibile eliminare il dipendente: esistono prenotazioni collegate");
         }
         employeeRepository.delete(employee);
+        // Revoca persistente nella stessa transazione: la vedono tutti i nodi (anche dopo un riavvio)
+        // al prossimo refresh della TokenVersionRegistry, mentre i token restano validi fino a exp
+        revokedEmployeeRepository.save(new RevokedEmployee(id, Instant.now()));
+        tokenVersionRegistry.recordDeleted(id);
+        principalCache.invalidate(id);
     }
 
-    public UploadAvatarResponse updateAvatar(Long id, String avatarUrl) {
+    public void updateAvatar(Long id, AvatarImage image) {
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Employee con id " + id + " non trovato"));
-        employee.setAvatarUrl(avatarUrl);
+        employee.setAvatar(image);
         employeeRepository.save(employee);
-        return new UploadAvatarResponse(avatarUrl);
+        principalCache.invalidate(id);
     }
 
     private EmployeeResponse toResponse(Employee employee) {
@@ -110,7 +199,10 @@ public class EmployeeService {
                 employee.getName(),
                 employee.getSurname(),
                 employee.getEmail(),
-                employee.getAvatarUrl()
+                employee.getAvatarUrl(),
+                // Avatar caricati prima delle miniature: solo avatarUrl, nessuna miniatura
+                employee.getAvatarHash() == null ? null : new AvatarThumbnails(
+                        employee.getAvatarUrl64(), employee.getAvatarUrl128(), employee.getAvatarUrl())
         );
     }
 }
@@ -0,0 +1,191 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationBookings;
+import it.epicode.gestioneviaggiaziendali.dto.response.EmployeeTrips;
+import it.epicode.gestioneviaggiaziendali.dto.response.MonthlyReportResponse;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingHistoryRepository;
+import it.epicode.gestioneviaggiaziendali.repository.MonthlyDestinationCount;
+import it.epicode.gestioneviaggiaziendali.repository.MonthlyEmployeeCount;
+import it.epicode.gestioneviaggiaziendali.repository.MonthlyStatusCount;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Service
+public class MonthlyReportService {
+
+    // ===== REPORT MENSILI (snapshot per mese) =====
+    // LOGICA PASSO-PASSO:
+    // 1) Ogni mese del range e uno snapshot in memoria (il report e piccolo: poche righe per mese).
+    // 2) Mese CHIUSO (prima del mese corrente): snapshot immutabile, servito senza query. Viene scartato
+    //    solo da un TravelDataChangedEvent su una sua data (es. stato aggiornato a COMPLETATO) o dopo il TTL
+    //    (modifiche fatte da altri nodi, username cambiati).
+    // 3) Mese APERTO (corrente o futuro): due query di validazione (count/versioni/ultima modifica sul range
+    //    del mese, come l'ETag); si ricalcola solo se qualcosa e cambiato.
+    // 4) I mesi mancanti vengono calcolati insieme: tre GROUP BY sul DB su un unico range di date,
+    //    divise poi per mese. Nessuna entity caricata, nessuna aggregazione in Java su findAll().
+    //    Le prenotazioni vengono lette dallo storico completo: l'archiviazione non svuota i mesi passati.
+
+    public static final int MAX_MONTHS = 24;
+
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final TravelRepository travelRepository;
+    private final long closedMonthTtlMillis;
+    private final Clock clock;
+    private final ConcurrentHashMap<YearMonth, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // Come in PrincipalCache: un calcolo iniziato prima di un'invalidazione non rimette in cache dati vecchi
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    @Autowired
+    public MonthlyReportService(BookingHistoryRepository bookingHistoryRepository,
+                                TravelRepository travelRepository,
+                                @Value("${app.reports.closed-month-ttl-hours:24}") long closedMonthTtlHours) {
+        this(bookingHistoryRepository, travelRepository, closedMonthTtlHours * 3_600_000, Clock.systemDefaultZone());
+    }
+
+    MonthlyReportService(BookingHistoryRepository bookingHistoryRepository,
+                         TravelRepository travelRepository,
+                         long closedMonthTtlMillis,
+                         Clock clock) {
+        this.bookingHistoryRepository = bookingHistoryRepository;
+        this.travelRepository = travelRepository;
+        this.closedMonthTtlMillis = closedMonthTtlMillis;
+        this.clock = clock;
+    }
+
+    public List<MonthlyReportResponse> reports(YearMonth from, YearMonth to) {
+        YearMonth current = YearMonth.now(clock);
+        YearMonth first = from != null ? from : (to != null ? to : current);
+        YearMonth last = to != null ? to : first;
+        if (first.isAfter(last)) {
+            throw new ValidationException(List.of("Il mese di inizio deve precedere il mese di fine"));
+        }
+        if (ChronoUnit.MONTHS.between(first, last) >= MAX_MONTHS) {
+            throw new ValidationException(List.of("Intervallo massimo: " + MAX_MONTHS + " mesi"));
+        }
+
+        long now = clock.millis();
+        List<YearMonth> months = new ArrayList<>();
+        Map<YearMonth, MonthlyReportResponse> ready = new HashMap<>();
+        Map<YearMonth, MonthStamp> openStamps = new HashMap<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+            Snapshot snapshot = snapshots.get(month);
+            boolean closed = month.isBefore(current);
+            if (closed) {
+                if (snapshot != null && snapshot.report().closed() && now - snapshot.createdAtMillis() < closedMonthTtlMillis) {
+                    ready.put(month, snapshot.report());
+                }
+            } else {
+                MonthStamp stamp = stamp(month);
+                if (snapshot != null && !snapshot.report().closed() && stamp.equals(snapshot.stamp())) {
+                    ready.put(month, snapshot.report());
+                } else {
+                    openStamps.put(month, stamp);
+                }
+            }
+        }
+
+        List<YearMonth> missing = months.stream().filter(month -> !ready.containsKey(month)).toList();
+        if (!missing.isEmpty()) {
+            long epoch = invalidationEpoch.get();
+            Map<YearMonth, MonthlyReportResponse> computed =
+                    compute(missing.getFirst(), missing.getLast(), current, Instant.ofEpochMilli(now));
+            for (YearMonth month : missing) {
+                MonthlyReportResponse report = computed.get(month);
+                ready.put(month, report);
+                if (invalidationEpoch.get() == epoch) {
+                    snapshots.put(month, new Snapshot(report, openStamps.get(month), now));
+                }
+            }
+        }
+        return months.stream().map(ready::get).toList();
+    }
+
+    // Le date arrivano da TravelService e BookingService. Dopo il commit: prima il nuovo dato non e visibile
+    // e uno snapshot ricalcolato subito conterrebbe ancora quello vecchio.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTravelDataChanged(TravelDataChangedEvent event) {
+        invalidationEpoch.incrementAndGet();
+        for (LocalDate date : event.travelDates()) {
+            snapshots.remove(YearMonth.from(date));
+        }
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    private MonthStamp stamp(YearMonth month) {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        return new MonthStamp(bookingHistoryRepository.findVersionStampByTravelDateRange(start, end),
+                travelRepository.findVersionStampByTravelDateRange(start, end));
+    }
+
+    private Map<YearMonth, MonthlyReportResponse> compute(YearMonth first, YearMonth last, YearMonth current,
+                                                          Instant generatedAt) {
+        LocalDate start = first.atDay(1);
+        LocalDate end = last.plusMonths(1).atDay(1);
+        Map<YearMonth, Builder> builders = new HashMap<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            builders.put(month, new Builder());
+        }
+        // Le righe arrivano gia ordinate dal DB (piu prenotazioni prima): restano in quell'ordine
+        for (MonthlyDestinationCount row : bookingHistoryRepository.countByMonthAndDestination(start, end)) {
+            Builder builder = builders.get(YearMonth.of(row.year(), row.month()));
+            builder.destinations.add(new DestinationBookings(row.destination(), row.bookings()));
+            builder.bookings += row.bookings();
+        }
+        for (MonthlyEmployeeCount row : bookingHistoryRepository.countByMonthAndEmployee(start, end)) {
+            builders.get(YearMonth.of(row.year(), row.month())).employees
+                    .add(new EmployeeTrips(row.employeeId(), row.username(), row.trips()));
+        }
+        for (MonthlyStatusCount row : travelRepository.countByMonthAndStatus(start, end)) {
+            Builder builder = builders.get(YearMonth.of(row.year(), row.month()));
+            if (row.status() == TravelStatus.COMPLETATO) {
+                builder.completed += row.travels();
+            } else {
+                builder.planned += row.travels();
+            }
+        }
+
+        Map<YearMonth, MonthlyReportResponse> reports = new HashMap<>();
+        builders.forEach((month, builder) -> reports.put(month, new MonthlyReportResponse(
+                month, month.isBefore(current), generatedAt, builder.bookings, builder.planned, builder.completed,
+                List.copyOf(builder.destinations), List.copyOf(builder.employees))));
+        return reports;
+    }
+
+    // Validatore di un mese aperto: prenotazioni (e i loro viaggi) + tutti i viaggi del mese
+    private record MonthStamp(VersionStamp bookings, VersionStamp travels) {
+    }
+
+    private record Snapshot(MonthlyReportResponse report, MonthStamp stamp, long createdAtMillis) {
+    }
+
+    private static final class Builder {
+        private final List<DestinationBookings> destinations = new ArrayList<>();
+        private final List<EmployeeTrips> employees = new ArrayList<>();
+        private long bookings;
+        private long planned;
+        private long completed;
+    }
+}
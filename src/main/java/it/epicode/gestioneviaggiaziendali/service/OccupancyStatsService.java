@@ -0,0 +1,118 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.DailyOccupancy;
+import it.epicode.gestioneviaggiaziendali.dto.response.OccupancyResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.SeatReconciliationResponse;
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingHistoryRepository;
+import it.epicode.gestioneviaggiaziendali.repository.SeatCountDrift;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class OccupancyStatsService {
+
+    // ===== CONTATORI DI OCCUPAZIONE =====
+    // Il contatore per viaggio e travels.seats_taken: BookingService lo aggiorna nella STESSA transazione
+    // della prenotazione (reserveSeats), quindi prenotazione e contatore committano o falliscono insieme.
+    // Giorni e destinazioni si ottengono sommando i contatori dei viaggi nel range: nessuna
+    // COUNT/GROUP BY sulla tabella bookings a ogni refresh del cruscotto.
+    // Un futuro percorso di cancellazione dovra decrementare seats_taken nella sua transazione.
+    //
+    // La riconciliazione periodica ripara la deriva (update SQL manuali, restore parziali, bug):
+    // e l'unico punto che conta davvero le prenotazioni (correnti + archiviate: seats_taken le comprende tutte).
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyStatsService.class);
+
+    public static final int DEFAULT_RANGE_DAYS = 30;
+    public static final int MAX_RANGE_DAYS = 366;
+    public static final int DEFAULT_TOP = 10;
+    public static final int MAX_TOP = 100;
+
+    private final TravelRepository travelRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final TransactionTemplate transaction;
+
+    public OccupancyStatsService(TravelRepository travelRepository,
+                                 BookingHistoryRepository bookingHistoryRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.travelRepository = travelRepository;
+        this.bookingHistoryRepository = bookingHistoryRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public OccupancyResponse occupancy(LocalDate from, LocalDate to, Integer top) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_RANGE_DAYS);
+        if (start.isAfter(end)) {
+            throw new ValidationException(List.of("La data di inizio deve precedere la data di fine"));
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new ValidationException(List.of("Intervallo massimo: " + MAX_RANGE_DAYS + " giorni"));
+        }
+        int limit = top == null || top < 1 ? DEFAULT_TOP : Math.min(top, MAX_TOP);
+
+        // Totali sommati in memoria dalle righe per giorno (al massimo MAX_RANGE_DAYS righe)
+        List<DailyOccupancy> byDay = travelRepository.findDailyOccupancy(start, end);
+        long travels = 0;
+        long bookings = 0;
+        long capacity = 0;
+        long limitedBookings = 0;
+        for (DailyOccupancy day : byDay) {
+            travels += day.travels();
+            bookings += day.bookings();
+            capacity += day.capacity();
+            limitedBookings += day.limitedBookings();
+        }
+        return new OccupancyResponse(start, end, travels, bookings, capacity,
+                OccupancyResponse.occupancyRate(limitedBookings, capacity),
+                byDay,
+                travelRepository.findDestinationOccupancy(start, end),
+                travelRepository.findTopOccupancy(start, end, Limit.of(limit)));
+    }
+
+    @Scheduled(initialDelayString = "${app.stats.reconcile-ms:3600000}",
+            fixedDelayString = "${app.stats.reconcile-ms:3600000}")
+    public SeatReconciliationResponse reconcileSeatCounters() {
+        // LOGICA PASSO-PASSO:
+        // 1) Una query di conteggio completo trova i viaggi con seats_taken diverso dal numero di prenotazioni
+        //    (puo includere falsi positivi: prenotazioni in corso mentre la query gira)
+        // 2) Per ciascuno, in una transazione breve: blocco la riga del viaggio (la stessa che blocca
+        //    reserveSeats), riconto le sue prenotazioni e scrivo il valore solo se e ancora diverso.
+        //    Con la riga bloccata nessuna prenotazione puo cambiare il contatore in mezzo.
+        long start = System.nanoTime();
+        int repaired = 0;
+        for (SeatCountDrift drift : travelRepository.findSeatCountDrift()) {
+            // null = viaggio eliminato oppure contatore gia corretto (era una prenotazione in corso)
+            Integer fixed = transaction.execute(status -> {
+                if (travelRepository.findByIdForUpdate(drift.travelId()).isEmpty()) {
+                    return null;
+                }
+                int actual = Math.toIntExact(bookingHistoryRepository.countByTravelId(drift.travelId()));
+                if (travelRepository.updateSeatsTaken(drift.travelId(), actual, Instant.now()) == 0) {
+                    return null;
+                }
+                travelRepository.evictAfterCommit(List.of(drift.travelId()));
+                return actual;
+            });
+            if (fixed != null) {
+                log.warn("Contatore posti riallineato per il viaggio {}: {} -> {}",
+                        drift.travelId(), drift.seatsTaken(), fixed);
+                repaired++;
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Riconciliazione contatori posti: {} viaggi riallineati in {} ms", repaired, elapsedMillis);
+        return new SeatReconciliationResponse(repaired, elapsedMillis);
+    }
+}
@@ -0,0 +1,85 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelCompletionResponse;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.repository.TravelDay;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class TravelCompletionService {
+
+    // ===== COMPLETAMENTO DEI VIAGGI PASSATI =====
+    // LOGICA PASSO-PASSO:
+    // 1) Blocco successivo: id e data dei primi chunk-size viaggi IN_PROGRAMMA con data < oggi
+    //    (indice idx_travels_status_travel_date, nessuna entity caricata)
+    // 2) Un UPDATE set-based su quegli id, in una transazione breve per blocco: lock su poche righe,
+    //    niente transazione unica da milioni di righe
+    // 3) I viaggi aggiornati escono dal filtro: si ripete finche la query non torna vuota
+    // 4) Alla fine un solo TravelDataChangedEvent con le date toccate (report mensili da ricalcolare)
+
+    private static final Logger log = LoggerFactory.getLogger(TravelCompletionService.class);
+
+    private final TravelRepository travelRepository;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+
+    public TravelCompletionService(TravelRepository travelRepository,
+                                   ApplicationEventPublisher events,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.travel.completion.chunk-size:1000}") int chunkSize) {
+        this.travelRepository = travelRepository;
+        this.events = events;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Scheduled(cron = "${app.travel.completion.cron:0 5 0 * * *}")
+    public TravelCompletionResponse completePastTravels() {
+        return completeTravelsBefore(LocalDate.now());
+    }
+
+    public TravelCompletionResponse completeTravelsBefore(LocalDate before) {
+        long start = System.nanoTime();
+        long updated = 0;
+        int chunks = 0;
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        while (true) {
+            List<TravelDay> chunk = travelRepository.findChunkByStatusBefore(
+                    TravelStatus.IN_PROGRAMMA, before, Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Long> ids = chunk.stream().map(TravelDay::id).toList();
+            Integer rows = transaction.execute(status -> {
+                // Update nativo: dalla cache di secondo livello escono solo i viaggi del blocco
+                travelRepository.evictAfterCommit(ids);
+                return travelRepository.updateStatusByIds(
+                        ids, TravelStatus.IN_PROGRAMMA, TravelStatus.COMPLETATO, Instant.now());
+            });
+            updated += rows;
+            chunks++;
+            chunk.forEach(travel -> dates.add(travel.travelDate()));
+        }
+        if (!dates.isEmpty()) {
+            events.publishEvent(new TravelDataChangedEvent(List.copyOf(dates)));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Viaggi precedenti al {} completati: {} righe in {} blocchi, {} ms",
+                before, updated, chunks, elapsedMillis);
+        return new TravelCompletionResponse(before, updated, chunks, elapsedMillis);
+    }
+}
@@ -0,0 +1,13 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Pubblicato quando cambiano viaggi o prenotazioni: le date dei viaggi coinvolti
+// (per uno spostamento, vecchia e nuova). Lo ascolta MonthlyReportService per invalidare gli snapshot.
+public record TravelDataChangedEvent(List<LocalDate> travelDates) {
+
+    public TravelDataChangedEvent(LocalDate... travelDates) {
+        this(List.of(travelDates));
+    }
+}
@@ -1,39 +1,127 @@
 package it.epicode.gestioneviaggiaziendali.service;
 
 import it.epicode.gestioneviaggiaziendali.dto.request.CreateTravelRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.DestinationMatch;
 import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelRequest;
 import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelStatusRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.CursorPage;
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationSuggestionResponse;
 import it.epicode.gestioneviaggiaziendali.dto.response.TravelResponse;
 import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
 import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
 import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingArchiveRepository;
 import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
 import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelSpecifications;
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class TravelService {
 
     private final TravelRepository travelRepository;
     private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final DestinationIndex destinationIndex;
+    private final ApplicationEventPublisher events;
 
-    public TravelService(TravelRepository travelRepository, BookingRepository bookingRepository) {
+    public TravelService(TravelRepository travelRepository,
+                         BookingRepository bookingRepository,
+                         BookingArchiveRepository bookingArchiveRepository,
+                         DestinationIndex destinationIndex,
+                         ApplicationEventPublisher events) {
         this.travelRepository = travelRepository;
         this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.destinationIndex = destinationIndex;
+        this.events = events;
     }
 
     public Page<TravelResponse> findAll(Pageable pageable) {
         return travelRepository.findAll(pageable).map(this::toResponse);
     }
 
+    public CursorPage<TravelResponse> findAllAfter(String after, Integer size) {
+        // Modalita cursore: ordinamento fisso (travel_date, id), nessun COUNT(*)
+        int pageSize = CursorCodec.normalizeSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Travel> rows;
+        if (CursorCodec.isFirstPage(after)) {
+            rows = travelRepository.findFirstByTravelDate(limit);
+        } else {
+            CursorCodec.DateAndId cursor = CursorCodec.decodeDateAndId(after);
+            rows = travelRepository.findNextByTravelDate(cursor.date(), cursor.id(), limit);
+        }
+        return CursorCodec.toPage(rows, pageSize, this::toResponse,
+                travel -> CursorCodec.encodeDateAndId(travel.getTravelDate(), travel.getId()));
+    }
+
+    public Page<TravelResponse> search(String destination,
+                                       DestinationMatch match,
+                                       LocalDate from,
+                                       LocalDate to,
+                                       TravelStatus status,
+                                       Pageable pageable) {
+        // LOGICA PASSO-PASSO:
+        // 1) Valido il range di date.
+        // 2) Aggiungo alla WHERE solo i filtri presenti (ognuno ha il suo indice).
+        // 3) La destinazione viene normalizzata con la stessa regola della colonna salvata.
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException(List.of("La data di inizio deve precedere la data di fine"));
+        }
+
+        List<Specification<Travel>> filters = new ArrayList<>();
+        String term = Travel.normalizeDestination(destination);
+        if (term != null && !term.isEmpty()) {
+            filters.add(match == DestinationMatch.CONTAINS
+                    ? TravelSpecifications.destinationContains(term)
+                    : TravelSpecifications.destinationStartsWith(term));
+        }
+        if (from != null) {
+            filters.add(TravelSpecifications.travelDateFrom(from));
+        }
+        if (to != null) {
+            filters.add(TravelSpecifications.travelDateTo(to));
+        }
+        if (status != null) {
+            filters.add(TravelSpecifications.hasStatus(status));
+        }
+        return travelRepository.findAll(Specification.allOf(filters), pageable).map(this::toResponse);
+    }
+
+    public List<DestinationSuggestionResponse> suggestDestinations(String prefix, Integer limit) {
+        return destinationIndex.suggest(prefix, limit);
+    }
+
     public TravelResponse findById(Long id) {
         Travel travel = travelRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Travel con id " + id + " non trovato"));
         return toResponse(travel);
     }
 
+    // Validatori per GET condizionale: una query aggregata invece di pagina + COUNT(*) + serializzazione
+    public VersionStamp versionStamp() {
+        return travelRepository.findVersionStamp();
+    }
+
+    public VersionStamp versionStamp(Long id) {
+        return travelRepository.findVersionStampById(id);
+    }
+
     public TravelResponse create(CreateTravelRequest request) {
         Travel travel = new Travel();
         travel.setDestination(request.destination());
@@ -41,31 +129,73 @@ public class TravelService {
         if (request.status() != null) {
             travel.setStatus(request.status());
         }
-        return toResponse(travelRepository.save(travel));
+        travel.setCapacity(request.capacity());
+        Travel saved = travelRepository.save(travel);
+        destinationIndex.add(saved.getDestination());
+        events.publishEvent(new TravelDataChangedEvent(saved.getTravelDate()));
+        return toResponse(saved);
     }
 
+    @Transactional
     public TravelResponse update(Long id, UpdateTravelRequest request) {
-        Travel travel = travelRepository.findById(id)
+        // Riga bloccata (SELECT ... FOR UPDATE, la stessa di reserveSeats): le prenotazioni concorrenti
+        // aspettano il commit, quindi seatsTaken letto qui resta valido fino al salvataggio.
+        // Le prenotazioni non toccano la @Version: un viaggio molto prenotato resta modificabile.
+        Travel travel = travelRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new NotFoundException("Travel con id " + id + " non trovato"));
+        String previousDestination = travel.getDestination();
+        LocalDate previousDate = travel.getTravelDate();
+        boolean dateChanged = !travel.getTravelDate().equals(request.travelDate());
+        if (request.capacity() != null && request.capacity() < travel.getSeatsTaken()) {
+            throw new ConflictException("Impossibile ridurre la capienza a " + request.capacity()
+                    + ": " + travel.getSeatsTaken() + " posti sono gia occupati");
+        }
         travel.setDestination(request.destination());
         travel.setTravelDate(request.travelDate());
-        return toResponse(travelRepository.save(travel));
+        travel.setCapacity(request.capacity());
+        Travel saved = travelRepository.save(travel);
+        if (dateChanged) {
+            // Stessa transazione: viaggio e copie bookings.travel_date cambiano insieme o per niente
+            try {
+                Instant now = Instant.now();
+                bookingRepository.updateTravelDateByTravelId(id, request.travelDate(), now);
+                bookingArchiveRepository.updateTravelDateByTravelId(id, request.travelDate(), now);
+            } catch (DataIntegrityViolationException ex) {
+                if (BookingService.isOneBookingPerDayViolation(ex)) {
+                    throw new ConflictException("Impossibile spostare il viaggio al " + request.travelDate()
+                            + ": un employee prenotato ha gia un viaggio in quel giorno");
+                }
+                throw ex;
+            }
+        }
+        if (!previousDestination.equals(saved.getDestination())) {
+            destinationIndex.remove(previousDestination);
+            destinationIndex.add(saved.getDestination());
+        }
+        // Consegnato dopo il commit (MonthlyReportService ascolta con @TransactionalEventListener)
+        events.publishEvent(new TravelDataChangedEvent(previousDate, saved.getTravelDate()));
+        return toResponse(saved);
     }
 
     public TravelResponse updateStatus(Long id, UpdateTravelStatusRequest request) {
         Travel travel = travelRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Travel con id " + id + " non trovato"));
         travel.setStatus(request.status());
-        return toResponse(travelRepository.save(travel));
+        Travel saved = travelRepository.save(travel);
+        events.publishEvent(new TravelDataChangedEvent(saved.getTravelDate()));
+        return toResponse(saved);
     }
 
     public void delete(Long id) {
         Travel travel = travelRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Travel con id " + id + " non trovato"));
-        if (bookingRepository.existsByTravelId(id)) {
+        // Anche le prenotazioni archiviate referenziano il viaggio (FK): controllo solo al momento della delete
+        if (bookingRepository.existsByTravelId(id) || bookingArchiveRepository.existsByTravelId(id)) {
             throw new ConflictException("Impossibile eliminare il viaggio: esistono prenotazioni collegate");
         }
         travelRepository.delete(travel);
+        destinationIndex.remove(travel.getDestination());
+        events.publishEvent(new TravelDataChangedEvent(travel.getTravelDate()));
     }
 
     private TravelResponse toResponse(Travel travel) {
@@ -73,7 +203,9 @@ public class TravelService {
                 travel.getId(),
                 travel.getDestination(),
                 travel.getTravelDate(),
-                travel.getStatus()
+                travel.getStatus(),
+                travel.getCapacity(),
+                travel.getSeatsTaken()
         );
     }
 }
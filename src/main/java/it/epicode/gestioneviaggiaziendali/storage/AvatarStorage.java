@@ -0,0 +1,14 @@
+package it.epicode.gestioneviaggiaziendali.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Dove finiscono gli avatar. Implementazioni scelte con app.avatar.storage:
+// - cloudinary (default): CloudinaryAvatarStorage
+// - local: LocalAvatarStorage, file su disco serviti da /avatars/** (sviluppo e test offline)
+public interface AvatarStorage {
+
+    // Salva il file (gia su disco, letto in streaming) con la chiave indicata (senza estensione)
+    // e restituisce l'URL pubblico. La stessa chiave sovrascrive il contenuto precedente.
+    String store(String key, Path file, String contentType) throws IOException;
+}
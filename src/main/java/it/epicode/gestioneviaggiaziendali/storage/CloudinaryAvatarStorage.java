@@ -0,0 +1,37 @@
+package it.epicode.gestioneviaggiaziendali.storage;
+
+import com.cloudinary.Cloudinary;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.avatar.storage", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryAvatarStorage implements AvatarStorage {
+
+    // Cartella Cloudinary che raccoglie tutti gli avatar
+    private static final String FOLDER = "avatars/";
+
+    private final Cloudinary cloudinary;
+
+    public CloudinaryAvatarStorage(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+    }
+
+    @Override
+    public String store(String key, Path file, String contentType) throws IOException {
+        // Passando un File l'SDK lo legge in streaming (upload a blocchi) invece di un byte[] in memoria
+        Map<?, ?> result = cloudinary.uploader().upload(file.toFile(), Map.of(
+                "public_id", FOLDER + key,
+                "overwrite", true,
+                "resource_type", "image"
+        ));
+        Object url = result.get("secure_url");
+        if (url == null) {
+            url = result.get("url");
+        }
+        return url == null ? "" : url.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package it.epicode.gestioneviaggiaziendali.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Avatar su filesystem locale: niente rete, utile in sviluppo e nei test.
+// Implementa anche WebMvcConfigurer per servire i file salvati su /avatars/**.
+@Component
+@ConditionalOnProperty(name = "app.avatar.storage", havingValue = "local")
+public class LocalAvatarStorage implements AvatarStorage, WebMvcConfigurer {
+
+    public static final String URL_PREFIX = "/avatars/";
+
+    private final Path directory;
+
+    public LocalAvatarStorage(@Value("${app.avatar.storage.local.dir:avatars}") Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public String store(String key, Path file, String contentType) throws IOException {
+        Path target = directory.resolve(key + extension(contentType)).normalize();
+        if (!target.startsWith(directory)) {
+            throw new IOException("Chiave avatar non valida: " + key);
+        }
+        Files.createDirectories(target.getParent());
+        // Copia su file temporaneo + rename atomico: chi legge non vede mai un file a meta
+        Path partial = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try {
+            Files.copy(file, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return URL_PREFIX + directory.relativize(target).toString().replace('\\', '/');
+    }
+
+    // Estensione dal content type: il resource handler la usa per rispondere con il Content-Type giusto
+    private static String extension(String contentType) {
+        return switch (contentType == null ? "" : contentType) {
+            case "image/jpeg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "image/gif" -> ".gif";
+            default -> "";
+        };
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(URL_PREFIX + "**").addResourceLocations(directory.toUri().toString());
+    }
+}
@@ -0,0 +1,68 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import io.jsonwebtoken.Claims;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH: percorso di autenticazione eseguito ad ogni login / richiesta.
+// mvn verify -Pjmh -DskipTests -Djmh.args=AuthBenchmarks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthBenchmarks {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private Employee employee;
+    private JwtTools jwtTools;
+    private JwtTools cachedJwtTools;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        employee = new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x");
+        Field id = Employee.class.getDeclaredField("id");
+        id.setAccessible(true);
+        id.set(employee, 1L);
+
+        jwtTools = new JwtTools(SECRET, 3_600_000, 0);
+        cachedJwtTools = new JwtTools(SECRET, 3_600_000, 10_000);
+        token = jwtTools.generateToken(employee);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTools.generateToken(employee);
+    }
+
+    @Benchmark
+    public Claims verifyToken() {
+        return jwtTools.verifyTokenAndGetClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyTokenCacheHit() {
+        return cachedJwtTools.verifyTokenAndGetClaims(token);
+    }
+
+    @Benchmark
+    public Collection<?> employeeAuthorities() {
+        return employee.getAuthorities();
+    }
+}
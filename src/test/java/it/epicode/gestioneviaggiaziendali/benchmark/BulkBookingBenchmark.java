@@ -0,0 +1,90 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.service.BookingService;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Prenotazione di un team intero: N chiamate a create() contro una sola createAll().
+// Escluso dalla build normale: mvn test -Pbenchmark
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BookingService.class)
+class BulkBookingBenchmark {
+
+    private static final int TEAM_SIZE = 500;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void bulkVersusOneByOne() {
+        List<Employee> team = new ArrayList<>();
+        for (int i = 0; i < TEAM_SIZE; i++) {
+            team.add(new Employee("team" + i, "Nome", "Cognome", "team" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(team);
+        EmployeePrincipal admin = new EmployeePrincipal(team.get(0).getId(), "team0", Role.ADMIN);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Ogni giro usa un viaggio in un giorno nuovo, cosi nessuna prenotazione va in conflitto
+        LocalDate day = LocalDate.of(2027, 1, 1);
+        for (String mode : new String[] {"warmup-single", "warmup-bulk", "single", "bulk"}) {
+            boolean bulk = mode.endsWith("bulk");
+            int rounds = mode.startsWith("warmup") ? 2 : ROUNDS;
+            long elapsed = 0;
+            long statements = 0;
+            for (int r = 0; r < rounds; r++) {
+                Travel travel = new Travel();
+                travel.setDestination("Offsite " + mode + " " + r);
+                travel.setTravelDate(day);
+                day = day.plusDays(1);
+                travelRepository.save(travel);
+                List<CreateBookingRequest> requests = team.stream()
+                        .map(member -> new CreateBookingRequest(member.getId(), travel.getId(), null))
+                        .toList();
+
+                statistics.clear();
+                long start = System.nanoTime();
+                if (bulk) {
+                    assertThat(bookingService.createAll(requests, admin).created()).isEqualTo(TEAM_SIZE);
+                } else {
+                    requests.forEach(request -> bookingService.create(request, admin));
+                }
+                elapsed += System.nanoTime() - start;
+                statements += statistics.getPrepareStatementCount();
+            }
+            if (!mode.startsWith("warmup")) {
+                System.out.printf("%-8s %d prenotazioni: %8.2f ms/team, %6d statement/team%n",
+                        mode, TEAM_SIZE, elapsed / 1_000_000.0 / rounds, statements / rounds);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToLongFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+// Micro-benchmark del percorso di verifica JWT eseguito da JwtFilter ad ogni richiesta.
+// Escluso dalla build normale: mvn test -Pbenchmark
+@Tag("benchmark")
+class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void perRequestVerificationCost() throws Exception {
+        Employee employee = new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x");
+        Field id = Employee.class.getDeclaredField("id");
+        id.setAccessible(true);
+        id.set(employee, 1L);
+
+        JwtTools uncached = new JwtTools(SECRET, 3_600_000, 0);
+        JwtTools cached = new JwtTools(SECRET, 3_600_000, 10_000);
+        String token = uncached.generateToken(employee);
+
+        // Percorso precedente: chiave + parser ricreati e token verificato due volte
+        report("before (2x parse, key/parser per call)", token, JwtVerificationBenchmark::legacyVerify);
+        report("after  (1x parse, shared parser)", token, t -> uncached.extractId(uncached.verifyTokenAndGetClaims(t)));
+        report("after  (verified-token cache hit)", token, t -> cached.extractId(cached.verifyTokenAndGetClaims(t)));
+    }
+
+    private static long legacyVerify(String token) {
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return Long.parseLong(claims.getSubject());
+    }
+
+    private static void report(String label, String token, ToLongFunction<String> verifier) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += verifier.applyAsLong(token);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += verifier.applyAsLong(token);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-42s %8.2f us/op (sink=%d)%n", label, elapsed / 1_000.0 / ITERATIONS, sink);
+    }
+}
@@ -0,0 +1,95 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.security.RateLimitFilter;
+import it.epicode.gestioneviaggiaziendali.security.RateLimiter;
+import jakarta.servlet.FilterChain;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// JMH: costo del RateLimitFilter su ogni richiesta, con piu thread in parallelo (alto QPS).
+// Limiti altissimi: si misura l'overhead del filtro, non i rifiuti.
+// - samePrincipal: tutti i thread sullo stesso bucket (contesa massima sul CAS)
+// - distinctPrincipals: 10.000 client, un bucket ciascuno
+// - filter*: il filtro completo (path, SecurityContext, bucket) contro la sola chain
+// mvn verify -Pjmh -DskipTests -Djmh.args=RateLimitBenchmarks
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimitBenchmarks {
+
+    private static final int CLIENTS = 10_000;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private RateLimiter limiter;
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter(Integer.MAX_VALUE / 2, 1e9, 100_000);
+        filter = new RateLimitFilter(new ObjectMapper(), new SimpleMeterRegistry(), true, 100_000,
+                Integer.MAX_VALUE / 2, 1e9, Integer.MAX_VALUE / 2, 1e9);
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            long id = ThreadLocalRandom.current().nextLong(CLIENTS);
+            EmployeePrincipal principal = new EmployeePrincipal(id, "user" + id, Role.USER);
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.authorities()));
+            request = new MockHttpServletRequest("GET", "/api/travels");
+            request.setServletPath("/api/travels");
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public long samePrincipal() {
+        return limiter.tryAcquire(1L);
+    }
+
+    @Benchmark
+    public long distinctPrincipals() {
+        return limiter.tryAcquire(ThreadLocalRandom.current().nextLong(CLIENTS));
+    }
+
+    @Benchmark
+    public void chainOnly(Client client) throws Exception {
+        NO_OP_CHAIN.doFilter(client.request, client.response);
+    }
+
+    @Benchmark
+    public void filterApi(Client client) throws Exception {
+        // OncePerRequestFilter marca la richiesta: la tolgo per rieseguire il filtro sulla stessa istanza
+        client.request.clearAttributes();
+        filter.doFilter(client.request, client.response, NO_OP_CHAIN);
+    }
+}
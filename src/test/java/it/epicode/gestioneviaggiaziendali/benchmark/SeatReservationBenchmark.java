@@ -0,0 +1,130 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.exception.SoldOutException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.service.BookingService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Un viaggio "popolare": migliaia di prenotazioni concorrenti per pochi posti.
+// Verifica che non si venda mai un posto in piu e misura il throughput a fette di completamento
+// (una fetta lenta = contesa che degenera). Escluso dalla build normale: mvn test -Pbenchmark
+@Tag("benchmark")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BookingService.class)
+class SeatReservationBenchmark {
+
+    private static final int BUYERS = 4_000;
+    private static final int CAPACITY = 1_000;
+    private static final int ROUNDS = 3;
+    private static final int SLICES = 8;
+
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Test
+    void popularTravelIsNeverOversold() throws Exception {
+        List<Employee> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(new Employee("buyer" + i, "Nome", "Cognome", "buyer" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(buyers);
+
+        // Ogni giro usa un viaggio in un giorno nuovo: gli stessi employee possono prenotare di nuovo
+        LocalDate day = LocalDate.of(2027, 6, 1);
+        for (int round = 0; round <= ROUNDS; round++) {
+            Travel travel = new Travel();
+            travel.setDestination("Concerto " + round);
+            travel.setTravelDate(day.plusDays(round));
+            travel.setCapacity(CAPACITY);
+            travelRepository.save(travel);
+
+            long[] completedAt = new long[BUYERS];
+            AtomicInteger completed = new AtomicInteger();
+            AtomicInteger created = new AtomicInteger();
+            AtomicInteger soldOut = new AtomicInteger();
+            ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            long begin;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Employee buyer : buyers) {
+                    EmployeePrincipal principal = new EmployeePrincipal(buyer.getId(), buyer.getUsername(), Role.USER);
+                    executor.submit(() -> {
+                        start.await();
+                        try {
+                            bookingService.create(new CreateBookingRequest(null, travel.getId(), null), principal);
+                            created.incrementAndGet();
+                        } catch (SoldOutException ex) {
+                            soldOut.incrementAndGet();
+                        } catch (Throwable ex) {
+                            unexpected.add(ex);
+                        }
+                        completedAt[completed.getAndIncrement()] = System.nanoTime();
+                        return null;
+                    });
+                }
+                begin = System.nanoTime();
+                start.countDown();
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            assertThat(unexpected).isEmpty();
+            assertThat(created.get()).isEqualTo(CAPACITY);
+            assertThat(soldOut.get()).isEqualTo(BUYERS - CAPACITY);
+            assertThat(travelRepository.findById(travel.getId()).orElseThrow().getSeatsTaken()).isEqualTo(CAPACITY);
+            assertThat(bookingRepository.count()).isEqualTo((long) CAPACITY * (round + 1));
+
+            if (round > 0) {
+                System.out.printf("giro %d: %d tentativi, %d posti, %d esauriti in %8.2f ms (%8.0f richieste/s)%n",
+                        round, BUYERS, created.get(), soldOut.get(), elapsed / 1_000_000.0,
+                        BUYERS * 1_000_000_000.0 / elapsed);
+                System.out.println("         richieste/s per fetta: " + sliceThroughput(completedAt, begin));
+            }
+        }
+    }
+
+    // Throughput di ogni fetta di BUYERS / SLICES completamenti consecutivi
+    private static String sliceThroughput(long[] completedAt, long begin) {
+        long[] sorted = completedAt.clone();
+        Arrays.sort(sorted);
+        int sliceSize = sorted.length / SLICES;
+        StringBuilder out = new StringBuilder();
+        long sliceStart = begin;
+        for (int s = 0; s < SLICES; s++) {
+            long sliceEnd = sorted[(s + 1) * sliceSize - 1];
+            out.append(String.format("%8.0f", sliceSize * 1_000_000_000.0 / Math.max(1, sliceEnd - sliceStart)));
+            sliceStart = sliceEnd;
+        }
+        return out.toString();
+    }
+}
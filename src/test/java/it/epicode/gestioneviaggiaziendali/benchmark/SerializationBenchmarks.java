@@ -0,0 +1,76 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.epicode.gestioneviaggiaziendali.config.JacksonConfig;
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarThumbnails;
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.EmployeeResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelResponse;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+// JMH: serializzazione JSON delle risposte con lo stesso ObjectMapper dell'applicazione (JacksonConfig).
+// mvn verify -Pjmh -DskipTests -Djmh.args=SerializationBenchmarks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmarks {
+
+    private ObjectMapper objectMapper;
+    private BookingResponse booking;
+    private TravelResponse travel;
+    private Page<EmployeeResponse> employeePage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        booking = new BookingResponse(42L, LocalDateTime.of(2026, 3, 1, 9, 30), "Finestrino se possibile",
+                7L, "mrossi", 3L, "Milano", LocalDate.of(2026, 3, 15));
+        travel = new TravelResponse(3L, "Milano", LocalDate.of(2026, 3, 15), TravelStatus.IN_PROGRAMMA, 40, 12);
+
+        List<EmployeeResponse> employees = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            String avatar = "https://res.cloudinary.com/demo/image/upload/avatars/" + i + "/";
+            employees.add(new EmployeeResponse(i, "user" + i, "Nome", "Cognome", "user" + i + "@example.com",
+                    i % 2 == 0 ? avatar + "512" : null,
+                    i % 2 == 0 ? new AvatarThumbnails(avatar + "64", avatar + "128", avatar + "512") : null));
+        }
+        employeePage = new PageImpl<>(employees, PageRequest.of(0, 20), 1_000);
+    }
+
+    @Benchmark
+    public byte[] bookingResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public byte[] travelResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(travel);
+    }
+
+    @Benchmark
+    public byte[] employeePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(employeePage);
+    }
+}
@@ -0,0 +1,101 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.DestinationMatch;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.service.DestinationIndex;
+import it.epicode.gestioneviaggiaziendali.service.TravelService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Ricerca viaggi su 1M di righe: query indicizzate vs filtro "lato client" (scansione completa)
+// e autocomplete dall'indice in memoria. Escluso dalla build normale: mvn test -Pbenchmark
+@Tag("benchmark")
+@DataJpaTest
+@Import({TravelService.class, DestinationIndex.class})
+class TravelSearchBenchmark {
+
+    private static final int TRAVELS_PER_CITY = 25_000;
+    private static final List<String> CITIES = List.of(
+            "Roma", "Milano", "Napoli", "Torino", "Palermo", "Genova", "Bologna", "Firenze",
+            "Bari", "Catania", "Venezia", "Verona", "Messina", "Padova", "Trieste", "Brescia",
+            "Parma", "Taranto", "Prato", "Modena", "Reggio Calabria", "Reggio Emilia", "Perugia",
+            "Ravenna", "Livorno", "Cagliari", "Foggia", "Rimini", "Salerno", "Ferrara", "Sassari",
+            "Latina", "Monza", "Siracusa", "Pescara", "Bergamo", "Forlì", "Trento", "Vicenza", "Terni");
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    TravelService travelService;
+    @Autowired
+    DestinationIndex destinationIndex;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table bench_cities (ord int, name varchar(100))");
+        for (int i = 0; i < CITIES.size(); i++) {
+            jdbcTemplate.update("insert into bench_cities values (?, ?)", i, CITIES.get(i));
+        }
+        // 40 citta x 25.000 = 1M viaggi su ~10 anni, 10.000 destinazioni distinte, 1 su 5 completato
+        jdbcTemplate.update("""
+                insert into travels (id, destination, destination_normalized, travel_date, status)
+                select nextval('travels_seq'), c.name || ' ' || mod(s.x, 250),
+                       lower(c.name || ' ' || mod(s.x, 250)),
+                       dateadd(day, mod(s.x * 7 + c.ord, 3650), date '2020-01-01'),
+                       case when mod(s.x, 5) = 0 then 'COMPLETATO' else 'IN_PROGRAMMA' end
+                from bench_cities c cross join system_range(1, ?) as s(x)
+                """, TRAVELS_PER_CITY);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void searchOverOneMillionTravels() {
+        assertThat(jdbcTemplate.queryForObject("select count(*) from travels", Long.class))
+                .isEqualTo((long) CITIES.size() * TRAVELS_PER_CITY);
+        PageRequest page = PageRequest.of(0, 20, Sort.by("travelDate"));
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 31);
+
+        // Prima: nessun filtro sul server, il client scorre tutto -> equivalente a una scansione completa
+        report("before (full scan, lower(destination) like)", () -> jdbcTemplate.queryForObject(
+                "select count(*) from travels where lower(destination) like 'roma 12%'", Long.class));
+        report("after  (prefix, indexed)", () -> travelService.search(
+                "Roma 12", DestinationMatch.PREFIX, null, null, null, page).getTotalElements());
+        report("after  (date range + status)", () -> travelService.search(
+                null, DestinationMatch.PREFIX, from, to, TravelStatus.COMPLETATO, page).getTotalElements());
+        report("after  (prefix + date range)", () -> travelService.search(
+                "mil", DestinationMatch.PREFIX, from, to, null, page).getTotalElements());
+
+        long start = System.nanoTime();
+        destinationIndex.rebuild();
+        System.out.printf("%-46s %10.2f ms (%d destinazioni)%n", "destination index rebuild",
+                (System.nanoTime() - start) / 1_000_000.0, destinationIndex.size());
+        report("autocomplete (in-memory prefix index)", () ->
+                travelService.suggestDestinations("Reggio E", 10).size());
+    }
+
+    private static void report(String label, LongSupplier operation) {
+        long sink = 0;
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            sink += operation.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.getAsLong();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-46s %10.3f ms/op (sink=%d)%n", label, elapsed / 1_000_000.0 / ITERATIONS, sink);
+    }
+}
@@ -0,0 +1,219 @@
+package it.epicode.gestioneviaggiaziendali.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.EpicodeS6L5SpringWeekProjectGestioneViaggiAziendaliApplication;
+import it.epicode.gestioneviaggiaziendali.benchmark.load.LatencyRecorder;
+import it.epicode.gestioneviaggiaziendali.benchmark.load.LoadReport;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import it.epicode.gestioneviaggiaziendali.storage.AvatarStorage;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+
+// Thread di piattaforma (pool Tomcat da 200) vs virtual thread con lo stesso carico bloccante:
+// molti client che leggono dal DB (/api/travels, /api/bookings/me) e una quota di upload avatar lenti
+// (storage simulato con una sleep da UPLOAD_MILLIS, come una rete lenta). Gli upload rispondono 202
+// e il caricamento lento gira sui worker di AvatarUploadService, che seguono la stessa modalita.
+// L'applicazione viene avviata due volte, con spring.threads.virtual.enabled=false e poi true.
+// Escluso dalla build normale: mvn test -Pbenchmark -Dtest=VirtualThreadsBenchmark
+// (aggiungere -Djdk.tracePinnedThreads=short all'argLine per vedere eventuali pinning)
+@Tag("benchmark")
+class VirtualThreadsBenchmark {
+
+    private static final int CLIENTS = 600;
+    private static final int UPLOAD_PERCENT = 20;
+    private static final long UPLOAD_MILLIS = 500;
+    private static final int WARMUP_SECONDS = 5;
+    private static final int DURATION_SECONDS = 15;
+    private static final String BOUNDARY = "----benchmark-boundary";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        Map<String, LoadReport> reports = new LinkedHashMap<>();
+        for (boolean virtual : new boolean[] {false, true}) {
+            String mode = virtual ? "virtual" : "platform";
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                List<String> tokens = tokens(context);
+                run(port, tokens, WARMUP_SECONDS);
+                long start = System.nanoTime();
+                List<Map<String, LatencyRecorder>> perClient = run(port, tokens, DURATION_SECONDS);
+                reports.put(mode, toReport(mode, perClient, (System.nanoTime() - start) / 1_000_000_000.0));
+            }
+        }
+
+        System.out.printf("%d client, %d%% upload da %d ms, pool JDBC 20%n", CLIENTS, UPLOAD_PERCENT, UPLOAD_MILLIS);
+        System.out.printf("%-9s %-8s %9s %7s %9s %9s %9s %9s %9s%n",
+                "mode", "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        reports.forEach((mode, report) -> report.endpoints().forEach((endpoint, stats) -> System.out.printf(
+                "%-9s %-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", mode, endpoint, stats.requests(),
+                stats.errors(), stats.throughput(), stats.p50Ms(), stats.p95Ms(), stats.p99Ms(), stats.maxMs())));
+        reports.forEach((mode, report) -> System.out.printf("%-9s totale %.1f req/s%n", mode, report.throughput()));
+
+        assertThat(reports.get("virtual").totalRequests()).isPositive();
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(EpicodeS6L5SpringWeekProjectGestioneViaggiAziendaliApplication.class,
+                SlowUploadConfig.class)
+                // Argomenti da riga di comando: hanno la precedenza su application.properties di test
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--spring.datasource.hikari.connection-timeout=5000",
+                        "--app.avatar.upload.workers=64",
+                        "--app.avatar.upload.queue-capacity=100000",
+                        "--app.seed.enabled=true",
+                        "--app.seed.employees=" + (CLIENTS + 10),
+                        "--app.seed.travels=2000",
+                        "--app.seed.bookings=50000");
+    }
+
+    private static List<String> tokens(ConfigurableApplicationContext context) {
+        // Token firmati direttamente: il benchmark non deve misurare BCrypt
+        JwtTools jwtTools = context.getBean(JwtTools.class);
+        List<Employee> employees = context.getBean(EmployeeRepository.class)
+                .findAll(PageRequest.of(0, CLIENTS)).getContent();
+        assertThat(employees).hasSize(CLIENTS);
+        return employees.stream().map(jwtTools::generateToken).toList();
+    }
+
+    private List<Map<String, LatencyRecorder>> run(int port, List<String> tokens, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < tokens.size(); c++) {
+                String token = tokens.get(c);
+                SplittableRandom random = new SplittableRandom(c);
+                futures.add(executor.submit(() -> client(port, token, random, deadline)));
+            }
+        }
+        List<Map<String, LatencyRecorder>> results = new ArrayList<>();
+        for (Future<Map<String, LatencyRecorder>> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private Map<String, LatencyRecorder> client(int port, String token, SplittableRandom random, long deadline) {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        while (System.nanoTime() < deadline) {
+            int ticket = random.nextInt(100);
+            String endpoint = ticket < UPLOAD_PERCENT ? "upload" : ticket % 2 == 0 ? "travels" : "me";
+            HttpRequest request = switch (endpoint) {
+                case "upload" -> HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/employees/me/avatar"))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(avatarBody(random)))
+                        .timeout(Duration.ofSeconds(60))
+                        .build();
+                case "travels" -> get(port, "/api/travels?page=" + random.nextInt(10) + "&size=20", token);
+                default -> get(port, "/api/bookings/me", token);
+            };
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                success = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+            } catch (IOException ex) {
+                success = false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorders.computeIfAbsent(endpoint, key -> new LatencyRecorder()).record(System.nanoTime() - start, success);
+        }
+        return recorders;
+    }
+
+    private static HttpRequest get(int port, String path, String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private static byte[] avatarBody(SplittableRandom random) {
+        // PNG valido con un pixel casuale: hash sempre diverso, quindi niente deduplica
+        // e ogni upload arriva davvero allo storage lento
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(random.nextInt(64), random.nextInt(64), random.nextInt(0x1000000));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            body.write(("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"avatar\"; filename=\"avatar.png\"\r\n"
+                    + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            ImageIO.write(image, "png", body);
+            body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return body.toByteArray();
+    }
+
+    private static LoadReport toReport(String mode, List<Map<String, LatencyRecorder>> perClient, double seconds) {
+        Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+        perClient.forEach(client -> client.forEach((endpoint, recorder) ->
+                merged.computeIfAbsent(endpoint, key -> new LatencyRecorder()).merge(recorder)));
+        Map<String, LoadReport.EndpointStats> endpoints = new LinkedHashMap<>();
+        for (String endpoint : List.of("travels", "me", "upload")) {
+            if (merged.containsKey(endpoint)) {
+                endpoints.put(endpoint, merged.get(endpoint).toStats(seconds));
+            }
+        }
+        long total = endpoints.values().stream().mapToLong(LoadReport.EndpointStats::requests).sum();
+        return new LoadReport(mode, CLIENTS, seconds, total, total / seconds, endpoints);
+    }
+
+    // Storage "remoto" lento: al posto della chiamata HTTP a Cloudinary, una attesa bloccante
+    @Configuration(proxyBeanMethods = false)
+    static class SlowUploadConfig {
+
+        @Bean
+        @Primary
+        AvatarStorage slowAvatarStorage() {
+            return (String key, Path file, String contentType) -> {
+                try {
+                    Thread.sleep(UPLOAD_MILLIS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "https://res.cloudinary.com/benchmark/" + key;
+            };
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package it.epicode.gestioneviaggiaziendali.benchmark.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+// Harness di carico HTTP: l'applicazione completa (Tomcat vero, H2 in modalita PostgreSQL)
+// con un dataset generato, interrogata da N client su virtual thread.
+//
+// LOGICA PASSO-PASSO:
+// 1) Lo scenario (src/test/resources/load/<nome>.properties) decide client, durata, dati e mix di endpoint
+// 2) Il DatabaseSeeder genera i dati all'avvio; ogni client fa login con un utente diverso
+// 3) Warmup (non misurato), poi finestra misurata: ogni client sceglie l'endpoint in base ai pesi
+// 4) Report JSON in target/load-test/<scenario>.json con throughput e p50/p95/p99/max per endpoint
+// 5) Con -Dload.baseline=<report precedente> il run fallisce se peggiora oltre -Dload.tolerance (default 0.25)
+//
+// Esempio: mvn test -Pbenchmark -Dtest=HttpLoadBenchmark -Dload.scenario=mixed
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class HttpLoadBenchmark {
+
+    private static final LoadScenario SCENARIO = LoadScenario.load(System.getProperty("load.scenario", "mixed"));
+    private static final String PASSWORD = "Password1";
+    private static final String ADMIN_EMAIL = "m.rossi@example.com";
+    private static final int PAGE_SIZE = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @LocalServerPort
+    int port;
+
+    @DynamicPropertySource
+    static void seedProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.seed.enabled", () -> "true");
+        registry.add("app.seed.employees", SCENARIO::employees);
+        registry.add("app.seed.travels", SCENARIO::travels);
+        registry.add("app.seed.bookings", SCENARIO::bookings);
+        registry.add("app.seed.years", () -> "3");
+        registry.add("app.seed.random-seed", () -> "42");
+        // Si misura la capacita dell'applicazione: tutti i client arrivano dallo stesso IP e il rate
+        // limiter li rifiuterebbe gia al login
+        registry.add("app.rate-limit.enabled", () -> "false");
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        assertThat(SCENARIO.employees()).as("servono abbastanza utenti per i client")
+                .isGreaterThan(SCENARIO.clients() + 3);
+
+        String adminToken = login(ADMIN_EMAIL);
+        List<String> userTokens = loginClients();
+
+        runPhase(adminToken, userTokens, SCENARIO.warmupSeconds());
+        long start = System.nanoTime();
+        List<Map<String, LatencyRecorder>> perClient = runPhase(adminToken, userTokens, SCENARIO.durationSeconds());
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        LoadReport report = toReport(perClient, seconds);
+        Path output = Path.of(System.getProperty("load.output", "target/load-test"), SCENARIO.name() + ".json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writeValue(output.toFile(), report);
+        print(report, output);
+
+        assertThat(report.totalRequests()).isPositive();
+        String baseline = System.getProperty("load.baseline");
+        if (baseline != null) {
+            LoadReport previous = objectMapper.readValue(Path.of(baseline).toFile(), LoadReport.class);
+            double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.25"));
+            assertThat(report.regressionsAgainst(previous, tolerance))
+                    .as("regressioni rispetto a %s (tolleranza %.0f%%)", baseline, tolerance * 100)
+                    .isEmpty();
+        }
+    }
+
+    // ===== LOGIN =====
+
+    private List<String> loginClients() throws Exception {
+        // BCrypt e volutamente lento e il server limita gli hash in parallelo:
+        // i login vanno fatti con poca concorrenza, altrimenti si prendono 503
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            for (int c = 0; c < SCENARIO.clients(); c++) {
+                // id 1..3 sono gli utenti "storici": i client usano gli utenti generati, uno per client
+                String email = "user" + (4 + c) + "@example.com";
+                futures.add(executor.submit(() -> login(email)));
+            }
+        }
+        List<String> tokens = new ArrayList<>();
+        for (Future<String> future : futures) {
+            tokens.add(future.get());
+        }
+        return tokens;
+    }
+
+    private String login(String email) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "password", PASSWORD));
+        HttpRequest request = HttpRequest.newBuilder(uri("/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("login di %s", email).isEqualTo(200);
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    // ===== CARICO =====
+
+    private List<Map<String, LatencyRecorder>> runPhase(String adminToken, List<String> userTokens, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < userTokens.size(); c++) {
+                String userToken = userTokens.get(c);
+                SplittableRandom random = new SplittableRandom(c);
+                futures.add(executor.submit(() -> runClient(adminToken, userToken, random, deadline)));
+            }
+        }
+        List<Map<String, LatencyRecorder>> results = new ArrayList<>();
+        for (Future<Map<String, LatencyRecorder>> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private Map<String, LatencyRecorder> runClient(String adminToken, String userToken,
+                                                   SplittableRandom random, long deadline) {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        int totalWeight = SCENARIO.weights().values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < deadline) {
+            String endpoint = pickEndpoint(random.nextInt(totalWeight));
+            HttpRequest request = requestFor(endpoint, adminToken, userToken, random);
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() == 200;
+            } catch (IOException ex) {
+                success = false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorders.computeIfAbsent(endpoint, key -> new LatencyRecorder())
+                    .record(System.nanoTime() - start, success);
+        }
+        return recorders;
+    }
+
+    private String pickEndpoint(int ticket) {
+        for (Map.Entry<String, Integer> entry : SCENARIO.weights().entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Pesi dello scenario non validi");
+    }
+
+    private HttpRequest requestFor(String endpoint, String adminToken, String userToken, SplittableRandom random) {
+        // Le prime pagine sono le piu richieste: pagina casuale tra le prime 10
+        int page = random.nextInt(10);
+        return switch (endpoint) {
+            case "travels" -> get("/api/travels?page=" + page + "&size=" + PAGE_SIZE, userToken);
+            case "bookings" -> get("/api/bookings?page=" + page + "&size=" + PAGE_SIZE, adminToken);
+            case "bookings-me" -> get("/api/bookings/me", userToken);
+            case "employees-me" -> get("/api/employees/me", userToken);
+            default -> throw new IllegalArgumentException("Endpoint sconosciuto nello scenario: " + endpoint);
+        };
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // ===== REPORT =====
+
+    private static LoadReport toReport(List<Map<String, LatencyRecorder>> perClient, double seconds) {
+        Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+        for (Map<String, LatencyRecorder> client : perClient) {
+            client.forEach((endpoint, recorder) ->
+                    merged.computeIfAbsent(endpoint, key -> new LatencyRecorder()).merge(recorder));
+        }
+        Map<String, LoadReport.EndpointStats> endpoints = new LinkedHashMap<>();
+        SCENARIO.weights().keySet().stream()
+                .filter(merged::containsKey)
+                .forEach(endpoint -> endpoints.put(endpoint, merged.get(endpoint).toStats(seconds)));
+        long total = endpoints.values().stream().mapToLong(LoadReport.EndpointStats::requests).sum();
+        return new LoadReport(SCENARIO.name(), SCENARIO.clients(), seconds, total, total / seconds, endpoints);
+    }
+
+    private static void print(LoadReport report, Path output) {
+        System.out.printf("Scenario %s: %d client, %.1f s, %d richieste, %.1f req/s -> %s%n",
+                report.scenario(), report.clients(), report.durationSeconds(),
+                report.totalRequests(), report.throughput(), output);
+        System.out.printf("%-14s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        report.endpoints().forEach((endpoint, stats) -> System.out.printf(
+                "%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, stats.requests(), stats.errors(),
+                stats.throughput(), stats.p50Ms(), stats.p95Ms(), stats.p99Ms(), stats.maxMs()));
+    }
+}
@@ -0,0 +1,48 @@
+package it.epicode.gestioneviaggiaziendali.benchmark.load;
+
+import java.util.Arrays;
+
+// Latenze di un endpoint registrate da UN client (nessuna sincronizzazione): i recorder
+// dei vari client vengono uniti a fine run con merge().
+public class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    public void record(long latencyNanos, boolean success) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    public void merge(LatencyRecorder other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, count + other.count);
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    public LoadReport.EndpointStats toStats(double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new LoadReport.EndpointStats(count, errors, count / seconds,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95),
+                percentileMillis(sorted, 0.99), count == 0 ? 0 : sorted[count - 1] / 1_000_000.0);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        // Metodo "nearest rank"
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+}
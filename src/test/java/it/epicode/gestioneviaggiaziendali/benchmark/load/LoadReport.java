@@ -0,0 +1,53 @@
+package it.epicode.gestioneviaggiaziendali.benchmark.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Risultato di un run di carico: serializzato in JSON (target/load-test/<scenario>.json)
+// e riusabile come baseline per i run successivi.
+public record LoadReport(
+        String scenario,
+        int clients,
+        double durationSeconds,
+        long totalRequests,
+        double throughput,
+        Map<String, EndpointStats> endpoints
+) {
+
+    public record EndpointStats(
+            long requests,
+            long errors,
+            double throughput,
+            double p50Ms,
+            double p95Ms,
+            double p99Ms,
+            double maxMs
+    ) {
+    }
+
+    // Regressione = p95/p99 peggiori della baseline oltre la tolleranza (es. 0.25 = +25%),
+    // throughput sceso oltre la tolleranza, oppure errori dove prima non c'erano.
+    public List<String> regressionsAgainst(LoadReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        if (throughput < baseline.throughput() * (1 - tolerance)) {
+            regressions.add(String.format("throughput totale %.1f req/s (baseline %.1f)", throughput, baseline.throughput()));
+        }
+        endpoints.forEach((name, current) -> {
+            EndpointStats before = baseline.endpoints().get(name);
+            if (before == null) {
+                return;
+            }
+            if (current.p95Ms() > before.p95Ms() * (1 + tolerance)) {
+                regressions.add(String.format("%s p95 %.2f ms (baseline %.2f)", name, current.p95Ms(), before.p95Ms()));
+            }
+            if (current.p99Ms() > before.p99Ms() * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %.2f ms (baseline %.2f)", name, current.p99Ms(), before.p99Ms()));
+            }
+            if (current.errors() > 0 && before.errors() == 0) {
+                regressions.add(String.format("%s %d errori (baseline 0)", name, current.errors()));
+            }
+        });
+        return regressions;
+    }
+}
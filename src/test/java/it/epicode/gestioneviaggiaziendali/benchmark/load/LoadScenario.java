@@ -0,0 +1,52 @@
+package it.epicode.gestioneviaggiaziendali.benchmark.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Scenario di carico letto da src/test/resources/load/<nome>.properties
+public record LoadScenario(
+        String name,
+        int clients,
+        int warmupSeconds,
+        int durationSeconds,
+        int employees,
+        int travels,
+        int bookings,
+        Map<String, Integer> weights
+) {
+
+    public static LoadScenario load(String name) {
+        Properties properties = new Properties();
+        try (InputStream in = LoadScenario.class.getResourceAsStream("/load/" + name + ".properties")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Scenario di carico sconosciuto: " + name);
+            }
+            properties.load(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith("weight."))
+                .sorted()
+                .forEach(key -> weights.put(key.substring("weight.".length()), Integer.parseInt(properties.getProperty(key))));
+        return new LoadScenario(name,
+                intProperty(properties, "clients"),
+                intProperty(properties, "warmup-seconds"),
+                intProperty(properties, "duration-seconds"),
+                intProperty(properties, "data.employees"),
+                intProperty(properties, "data.travels"),
+                intProperty(properties, "data.bookings"),
+                weights);
+    }
+
+    private static int intProperty(Properties properties, String key) {
+        // -Dload.<chiave>=... ha la precedenza sul file (es. -Dload.clients=256)
+        return Integer.parseInt(System.getProperty("load." + key, properties.getProperty(key)));
+    }
+}
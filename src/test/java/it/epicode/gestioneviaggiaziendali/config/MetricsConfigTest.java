@@ -0,0 +1,57 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsConfigTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    JwtTools jwtTools;
+
+    @Test
+    void recordsControllerLatencyQueriesAndJwtOutcomes() throws Exception {
+        Employee employee = employeeRepository.save(new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x"));
+        String token = jwtTools.generateToken(employee);
+
+        mockMvc.perform(get("/api/employees/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/employees/me")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/employees/me").header("Authorization", "Bearer non-un-jwt"))
+                .andExpect(status().isUnauthorized());
+
+        Timer latency = meterRegistry.get("app.controller.requests")
+                .tags("controller", "EmployeeController", "method", "getMe", "status", "200").timer();
+        assertThat(latency.count()).isEqualTo(1);
+        DistributionSummary queries = meterRegistry.get("app.hibernate.queries.per.request")
+                .tags("controller", "EmployeeController", "method", "getMe").summary();
+        assertThat(queries.count()).isEqualTo(1);
+        assertThat(queries.totalAmount()).isPositive(); // almeno la select dell'employee
+
+        assertThat(meterRegistry.get("app.jwt.verification").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("app.jwt.failures").tag("errorCode", "MISSING_TOKEN").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("app.jwt.failures").tag("errorCode", "INVALID_TOKEN").counter().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,166 @@
+package it.epicode.gestioneviaggiaziendali.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateTravelRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateEmployeeRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelStatusRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.security.PrincipalCache;
+import it.epicode.gestioneviaggiaziendali.service.BookingService;
+import it.epicode.gestioneviaggiaziendali.service.EmployeeService;
+import it.epicode.gestioneviaggiaziendali.service.TravelService;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// La cache L2 e spenta nelle altre classi di test (vedi application.properties di test): qui la accendiamo.
+// Le query vengono contate con QueryCountInspector (thread corrente): 0 statement = servito dalla cache.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SecondLevelCacheTest {
+
+    @Autowired
+    TravelService travelService;
+    @Autowired
+    EmployeeService employeeService;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Test
+    void travelLookupsHitTheCacheAndSeeUpdatesAndDeletes() {
+        Long id = travelService.create(new CreateTravelRequest("Torino", LocalDate.of(2030, 3, 1), null, null)).id();
+        travelService.findById(id);
+
+        QueryCountInspector.reset();
+        assertThat(travelService.findById(id).destination()).isEqualTo("Torino");
+        assertThat(QueryCountInspector.count()).isZero();
+
+        travelService.updateStatus(id, new UpdateTravelStatusRequest(TravelStatus.COMPLETATO));
+        TravelResponse updated = travelService.findById(id);
+        assertThat(updated.status()).isEqualTo(TravelStatus.COMPLETATO);
+
+        travelService.delete(id);
+        assertThatThrownBy(() -> travelService.findById(id)).isInstanceOf(NotFoundException.class);
+
+        assertThat(meterRegistry.get("app.hibernate.cache.hit.ratio").tag("region", "travels").gauge().value())
+                .isPositive();
+    }
+
+    @Test
+    void bookingEvictsOnlyTheBookedTravel() {
+        Long other = travelService.create(new CreateTravelRequest("Genova", LocalDate.of(2030, 4, 1), null, 10)).id();
+        Long booked = travelService.create(new CreateTravelRequest("Verona", LocalDate.of(2030, 4, 2), null, 10)).id();
+        Employee carlo = employeeRepository.save(new Employee("cverdi", "Carlo", "Verdi", "c.verdi@example.com", "x"));
+        travelService.findById(other);
+        travelService.findById(booked);
+
+        bookingService.create(new CreateBookingRequest(carlo.getId(), booked, null),
+                new EmployeePrincipal(carlo.getId(), carlo.getUsername(), Role.USER));
+
+        // L'altro viaggio e ancora in cache: la prenotazione non ha svuotato la region
+        QueryCountInspector.reset();
+        assertThat(travelService.findById(other).seatsTaken()).isZero();
+        assertThat(QueryCountInspector.count()).isZero();
+
+        // Il viaggio prenotato e stato tolto dalla cache: riletto dal DB con il posto occupato
+        assertThat(travelService.findById(booked).seatsTaken()).isEqualTo(1);
+        assertThat(QueryCountInspector.count()).isEqualTo(1);
+    }
+
+    @Test
+    void bookingsNeverKeepADateTheTravelNoLongerHas() {
+        Long moving = travelService.create(new CreateTravelRequest("Bari", LocalDate.of(2030, 5, 1), null, null)).id();
+        travelService.findById(moving);
+        Employee first = employeeRepository.save(new Employee("lneri", "Luca", "Neri", "l.neri@example.com", "x"));
+        Employee second = employeeRepository.save(new Employee("sgallo", "Sara", "Gallo", "s.gallo@example.com", "x"));
+
+        // Il viaggio in cache ha ancora la data vecchia: e la finestra di un TravelService.update concorrente
+        // che committa tra la lettura del viaggio e la riserva del posto. La riproduco in modo deterministico
+        // spostando la data direttamente sul DB, senza passare da Hibernate (la cache resta com'era).
+        LocalDate newDate = LocalDate.of(2030, 5, 2);
+        jdbcTemplate.update("update travels set travel_date = ? where id = ?", newDate, moving);
+
+        try {
+            bookingService.create(new CreateBookingRequest(first.getId(), moving, null),
+                    new EmployeePrincipal(first.getId(), first.getUsername(), Role.USER));
+        } catch (ConflictException ex) {
+            // Spostato durante la prenotazione: rollback, la richiesta va ripetuta
+        }
+        try {
+            bookingService.createAll(List.of(new CreateBookingRequest(second.getId(), moving, null)),
+                    new EmployeePrincipal(first.getId(), first.getUsername(), Role.ADMIN));
+        } catch (ConflictException ex) {
+            // Come sopra, per l'intero gruppo
+        }
+
+        // Nessuna prenotazione con la data vecchia, e i posti contano solo quelle registrate
+        List<LocalDate> bookedDates = jdbcTemplate.queryForList(
+                "select travel_date from bookings where travel_id = ?", LocalDate.class, moving);
+        assertThat(bookedDates).containsOnly(newDate);
+        assertThat(jdbcTemplate.queryForObject("select seats_taken from travels where id = ?", Integer.class, moving))
+                .isEqualTo(bookedDates.size());
+    }
+
+    @Test
+    void principalReloadReadsTheDatabaseNotTheEmployeeRegion() {
+        Employee piero = employeeRepository.save(new Employee("pmarini", "Piero", "Marini", "p.marini@example.com", "x"));
+        employeeService.findById(piero.getId());
+        assertThat(employeeService.findPrincipalById(piero.getId()).isAdmin()).isFalse();
+
+        // Promosso da un altro nodo: qui la region "employees" ha ancora il ruolo vecchio
+        jdbcTemplate.update("update employees set role = 'ADMIN' where id = ?", piero.getId());
+
+        // Scaduta la PrincipalCache il principal viene riletto dal DB: un solo TTL, non due in fila
+        principalCache.invalidate(piero.getId());
+        QueryCountInspector.reset();
+        assertThat(employeeService.findPrincipalById(piero.getId()).isAdmin()).isTrue();
+        assertThat(QueryCountInspector.count()).isEqualTo(1);
+    }
+
+    @Test
+    void employeeFindersUseTheQueryCacheUntilTheTableChanges() {
+        Employee anna = employeeRepository.save(new Employee("abruno", "Anna", "Bruno", "a.bruno@example.com", "x"));
+        employeeRepository.findByEmail("a.bruno@example.com");
+
+        QueryCountInspector.reset();
+        assertThat(employeeRepository.findByEmail("a.bruno@example.com")).isPresent();
+        assertThat(employeeRepository.existsByEmail("a.bruno@example.com")).isTrue();
+        employeeRepository.existsByEmail("a.bruno@example.com");
+        assertThat(QueryCountInspector.count()).isEqualTo(1); // solo il primo existsByEmail
+
+        // L'update passa da EmployeeService: entity e risultati in cache non devono restare vecchi
+        employeeService.update(anna.getId(), new UpdateEmployeeRequest("Anna", "Bruni", "a.bruni@example.com"));
+        assertThat(employeeService.findById(anna.getId()).surname()).isEqualTo("Bruni");
+        assertThat(employeeRepository.findByEmail("a.bruno@example.com")).isEmpty();
+        assertThat(employeeRepository.findByEmail("a.bruni@example.com")).isPresent();
+
+        employeeService.delete(anna.getId());
+        assertThat(employeeRepository.existsByEmail("a.bruni@example.com")).isFalse();
+        assertThatThrownBy(() -> employeeService.findById(anna.getId())).isInstanceOf(NotFoundException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package it.epicode.gestioneviaggiaziendali.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import it.epicode.gestioneviaggiaziendali.service.BookingService;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+// DirtiesContext: non condivide il contesto (e i contatori Micrometer) con MetricsConfigTest
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class BookingExportControllerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 7, 15);
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    JwtTools jwtTools;
+
+    @Test
+    void gzipExportIsDownloadedAsTheCompressedFile() throws Exception {
+        Employee admin = new Employee("eadmin", "Elena", "Neri", "e.neri@example.com", "x");
+        admin.setRole(Role.ADMIN);
+        admin = employeeRepository.save(admin);
+        Travel trieste = new Travel();
+        trieste.setDestination("Trieste");
+        trieste.setTravelDate(DAY);
+        trieste = travelRepository.save(trieste);
+        bookingService.create(new CreateBookingRequest(admin.getId(), trieste.getId(), null),
+                new EmployeePrincipal(admin.getId(), admin.getUsername(), Role.ADMIN));
+
+        MvcResult started = mockMvc.perform(get("/api/bookings/export?gzip=true&from=" + DAY + "&to=" + DAY)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtTools.generateToken(admin)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/gzip"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings.ndjson.gz\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // I byte ricevuti sono il file .gz (magic number 1f 8b), che contiene l'NDJSON
+        assertThat(body[0]).isEqualTo((byte) 0x1f);
+        assertThat(body[1]).isEqualTo((byte) 0x8b);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(ndjson.lines()).singleElement().asString()
+                    .contains("\"destination\":\"Trieste\"");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package it.epicode.gestioneviaggiaziendali.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.security.JwtTools;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+// DirtiesContext: non condivide il contesto (e i contatori Micrometer) con MetricsConfigTest
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class ConditionalGetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    JwtTools jwtTools;
+
+    @Test
+    void travelPagesAnswer304UntilSomethingChanges() throws Exception {
+        Employee admin = new Employee("gverdi", "Giulia", "Verdi", "g.verdi@example.com", "x");
+        admin.setRole(Role.ADMIN);
+        String token = "Bearer " + jwtTools.generateToken(employeeRepository.save(admin));
+        Travel rome = travelRepository.save(travel("Roma"));
+        Travel milan = travelRepository.save(travel("Milano"));
+
+        String etag = mockMvc.perform(get("/api/travels").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"");
+
+        mockMvc.perform(get("/api/travels").header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        // Altra pagina, altro ETag
+        mockMvc.perform(get("/api/travels?size=1").header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        // Update: cambia la versione -> nuovo ETag
+        mockMvc.perform(put("/api/travels/" + rome.getId()).header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"destination\":\"Roma Termini\",\"travelDate\":\"2030-05-01\"}"))
+                .andExpect(status().isOk());
+        String updated = mockMvc.perform(get("/api/travels").header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(updated).isNotEqualTo(etag);
+
+        // Delete: max(updated_at) non cambia, il count si
+        mockMvc.perform(delete("/api/travels/" + milan.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/travels").header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void profileHonoursIfModifiedSince() throws Exception {
+        Employee employee = employeeRepository.save(new Employee("lneri", "Luca", "Neri", "l.neri@example.com", "x"));
+        String token = "Bearer " + jwtTools.generateToken(employee);
+
+        String lastModified = mockMvc.perform(get("/api/employees/me").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertThat(lastModified).isNotNull();
+
+        mockMvc.perform(get("/api/employees/me").header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void concurrentUpdateOfTheSameRowIsRejected() {
+        Travel saved = travelRepository.save(travel("Napoli"));
+        Travel first = travelRepository.findById(saved.getId()).orElseThrow();
+        Travel second = travelRepository.findById(saved.getId()).orElseThrow();
+
+        first.setDestination("Napoli Centrale");
+        travelRepository.save(first);
+        second.setDestination("Napoli Mergellina");
+
+        // GlobalExceptionHandler la trasforma in 409
+        assertThatThrownBy(() -> travelRepository.save(second))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    private static Travel travel(String destination) {
+        Travel travel = new Travel();
+        travel.setDestination(destination);
+        travel.setTravelDate(LocalDate.of(2030, 5, 1));
+        return travel;
+    }
+}
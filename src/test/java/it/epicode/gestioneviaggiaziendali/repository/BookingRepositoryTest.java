@@ -0,0 +1,113 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Booking;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingRepositoryTest {
+
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    Employee heavyBooker;
+
+    @BeforeEach
+    void setUp() {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            employees.add(new Employee("user" + i, "Nome" + i, "Cognome" + i, "user" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(employees);
+        heavyBooker = employees.get(0);
+
+        List<Travel> travels = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Travel travel = new Travel();
+            travel.setDestination("Destinazione " + i);
+            travel.setTravelDate(LocalDate.of(2026, 1, 1).plusDays(i));
+            travels.add(travel);
+        }
+        travelRepository.saveAll(travels);
+
+        List<Booking> bookings = new ArrayList<>();
+        for (Employee employee : employees) {
+            for (Travel travel : travels) {
+                Booking booking = new Booking();
+                booking.setEmployee(employee);
+                booking.setTravel(travel);
+                booking.setRequestDate(LocalDateTime.now());
+                bookings.add(booking);
+            }
+        }
+        bookingRepository.saveAll(bookings);
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfAllBookingsCostsTheSameNumberOfQueriesRegardlessOfPageSize() {
+        for (int size : new int[] {5, 50, 150}) {
+            statistics.clear();
+
+            Page<BookingResponse> page = bookingRepository.findAllResponses(
+                    PageRequest.of(0, size, Sort.by("requestDate").descending()));
+
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getTotalElements()).isEqualTo(200);
+            assertThat(page.getContent()).allSatisfy(b -> {
+                assertThat(b.employee().username()).isNotNull();
+                assertThat(b.travel().destination()).isNotNull();
+            });
+            // 1 query per il contenuto + 1 per il count, nessuna entity caricata
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+        }
+    }
+
+    @Test
+    void pageOfMyBookingsCostsTheSameNumberOfQueriesRegardlessOfPageSize() {
+        for (int size : new int[] {5, 20}) {
+            statistics.clear();
+
+            Page<BookingResponse> page = bookingRepository.findResponsesByEmployeeId(
+                    heavyBooker.getId(), PageRequest.of(1, size));
+
+            assertThat(page.getContent()).hasSize(size)
+                    .allSatisfy(b -> assertThat(b.employee().id()).isEqualTo(heavyBooker.getId()));
+            assertThat(page.getTotalElements()).isEqualTo(40);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+        }
+    }
+}
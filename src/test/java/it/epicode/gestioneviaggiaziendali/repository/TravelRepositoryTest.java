@@ -0,0 +1,84 @@
+package it.epicode.gestioneviaggiaziendali.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TravelRepositoryTest {
+
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    List<Travel> travels;
+
+    @BeforeEach
+    void setUp() {
+        // 50 viaggi su soli 7 giorni: molte date duplicate, l'id fa da tie-breaker
+        travels = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Travel travel = new Travel();
+            travel.setDestination("Destinazione " + i);
+            travel.setTravelDate(LocalDate.of(2026, 3, 1).plusDays(i % 7));
+            travels.add(travel);
+        }
+        travelRepository.saveAll(travels);
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void keysetWalkVisitsEveryTravelOnceInDateOrderWithOneQueryPerPage() {
+        List<Long> visited = new ArrayList<>();
+        int pages = 0;
+
+        List<Travel> page = travelRepository.findFirstByTravelDate(Limit.of(8));
+        while (!page.isEmpty()) {
+            pages++;
+            page.forEach(travel -> visited.add(travel.getId()));
+            Travel last = page.get(page.size() - 1);
+            page = travelRepository.findNextByTravelDate(last.getTravelDate(), last.getId(), Limit.of(8));
+        }
+
+        List<Long> expected = travels.stream()
+                .sorted(Comparator.comparing(Travel::getTravelDate).thenComparing(Travel::getId))
+                .map(Travel::getId)
+                .toList();
+        assertThat(visited).containsExactlyElementsOf(expected);
+        // 7 pagine piene + 1 query finale vuota, nessun COUNT(*)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(pages + 1);
+    }
+
+    @Test
+    void versionStampOfAnEmptySelectionIsZeroInsteadOfFailing() {
+        // sum() su zero righe e null: l'ETag di una collezione vuota (o di un mese senza viaggi) deve funzionare
+        VersionStamp emptyMonth = travelRepository.findVersionStampByTravelDateRange(
+                LocalDate.of(2030, 1, 1), LocalDate.of(2030, 2, 1));
+        assertThat(emptyMonth.isEmpty()).isTrue();
+        assertThat(emptyMonth.versionSum()).isZero();
+        assertThat(emptyMonth.lastModified()).isNull();
+
+        assertThat(travelRepository.findVersionStampById(-1L).isEmpty()).isTrue();
+    }
+}
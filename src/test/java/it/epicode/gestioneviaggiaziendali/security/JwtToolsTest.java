@@ -0,0 +1,109 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+
+class JwtToolsTest {
+
+    static final String SECRET = "test-secret-test-secret-test-secret-test-secret-0123456789";
+
+    static Employee employee(long id) throws ReflectiveOperationException {
+        Employee employee = new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x");
+        Field field = Employee.class.getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(employee, id);
+        return employee;
+    }
+
+    @Test
+    void verifiesTokenOnceAndServesRepeatedRequestsFromCache() throws Exception {
+        JwtTools jwtTools = new JwtTools(SECRET, 60_000, 100);
+        String token = jwtTools.generateToken(employee(42L));
+
+        Claims first = jwtTools.verifyTokenAndGetClaims(token);
+        Claims second = jwtTools.verifyTokenAndGetClaims(token);
+
+        assertThat(jwtTools.extractId(first)).isEqualTo(42L);
+        assertThat(second).isSameAs(first);
+        assertThat(jwtTools.getVerifiedTokenCache().hits()).isEqualTo(1);
+        assertThat(jwtTools.getVerifiedTokenCache().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void buildsStatelessPrincipalFromClaimsAndDetectsRevokedVersions() throws Exception {
+        JwtTools jwtTools = new JwtTools(SECRET, 60_000, 100);
+        Employee employee = employee(7L);
+        employee.setRole(Role.ADMIN);
+        String oldToken = jwtTools.generateToken(employee);
+        employee.bumpTokenVersion();
+        String newToken = jwtTools.generateToken(employee);
+
+        EmployeePrincipal principal = jwtTools.extractPrincipal(jwtTools.verifyTokenAndGetClaims(newToken));
+        assertThat(principal.id()).isEqualTo(7L);
+        assertThat(principal.isAdmin()).isTrue();
+        assertThat(principal.tokenVersion()).isEqualTo(1L);
+
+        TokenVersionRegistry registry = new TokenVersionRegistry(null, null, "stateless", 60_000);
+        registry.record(7L, employee.getTokenVersion());
+        long oldVersion = jwtTools.extractTokenVersion(jwtTools.verifyTokenAndGetClaims(oldToken));
+        assertThat(registry.isCurrent(7L, oldVersion)).isFalse();
+        assertThat(registry.isCurrent(7L, principal.tokenVersion())).isTrue();
+
+        registry.recordDeleted(7L);
+        assertThat(registry.isCurrent(7L, principal.tokenVersion())).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedTokenEvenWhenOriginalIsCached() throws Exception {
+        JwtTools jwtTools = new JwtTools(SECRET, 60_000, 100);
+        String token = jwtTools.generateToken(employee(42L));
+        jwtTools.verifyTokenAndGetClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtTools.verifyTokenAndGetClaims(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void evictsEntriesAtTokenExpiration() {
+        Instant exp = Instant.parse("2026-01-01T10:00:00Z");
+        Claims claims = Jwts.claims().subject("1").expiration(Date.from(exp)).build();
+
+        VerifiedTokenCache before = new VerifiedTokenCache(10, Clock.fixed(exp.minusSeconds(1), ZoneOffset.UTC));
+        before.put("token", claims);
+        assertThat(before.get("token")).isSameAs(claims);
+
+        VerifiedTokenCache after = new VerifiedTokenCache(10, Clock.fixed(exp, ZoneOffset.UTC));
+        after.put("token", claims);
+        assertThat(after.get("token")).isNull();
+        assertThat(after.size()).isZero();
+        assertThat(after.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void staysBoundedUnderManyDistinctTokens() {
+        Claims claims = Jwts.claims().subject("1")
+                .expiration(new Date(System.currentTimeMillis() + 60_000)).build();
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Clock.systemUTC());
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("token-" + i, claims);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.evictions()).isPositive();
+    }
+}
@@ -0,0 +1,45 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+// Server reale: con RANDOM_PORT anche la porta di management (management.server.port) diventa casuale
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ManagementPortTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    int port;
+    @LocalManagementPort
+    int managementPort;
+
+    @Test
+    void metricsAreServedOnlyOnTheManagementPort() throws Exception {
+        assertThat(managementPort).isNotEqualTo(port);
+
+        // Porta dell'API (pubblica): l'endpoint non esiste, anonimi compresi
+        HttpResponse<String> publicPort = get(port, "/actuator/prometheus");
+        assertThat(publicPort.statusCode()).isEqualTo(404);
+        assertThat(publicPort.body()).doesNotContain("jvm_memory");
+
+        // Porta di management (rete interna): lo scraper legge le metriche senza token
+        HttpResponse<String> internalPort = get(managementPort, "/actuator/prometheus");
+        assertThat(internalPort.statusCode()).isEqualTo(200);
+        assertThat(internalPort.body()).contains("jvm_memory");
+    }
+
+    private HttpResponse<String> get(int port, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,105 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import it.epicode.gestioneviaggiaziendali.exception.TooManyRequestsException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordHashingServiceTest {
+
+    // Encoder che resta bloccato finche il test non lo rilascia (simula un BCrypt lento)
+    static class BlockingEncoder implements PasswordEncoder {
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean blocking;
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+
+        private void await() {
+            if (!blocking) {
+                return;
+            }
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void rejectsFastWhenPoolAndQueueAreFull() throws Exception {
+        BlockingEncoder encoder = new BlockingEncoder();
+        PasswordHashingService service = new PasswordHashingService(encoder, 1, 1, 10_000, 2);
+        encoder.blocking = true;
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            callers.submit(() -> service.encode("a")); // occupa l'unico thread
+            callers.submit(() -> service.encode("b")); // occupa l'unico posto in coda
+            while (service.stats().queueDepth() < 1) {
+                Thread.sleep(5);
+            }
+
+            assertThatThrownBy(() -> service.matches("c", "hash:c"))
+                    .isInstanceOf(TooManyRequestsException.class)
+                    .extracting(ex -> ((TooManyRequestsException) ex).getRetryAfterSeconds())
+                    .isEqualTo(2L);
+            assertThat(service.stats().rejected()).isEqualTo(1);
+        } finally {
+            encoder.release.countDown();
+            callers.shutdown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void queuedRequestGivesUpAfterTheTimeout() throws Exception {
+        BlockingEncoder encoder = new BlockingEncoder();
+        PasswordHashingService service = new PasswordHashingService(encoder, 1, 4, 100, 1);
+        encoder.blocking = true;
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            callers.submit(() -> service.encode("a")); // occupa l'unico thread
+            while (service.stats().activeThreads() < 1) {
+                Thread.sleep(5);
+            }
+
+            // In coda dietro un hash che non finisce: 429 dopo timeout-ms, non dopo l'hash
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> service.matches("b", "hash:b")).isInstanceOf(TooManyRequestsException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(100L, 2_000L);
+        } finally {
+            encoder.release.countDown();
+            callers.shutdown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void dummyMatchGoesThroughThePool() {
+        BlockingEncoder encoder = new BlockingEncoder();
+        PasswordHashingService service = new PasswordHashingService(encoder, 1, 4, 10_000, 1);
+        try {
+            service.matchDummy("whatever");
+            assertThat(service.matches("pwd", service.encode("pwd"))).isTrue();
+            assertThat(service.stats().completed()).isEqualTo(3);
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PrincipalCacheTest {
+
+    @Test
+    void loadsOnceUntilInvalidated() {
+        PrincipalCache cache = new PrincipalCache(100, 60_000, Clock.systemUTC());
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            cache.get(1L, id -> {
+                loads.incrementAndGet();
+                return new EmployeePrincipal(id, "mrossi", Role.USER);
+            });
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.hits()).isEqualTo(4);
+
+        cache.invalidate(1L);
+        EmployeePrincipal reloaded = cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return new EmployeePrincipal(id, "mrossi", Role.ADMIN);
+        });
+
+        assertThat(loads).hasValue(2);
+        assertThat(reloaded.isAdmin()).isTrue();
+        assertThat(cache.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheValueLoadedConcurrentlyWithAnInvalidation() {
+        PrincipalCache cache = new PrincipalCache(100, 60_000, Clock.systemUTC());
+
+        cache.get(1L, id -> {
+            cache.invalidate(id); // es. update del ruolo mentre il filtro sta leggendo il vecchio valore
+            return new EmployeePrincipal(id, "mrossi", Role.USER);
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() {
+        PrincipalCache cache = new PrincipalCache(100, 0, Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> new EmployeePrincipal(id, "mrossi", Role.USER));
+        cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return new EmployeePrincipal(id, "mrossi", Role.USER);
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+}
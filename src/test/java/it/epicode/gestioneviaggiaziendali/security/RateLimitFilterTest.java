@@ -0,0 +1,134 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import jakarta.servlet.Filter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+// Bucket da 2 richieste con ricarica quasi nulla: la terza richiesta della stessa chiave e sempre un 429.
+// DirtiesContext: i bucket vivono nel bean, non devono restare pieni per gli altri test.
+// servletPath esplicito: MockMvc lo lascia vuoto, Tomcat (DispatcherServlet su "/") ci mette il path,
+// ed e quello che leggono JwtFilter e RateLimitFilter per scegliere le route.
+@SpringBootTest(properties = {
+        "app.rate-limit.api.capacity=2",
+        "app.rate-limit.api.refill-per-second=0.001",
+        "app.rate-limit.auth.capacity=2",
+        "app.rate-limit.auth.refill-per-second=0.001"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class RateLimitFilterTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    JwtTools jwtTools;
+    @Autowired
+    FilterChainProxy filterChainProxy;
+
+    @Test
+    void apiIsLimitedPerEmployeeWithProblemDetailAndRetryAfter() throws Exception {
+        String first = bearer(employee());
+        String second = bearer(employee());
+
+        api(first).andExpect(status().isOk());
+        api(first).andExpect(status().isOk());
+        String retryAfter = api(first)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.title").value("Too Many Requests"))
+                .andExpect(jsonPath("$.properties.path").value("/api/travels"))
+                .andReturn().getResponse().getHeader(HttpHeaders.RETRY_AFTER);
+        assertThat(Long.parseLong(retryAfter)).isPositive();
+
+        // Stesso IP (127.0.0.1 di MockMvc) ma altro employee: bucket suo, quindi la chiave e l'id
+        // e il filtro ha gia visto il principal messo da JwtFilter
+        api(second).andExpect(status().isOk());
+    }
+
+    @Test
+    void authIsLimitedPerClientIp() throws Exception {
+        login("10.0.0.1").andExpect(status().isUnauthorized());
+        login("10.0.0.1").andExpect(status().isUnauthorized());
+        login("10.0.0.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.properties.path").value("/auth/login"));
+
+        // Un altro client non paga per il primo
+        login("10.0.0.2").andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void rateLimitFilterRunsAfterJwtFilter() {
+        List<Filter> filters = filterChainProxy.getFilterChains().stream()
+                .map(SecurityFilterChain::getFilters)
+                .filter(chain -> chain.stream().anyMatch(RateLimitFilter.class::isInstance))
+                .findFirst()
+                .orElseThrow();
+
+        int jwt = indexOf(filters, JwtFilter.class);
+        int rateLimit = indexOf(filters, RateLimitFilter.class);
+        assertThat(jwt).isNotNegative();
+        assertThat(rateLimit).isGreaterThan(jwt);
+    }
+
+    private Employee employee() {
+        int n = SEQUENCE.incrementAndGet();
+        Employee employee = new Employee("ratelimit" + n, "Nome", "Cognome", "ratelimit" + n + "@example.com", "x");
+        employee.setRole(Role.USER);
+        return employeeRepository.save(employee);
+    }
+
+    private String bearer(Employee employee) {
+        return "Bearer " + jwtTools.generateToken(employee);
+    }
+
+    private ResultActions api(String token) throws Exception {
+        return mockMvc.perform(get("/api/travels").servletPath("/api/travels")
+                .header(HttpHeaders.AUTHORIZATION, token));
+    }
+
+    private ResultActions login(String remoteAddr) throws Exception {
+        return mockMvc.perform(post("/auth/login").servletPath("/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"nessuno@example.com\",\"password\":\"sbagliata\"}"));
+    }
+
+    private static int indexOf(List<Filter> filters, Class<? extends Filter> type) {
+        for (int i = 0; i < filters.size(); i++) {
+            if (type.isInstance(filters.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,117 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsTheBurstThenRefillsOverTime() {
+        AtomicLong now = new AtomicLong(5 * SECOND);
+        RateLimiter limiter = new RateLimiter(3, 2, 100, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(1L)).isZero();
+        }
+        // Bucket vuoto: il prossimo token arriva tra 1/2 secondo
+        assertThat(limiter.tryAcquire(1L)).isEqualTo(SECOND / 2);
+        // Un altro client ha il suo bucket
+        assertThat(limiter.tryAcquire(2L)).isZero();
+
+        now.addAndGet(SECOND / 2);
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+
+        // Dopo una lunga pausa il bucket e di nuovo pieno, ma non oltre la capacita
+        now.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(1L)).isZero();
+        }
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+        assertThat(limiter.rejected()).isEqualTo(3);
+    }
+
+    @Test
+    void staysBoundedByEvictingFullBucketsFirst() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(2, 1, 10, now::get);
+
+        limiter.tryAcquire("attivo");
+        limiter.tryAcquire("attivo");
+        for (int i = 0; i < 9; i++) {
+            limiter.tryAcquire("ip-" + i);
+        }
+        // Passati 1,5 s: i bucket con un solo token usato sono di nuovo pieni, "attivo" no
+        now.addAndGet(SECOND + SECOND / 2);
+        limiter.tryAcquire("nuovo");
+
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(limiter.evictions()).isEqualTo(9);
+        // Il bucket ancora in uso non e stato azzerato
+        assertThat(limiter.tryAcquire("attivo")).isZero();
+        assertThat(limiter.tryAcquire("attivo")).isPositive();
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheCapacity() throws Exception {
+        // Tempo fermo: nessun refill, quindi passano esattamente capacity richieste
+        RateLimiter limiter = new RateLimiter(500, 1, 100, () -> 0L);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        if (limiter.tryAcquire(7L) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+        assertThat(allowed).hasValue(500);
+        assertThat(limiter.allowed()).isEqualTo(500);
+        assertThat(limiter.rejected()).isEqualTo(7_500);
+    }
+
+    @Test
+    void filterRejectsWithProblemDetailPerClientIp() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), true, 100, 100, 100, 2, 0.1);
+
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = login(filter, "10.0.0.1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        assertThat(rejected.getContentAsString()).contains("\"title\":\"Too Many Requests\"", "/auth/login");
+        // Un altro IP ha il suo bucket
+        assertThat(login(filter, "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filter, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setServletPath("/auth/login");
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
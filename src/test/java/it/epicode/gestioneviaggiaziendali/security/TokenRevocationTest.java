@@ -0,0 +1,156 @@
+package it.epicode.gestioneviaggiaziendali.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.RevokedEmployee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.RevokedEmployeeRepository;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Modalita stateless: il JwtFilter non legge l'employee dal DB, la revoca passa solo dalla TokenVersionRegistry.
+// refresh-ms altissimo: il refresh gira solo all'avvio, quelli successivi li chiama il test
+// (cosi "la modifica fatta da un altro nodo" e visibile solo quando lo decido io).
+@SpringBootTest(properties = {
+        "app.auth.mode=stateless",
+        "app.auth.token-version.refresh-ms=3600000"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class TokenRevocationTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    RevokedEmployeeRepository revokedEmployeeRepository;
+    @Autowired
+    TokenVersionRegistry tokenVersionRegistry;
+    @Autowired
+    JwtTools jwtTools;
+
+    @Test
+    void logoutRevokesTheToken() throws Exception {
+        String token = bearer(employee(Role.USER));
+        assertAccepted(token);
+
+        mockMvc.perform(post("/api/employees/me/logout").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isNoContent());
+
+        assertRejected(token);
+    }
+
+    @Test
+    void revokeTokensRejectsTheEmployeeToken() throws Exception {
+        String admin = bearer(employee(Role.ADMIN));
+        Employee user = employee(Role.USER);
+        String token = bearer(user);
+        assertAccepted(token);
+
+        mockMvc.perform(post("/api/employees/" + user.getId() + "/revoke-tokens")
+                        .header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isNoContent());
+
+        assertRejected(token);
+    }
+
+    @Test
+    void roleChangeRejectsTheTokenWithTheOldRole() throws Exception {
+        String admin = bearer(employee(Role.ADMIN));
+        Employee user = employee(Role.ADMIN);
+        String token = bearer(user);
+        assertAccepted(token);
+
+        // Declassato a USER: il vecchio token dice ancora ADMIN e non deve piu passare
+        mockMvc.perform(patch("/api/employees/" + user.getId() + "/role")
+                        .header(HttpHeaders.AUTHORIZATION, admin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"USER\"}"))
+                .andExpect(status().isOk());
+
+        assertRejected(token);
+    }
+
+    @Test
+    void deleteRejectsTheTokenAndIsPersistedForTheOtherNodes() throws Exception {
+        String admin = bearer(employee(Role.ADMIN));
+        Employee deleted = employee(Role.ADMIN);
+        String token = bearer(deleted);
+        assertAccepted(token);
+
+        mockMvc.perform(delete("/api/employees/" + deleted.getId()).header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isNoContent());
+
+        assertRejected(token);
+        assertThat(revokedEmployeeRepository.existsById(deleted.getId())).isTrue();
+
+        // Un nodo appena avviato (o riavviato) non ha la tombstone locale: la legge dalla tabella
+        TokenVersionRegistry restarted = new TokenVersionRegistry(
+                employeeRepository, revokedEmployeeRepository, "stateless", 60_000);
+        restarted.refresh();
+        assertThat(restarted.isCurrent(deleted.getId(), 0)).isFalse();
+    }
+
+    @Test
+    void refreshPicksUpChangesMadeByAnotherNode() throws Exception {
+        Employee revoked = employee(Role.USER);
+        Employee deleted = employee(Role.USER);
+        String revokedToken = bearer(revoked);
+        String deletedToken = bearer(deleted);
+
+        // "Altro nodo": scrive direttamente sul DB, senza passare dalla registry di questo nodo
+        revoked.bumpTokenVersion();
+        employeeRepository.save(revoked);
+        employeeRepository.delete(deleted);
+        revokedEmployeeRepository.save(new RevokedEmployee(deleted.getId(), Instant.now()));
+
+        // Finche questo nodo non fa il refresh i token passano ancora (ritardo massimo = refresh-ms)
+        assertAccepted(revokedToken);
+
+        tokenVersionRegistry.refresh();
+
+        assertRejected(revokedToken);
+        assertRejected(deletedToken);
+    }
+
+    private Employee employee(Role role) {
+        int n = SEQUENCE.incrementAndGet();
+        Employee employee = new Employee("revocation" + n, "Nome", "Cognome", "revocation" + n + "@example.com", "x");
+        employee.setRole(role);
+        return employeeRepository.save(employee);
+    }
+
+    private String bearer(Employee employee) {
+        return "Bearer " + jwtTools.generateToken(employee);
+    }
+
+    private void assertAccepted(String token) throws Exception {
+        mockMvc.perform(get("/api/travels").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+    }
+
+    private void assertRejected(String token) throws Exception {
+        mockMvc.perform(get("/api/travels").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.properties.errorCode").value("INVALID_TOKEN"));
+    }
+}
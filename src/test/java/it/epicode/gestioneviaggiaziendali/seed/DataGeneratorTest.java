@@ -0,0 +1,117 @@
+package it.epicode.gestioneviaggiaziendali.seed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import java.time.LocalDate;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Il generatore scrive con JDBC su connessioni proprie: niente transazione di test
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataGeneratorTest {
+
+    // Correttezza: dataset piccolo (qualche secondo). Il volume vero e in generatesVolumeDataset (-Pbenchmark)
+    static final DataGeneratorSettings SETTINGS =
+            new DataGeneratorSettings(200, 300, 4_000, 5, 0.05, 0.3, 500, 7L);
+    static final DataGeneratorSettings VOLUME_SETTINGS =
+            new DataGeneratorSettings(2_000, 3_000, 60_000, 5, 0.01, 0.3, 500, 7L);
+
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        travelRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void generatesRealisticDatasetThatRespectsConstraintsAndKeepsJpaUsable() {
+        DataGenerator.Report report = new DataGenerator(dataSource).generate(SETTINGS, "{noop}x");
+
+        assertThat(report.employees()).isEqualTo(200);
+        assertThat(report.travels()).isEqualTo(300);
+        assertThat(report.bookings()).isEqualTo(4_000);
+        assertThat(bookingRepository.count()).isEqualTo(4_000);
+
+        // Gli utenti storici ci sono ancora, mrossi e admin
+        Employee admin = employeeRepository.findByEmail("m.rossi@example.com").orElseThrow();
+        assertThat(admin.getRole()).isEqualTo(Role.ADMIN);
+
+        // Una prenotazione per employee al giorno, e la data copiata coincide con quella del viaggio
+        assertThat(jdbcTemplate.queryForObject("""
+                select count(*) from (
+                    select employee_id, travel_date from bookings group by employee_id, travel_date having count(*) > 1
+                ) duplicates
+                """, Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("""
+                select count(*) from bookings b join travels t on t.id = b.travel_id where b.travel_date <> t.travel_date
+                """, Long.class)).isZero();
+
+        // Heavy booker: il 5% degli employee (10) ha circa il 30% delle prenotazioni
+        Long topBookings = jdbcTemplate.queryForObject("""
+                select sum(c) from (
+                    select count(*) c from bookings group by employee_id order by c desc limit 10
+                ) top
+                """, Long.class);
+        assertThat(topBookings).isBetween(1_100L, 1_300L);
+
+        // Destinazioni sbilanciate: la piu frequente supera di molto la mediana
+        List<Long> perDestination = jdbcTemplate.queryForList(
+                "select count(*) from travels group by destination order by count(*) desc", Long.class);
+        assertThat(perDestination.get(0)).isGreaterThan(5 * perDestination.get(perDestination.size() / 2));
+
+        // Date su piu anni
+        LocalDate min = jdbcTemplate.queryForObject("select min(travel_date) from travels", LocalDate.class);
+        LocalDate max = jdbcTemplate.queryForObject("select max(travel_date) from travels", LocalDate.class);
+        assertThat(min).isBefore(LocalDate.now().minusYears(1));
+        assertThat(max).isAfter(LocalDate.now());
+
+        // Le sequence ripartono oltre gli id generati: i nuovi insert via JPA non collidono
+        Travel travel = new Travel();
+        travel.setDestination("Nuova");
+        travel.setTravelDate(LocalDate.now());
+        assertThat(travelRepository.save(travel).getId()).isGreaterThan(300L);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void generatesVolumeDataset() {
+        // Stesso generatore su un volume piu realistico: righe/s nel log e nel report
+        DataGenerator.Report report = new DataGenerator(dataSource).generate(VOLUME_SETTINGS, "{noop}x");
+
+        assertThat(report.bookings()).isEqualTo(60_000);
+        assertThat(bookingRepository.count()).isEqualTo(60_000);
+        assertThat(report.rowsPerSecond()).isPositive();
+        Long topBookings = jdbcTemplate.queryForObject("""
+                select sum(c) from (
+                    select count(*) c from bookings group by employee_id order by c desc limit 20
+                ) top
+                """, Long.class);
+        assertThat(topBookings).isBetween(17_000L, 19_000L);
+    }
+}
@@ -0,0 +1,92 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AvatarImageProcessorTest {
+
+    // APP1 con un EXIF minimo (TIFF big endian, un solo tag): Orientation = 6, "ruotare di 90 in senso orario".
+    // E il caso tipico di una foto verticale scattata col telefono.
+    private static final byte[] EXIF_ROTATE_90 = HexFormat.of().parseHex(
+            "ffe10022" + "457869660000" + "4d4d002a00000008" + "0001" + "011200030000000100060000" + "00000000");
+
+    private final AvatarImageProcessor processor = new AvatarImageProcessor(40_000_000, 0.9f);
+
+    @TempDir
+    Path workDirectory;
+
+    @Test
+    void exifOrientationIsAppliedBeforeTheMetadataIsDropped() throws IOException {
+        // Salvata "coricata" 80x40: meta sinistra rossa, meta destra blu.
+        // Girata di 90 in senso orario diventa 40x80 con il rosso in alto.
+        Path photo = workDirectory.resolve("portrait.jpg");
+        Files.write(photo, withExif(halves(80, 40), EXIF_ROTATE_90));
+        assertThat(AvatarImageProcessor.exifOrientation(photo)).isEqualTo(6);
+
+        Map<Integer, Path> result = processor.process(photo, workDirectory);
+
+        Path largest = result.get(AvatarImageProcessor.SIZES.getFirst());
+        BufferedImage avatar = ImageIO.read(largest.toFile());
+        assertThat(avatar.getWidth()).isEqualTo(40);
+        assertThat(isRed(avatar.getRGB(5, 5))).isTrue();
+        assertThat(isRed(avatar.getRGB(34, 5))).isTrue();
+        assertThat(isRed(avatar.getRGB(5, 34))).isFalse();
+        // L'avatar viene ricodificato da zero: nessun EXIF, quindi nessuna doppia rotazione nel browser
+        assertThat(AvatarImageProcessor.exifOrientation(largest)).isEqualTo(1);
+        assertThat(new String(Files.readAllBytes(largest), StandardCharsets.ISO_8859_1))
+                .doesNotContain("Exif");
+    }
+
+    @Test
+    void imagesWithoutExifAreLeftAsTheyAre() throws IOException {
+        Path photo = workDirectory.resolve("landscape.jpg");
+        Files.write(photo, halves(80, 40));
+        assertThat(AvatarImageProcessor.exifOrientation(photo)).isEqualTo(1);
+
+        BufferedImage avatar = ImageIO.read(processor.process(photo, workDirectory)
+                .get(AvatarImageProcessor.SIZES.getFirst()).toFile());
+        assertThat(isRed(avatar.getRGB(5, 20))).isTrue();
+        assertThat(isRed(avatar.getRGB(34, 20))).isFalse();
+    }
+
+    private static byte[] halves(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    // Inserisce il segmento APP1 subito dopo SOI + APP0 (JFIF), dove lo mettono le fotocamere
+    private static byte[] withExif(byte[] jpeg, byte[] app1) {
+        int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, app0End);
+        out.write(app1, 0, app1.length);
+        out.write(jpeg, app0End, jpeg.length - app0End);
+        return out.toByteArray();
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 60;
+    }
+}
@@ -0,0 +1,137 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarThumbnails;
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarUploadJobResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.AvatarUploadStatus;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.exception.NotFoundException;
+import it.epicode.gestioneviaggiaziendali.repository.AvatarImageRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import it.epicode.gestioneviaggiaziendali.storage.LocalAvatarStorage;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+// Contesto completo con app.avatar.storage=local (vedi application.properties di test): nessuna rete
+@SpringBootTest
+class AvatarUploadServiceTest {
+
+    @Autowired
+    AvatarUploadService avatarUploadService;
+    @Autowired
+    EmployeeService employeeService;
+    @Autowired
+    LocalAvatarStorage localAvatarStorage;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    AvatarImageRepository avatarImageRepository;
+    @Value("${app.avatar.upload.spool-dir}")
+    Path spoolDirectory;
+
+    @Test
+    void uploadIsResizedStoredAndDeduplicatedByContentHash() throws Exception {
+        Employee mario = employeeRepository.save(new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x"));
+        Employee luca = employeeRepository.save(new Employee("lbianchi", "Luca", "Bianchi", "l.bianchi@example.com", "x"));
+        EmployeePrincipal admin = new EmployeePrincipal(mario.getId(), mario.getUsername(), Role.ADMIN);
+        byte[] png = png(1200, 800);
+
+        AvatarUploadJobResponse accepted = avatarUploadService.submit(mario.getId(), avatar(png));
+        assertThat(accepted.status()).isEqualTo(AvatarUploadStatus.PENDING);
+        AvatarUploadJobResponse first = awaitFinished(accepted.jobId(), admin);
+        assertThat(first.status()).isEqualTo(AvatarUploadStatus.COMPLETED);
+        assertThat(first.deduplicated()).isFalse();
+        assertThat(spoolDirectory.resolve(accepted.jobId() + ".upload")).doesNotExist();
+
+        // Tre JPEG quadrati, ritagliati e ridimensionati, referenziati dalla risposta dell'employee
+        AvatarThumbnails thumbnails = employeeService.findById(mario.getId()).avatarThumbnails();
+        assertThat(thumbnails.large()).isEqualTo("/avatars/" + first.contentHash() + "/512.jpg");
+        assertThat(employeeService.findById(mario.getId()).avatarUrl()).isEqualTo(thumbnails.large());
+        assertSquareJpeg(thumbnails.small(), 64);
+        assertSquareJpeg(thumbnails.medium(), 128);
+        assertSquareJpeg(thumbnails.large(), 512);
+
+        // Stesso file da un altro employee: stessi URL, nessuna nuova elaborazione ne scrittura
+        Path large = stored(thumbnails.large());
+        FileTime writtenAt = Files.getLastModifiedTime(large);
+        AvatarUploadJobResponse second = awaitFinished(avatarUploadService.submit(luca.getId(), avatar(png)).jobId(), admin);
+        assertThat(second.deduplicated()).isTrue();
+        assertThat(second.contentHash()).isEqualTo(first.contentHash());
+        assertThat(employeeService.findById(luca.getId()).avatarThumbnails()).isEqualTo(thumbnails);
+        assertThat(Files.getLastModifiedTime(large)).isEqualTo(writtenAt);
+        assertThat(avatarImageRepository.count()).isEqualTo(1);
+
+        // Un file che non e un'immagine: job FAILED, avatar invariato
+        AvatarUploadJobResponse broken = awaitFinished(avatarUploadService.submit(luca.getId(),
+                new MockMultipartFile("avatar", "avatar.png", "image/png", "non un png".getBytes())).jobId(), admin);
+        assertThat(broken.status()).isEqualTo(AvatarUploadStatus.FAILED);
+        assertThat(broken.error()).contains("immagine");
+        assertThat(employeeService.findById(luca.getId()).avatarThumbnails()).isEqualTo(thumbnails);
+
+        // Un altro USER non vede il job
+        assertThatThrownBy(() -> avatarUploadService.findJob(accepted.jobId(),
+                new EmployeePrincipal(luca.getId(), luca.getUsername(), Role.USER)))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> avatarUploadService.submit(mario.getId(),
+                new MockMultipartFile("avatar", "vuoto.png", "image/png", new byte[0])))
+                .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> avatarUploadService.submit(-1L, avatar(png)))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private void assertSquareJpeg(String url, int side) throws IOException {
+        Path file = stored(url);
+        assertThat(file.getFileName().toString()).endsWith(".jpg");
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertThat(image.getWidth()).isEqualTo(side);
+        assertThat(image.getHeight()).isEqualTo(side);
+    }
+
+    private Path stored(String url) {
+        return localAvatarStorage.getDirectory().resolve(url.substring(LocalAvatarStorage.URL_PREFIX.length()));
+    }
+
+    private static MockMultipartFile avatar(byte[] content) {
+        return new MockMultipartFile("avatar", "avatar.png", "image/png", content);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private AvatarUploadJobResponse awaitFinished(String jobId, EmployeePrincipal principal) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        AvatarUploadJobResponse job = avatarUploadService.findJob(jobId, principal);
+        while ((job.status() == AvatarUploadStatus.PENDING || job.status() == AvatarUploadStatus.PROCESSING)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            job = avatarUploadService.findJob(jobId, principal);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,187 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingArchiveResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingArchiveRepository;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest(properties = "app.bookings.archive.batch-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingArchiveService.class, BookingService.class})
+class BookingArchiveServiceTest {
+
+    static final LocalDate CUTOFF = LocalDate.of(2025, 1, 1);
+
+    @Autowired
+    BookingArchiveService bookingArchiveService;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    BookingArchiveRepository bookingArchiveRepository;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        bookingArchiveRepository.deleteAllInBatch();
+        bookingRepository.deleteAllInBatch();
+        travelRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void oldCompletedBookingsMoveToTheArchiveInBatches() {
+        Travel oldRome = travelRepository.save(travel("Roma", CUTOFF.minusDays(40), TravelStatus.COMPLETATO));
+        Travel oldMilan = travelRepository.save(travel("Milano", CUTOFF.minusDays(10), TravelStatus.COMPLETATO));
+        Travel oldPlanned = travelRepository.save(travel("Napoli", CUTOFF.minusDays(5), TravelStatus.IN_PROGRAMMA));
+        Travel recent = travelRepository.save(travel("Torino", CUTOFF.plusDays(3), TravelStatus.COMPLETATO));
+        List<Employee> team = employeeRepository.saveAll(List.of(
+                new Employee("anna", "Anna", "Bruno", "anna@example.com", "x"),
+                new Employee("bruno", "Bruno", "Conti", "bruno@example.com", "x"),
+                new Employee("carla", "Carla", "Dini", "carla@example.com", "x")));
+        EmployeePrincipal anna = principal(team.get(0));
+        for (Employee employee : team) {
+            book(employee, oldRome);
+            book(employee, oldPlanned);
+            book(employee, recent);
+        }
+        book(team.get(0), oldMilan);
+        book(team.get(1), oldMilan);
+        VersionStamp historyBefore = bookingService.versionStamp(true);
+        VersionStamp currentBefore = bookingService.versionStamp(false);
+
+        BookingArchiveResponse result = bookingArchiveService.archiveCompletedBefore(CUTOFF);
+
+        // 5 prenotazioni di viaggi completati prima dell'orizzonte, 2 per blocco
+        assertThat(result.archived()).isEqualTo(5);
+        assertThat(result.batches()).isEqualTo(3);
+        assertThat(bookingArchiveRepository.count()).isEqualTo(5);
+        assertThat(bookingRepository.count()).isEqualTo(6);
+        assertThat(bookingArchiveService.archiveCompletedBefore(CUTOFF).archived()).isZero();
+
+        // Lettura di default: solo le correnti. Con includeArchived: storico completo, ETag invariato
+        assertThat(bookingService.findMine(anna, Pageable.unpaged(), false).getContent())
+                .extracting(booking -> booking.travel().id())
+                .containsExactlyInAnyOrder(oldPlanned.getId(), recent.getId());
+        assertThat(bookingService.findMine(anna, Pageable.unpaged(), true).getContent())
+                .extracting(booking -> booking.travel().id())
+                .containsExactlyInAnyOrder(oldRome.getId(), oldMilan.getId(), oldPlanned.getId(), recent.getId());
+        assertThat(bookingService.findMineAfter(anna, "", 10, true).content()).hasSize(4);
+        assertThat(bookingService.versionStamp(true)).isEqualTo(historyBefore);
+        assertThat(bookingService.versionStamp(false)).isNotEqualTo(currentBefore);
+
+        BookingResponse archived = bookingService.findMine(anna, Pageable.unpaged(), true).getContent().stream()
+                .filter(booking -> booking.travel().id().equals(oldRome.getId()))
+                .findFirst().orElseThrow();
+        assertThat(bookingService.findById(archived.id(), true)).isEqualTo(archived);
+
+        // I posti occupati contano anche le prenotazioni archiviate
+        assertThat(travelRepository.findSeatCountDrift()).isEmpty();
+
+        // La regola "un viaggio al giorno" vale anche per i giorni archiviati
+        Travel sameDay = travelRepository.save(travel("Genova", oldRome.getTravelDate(), TravelStatus.COMPLETATO));
+        assertThatThrownBy(() -> book(team.get(0), sameDay)).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void overlappingRunsSkipTheRowsTheOtherRunIsMoving() throws Exception {
+        Travel oldRome = travelRepository.save(travel("Roma", CUTOFF.minusDays(40), TravelStatus.COMPLETATO));
+        Travel oldMilan = travelRepository.save(travel("Milano", CUTOFF.minusDays(10), TravelStatus.COMPLETATO));
+        List<Employee> team = employeeRepository.saveAll(List.of(
+                new Employee("anna", "Anna", "Bruno", "anna@example.com", "x"),
+                new Employee("bruno", "Bruno", "Conti", "bruno@example.com", "x")));
+        for (Employee employee : team) {
+            book(employee, oldRome);
+            book(employee, oldMilan);
+        }
+
+        // Un altro run (es. il cron su un altro nodo) ha gia preso il primo blocco e lo sta spostando
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> takenByOther = new ArrayList<>();
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> other = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                takenByOther.addAll(bookingRepository.findIdsToArchive(CUTOFF, TravelStatus.COMPLETATO, Limit.of(2)));
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            try {
+                assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+                // Questo run salta le righe bloccate: niente doppia copia (violazione della PK dell'archivio).
+                // PostgreSQL applica il LIMIT dopo aver saltato le righe bloccate e sposta le altre 2;
+                // H2 lo applica prima e vede un blocco vuoto. In entrambi i casi nessun errore e nessun doppione.
+                BookingArchiveResponse result = bookingArchiveService.archiveCompletedBefore(CUTOFF);
+                assertThat(takenByOther).hasSize(2);
+                assertThat(bookingArchiveRepository.findAllById(takenByOther)).isEmpty();
+                assertThat(bookingArchiveRepository.count()).isEqualTo(result.archived());
+            } finally {
+                release.countDown();
+            }
+            other.get(10, TimeUnit.SECONDS);
+        }
+
+        // L'altro run non ha spostato nulla (rollback): le sue righe arrivano col run successivo
+        bookingArchiveService.archiveCompletedBefore(CUTOFF);
+        assertThat(bookingArchiveRepository.count()).isEqualTo(4);
+        assertThat(bookingRepository.count()).isZero();
+    }
+
+    private void book(Employee employee, Travel travel) {
+        bookingService.create(new CreateBookingRequest(null, travel.getId(), null), principal(employee));
+    }
+
+    private static EmployeePrincipal principal(Employee employee) {
+        return new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.USER);
+    }
+
+    private static Travel travel(String destination, LocalDate date, TravelStatus status) {
+        Travel travel = new Travel();
+        travel.setDestination(destination);
+        travel.setTravelDate(date);
+        travel.setStatus(status);
+        return travel;
+    }
+}
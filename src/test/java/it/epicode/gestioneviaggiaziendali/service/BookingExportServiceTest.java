@@ -0,0 +1,166 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.epicode.gestioneviaggiaziendali.config.JacksonConfig;
+import it.epicode.gestioneviaggiaziendali.dto.request.BookingExportFormat;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest
+@Import({BookingExportService.class, JacksonConfig.class})
+class BookingExportServiceTest {
+
+    // Dataset piccolo per filtri e formato; quello grande (200k righe, ~25 s) solo per la misura dell'heap
+    static final int EMPLOYEES = 40;
+    static final int TRAVELS = 20;
+    static final int LARGE_EMPLOYEES = 400;
+    static final int LARGE_TRAVELS = 500;
+
+    @Autowired
+    BookingExportService exportService;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    @Tag("benchmark")
+    void streamsLargeExportWithFlatHeapUsage() {
+        // Misura basata su System.gc(): indicativa, per questo fuori dalla build normale (mvn test -Pbenchmark)
+        long bookings = seed(LARGE_EMPLOYEES, LARGE_TRAVELS);
+        HeapSamplingOutputStream sink = new HeapSamplingOutputStream(bookings);
+
+        long rows = exportService.export(BookingExportFormat.NDJSON, null, null, null, false, sink);
+
+        assertThat(rows).isEqualTo(bookings);
+        assertThat(sink.lines).isEqualTo(bookings);
+        // L'output totale e molto piu grande della crescita di heap misurata durante lo streaming:
+        // se le righe venissero accumulate la differenza sarebbe dell'ordine dell'output stesso.
+        assertThat(sink.bytes).isGreaterThan(40L * 1024 * 1024);
+        assertThat(sink.heapGrowth()).isLessThan(8L * 1024 * 1024);
+    }
+
+    @Test
+    void appliesFiltersAndWritesValidNdjsonAndCsv() throws Exception {
+        seed(EMPLOYEES, TRAVELS);
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 10);
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long rows = exportService.export(BookingExportFormat.NDJSON, from, to, TravelStatus.COMPLETATO, false, ndjson);
+
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(5L * EMPLOYEES);
+        assertThat(lines).hasSize(5 * EMPLOYEES);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.path("travel").path("status").asText()).isEqualTo("COMPLETATO");
+        assertThat(first.path("employee").path("username").asText()).startsWith("user");
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.export(BookingExportFormat.CSV, from, to, TravelStatus.IN_PROGRAMMA, false, csv);
+
+        String[] csvLines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(csvLines[0]).startsWith("id,request_date,notes");
+        assertThat(csvLines).hasSize(1 + 5 * EMPLOYEES);
+        assertThat(csvLines[1]).contains(",\"Roma, \"\"centro\"\"\",");
+    }
+
+    // Una prenotazione per ogni coppia employee/travel; viaggi in giorni consecutivi dal 2025-01-01,
+    // stato alternato COMPLETATO / IN_PROGRAMMA. Restituisce il numero di prenotazioni.
+    private long seed(int employeeCount, int travelCount) {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < employeeCount; i++) {
+            employees.add(new Employee("user" + i, "Nome", "Cognome", "user" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(employees);
+
+        List<Travel> travels = new ArrayList<>();
+        for (int i = 0; i < travelCount; i++) {
+            Travel travel = new Travel();
+            travel.setDestination(i % 2 == 0 ? "Milano" : "Roma, \"centro\"");
+            travel.setTravelDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            travel.setStatus(i % 2 == 0 ? TravelStatus.COMPLETATO : TravelStatus.IN_PROGRAMMA);
+            travels.add(travel);
+        }
+        travelRepository.saveAll(travels);
+        employeeRepository.flush();
+
+        // Generato direttamente in SQL, anche il dataset grande
+        return jdbcTemplate.update("""
+                insert into bookings (id, employee_id, travel_id, travel_date, request_date, notes)
+                select nextval('bookings_seq'), e.id, t.id, t.travel_date, current_timestamp, 'nota di test'
+                from employees e cross join travels t
+                """);
+    }
+
+    // Sink che conta righe/byte e misura l'heap "vivo" dopo le prime righe e alla fine
+    static class HeapSamplingOutputStream extends OutputStream {
+        final long expectedLines;
+        long bytes;
+        long lines;
+        long heapAfterFirstLines = -1;
+        long heapAtEnd = -1;
+
+        HeapSamplingOutputStream(long expectedLines) {
+            this.expectedLines = expectedLines;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                onLine();
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+
+        private void onLine() {
+            lines++;
+            if (lines == 1_000) {
+                heapAfterFirstLines = usedHeapAfterGc();
+            } else if (lines == expectedLines - 1) {
+                heapAtEnd = usedHeapAfterGc();
+            }
+        }
+
+        long heapGrowth() {
+            return heapAtEnd - heapAfterFirstLines;
+        }
+
+        private static long usedHeapAfterGc() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
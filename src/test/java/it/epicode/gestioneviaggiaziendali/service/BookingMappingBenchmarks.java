@@ -0,0 +1,65 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.BookingResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Booking;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH: mapping entity -> BookingResponse (stesso package di BookingService per usare toResponse).
+// mvn verify -Pjmh -DskipTests -Djmh.args=BookingMappingBenchmarks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingMappingBenchmarks {
+
+    private BookingService bookingService;
+    private Booking booking;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        // toResponse non tocca repository ne transazioni
+        bookingService = new BookingService(null, null, null, null, null, null, null);
+
+        Employee employee = new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x");
+        setId(Employee.class, employee, 7L);
+        Travel travel = new Travel();
+        travel.setDestination("Milano");
+        travel.setTravelDate(LocalDate.of(2026, 3, 15));
+        setId(Travel.class, travel, 3L);
+
+        booking = new Booking();
+        booking.setEmployee(employee);
+        booking.setTravel(travel);
+        booking.setRequestDate(LocalDateTime.of(2026, 3, 1, 9, 30));
+        booking.setNotes("Finestrino se possibile");
+        setId(Booking.class, booking, 42L);
+    }
+
+    @Benchmark
+    public BookingResponse toResponse() {
+        return bookingService.toResponse(booking);
+    }
+
+    private static <T> void setId(Class<T> type, T target, Long id) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(target, id);
+    }
+}
@@ -0,0 +1,258 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingItemResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingOutcome;
+import it.epicode.gestioneviaggiaziendali.dto.response.BulkBookingResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Booking;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.exception.SoldOutException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.repository.VersionStamp;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Niente transazione di test: ogni create deve committare davvero, come in produzione
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingService.class, TravelService.class, DestinationIndex.class})
+class BookingServiceTest {
+
+    static final int ATTEMPTS = 2_000;
+    static final LocalDate DAY = LocalDate.of(2026, 9, 1);
+
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    TravelService travelService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Employee employee;
+    EmployeePrincipal principal;
+    List<Travel> sameDayTravels;
+
+    @BeforeEach
+    void setUp() {
+        employee = employeeRepository.save(new Employee("mrossi", "Mario", "Rossi", "m.rossi@example.com", "x"));
+        principal = new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.USER);
+
+        // Viaggi DIVERSI nello stesso giorno: la regola e "un viaggio al giorno", non "niente doppioni"
+        sameDayTravels = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Travel travel = new Travel();
+            travel.setDestination("Destinazione " + i);
+            travel.setTravelDate(DAY);
+            sameDayTravels.add(travel);
+        }
+        travelRepository.saveAll(sameDayTravels);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        travelRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentCreatesForSameEmployeeAndDayHaveExactlyOneWinner() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                Long travelId = sameDayTravels.get(i % sameDayTravels.size()).getId();
+                executor.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.create(new CreateBookingRequest(null, travelId, null), principal);
+                        created.incrementAndGet();
+                    } catch (ConflictException ex) {
+                        conflicts.incrementAndGet();
+                    } catch (Throwable ex) {
+                        unexpected.add(ex);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(unexpected).isEmpty();
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(conflicts.get()).isEqualTo(ATTEMPTS - 1);
+        assertThat(bookingRepository.findByEmployeeId(employee.getId())).hasSize(1);
+    }
+
+    @Test
+    void concurrentBookingsNeverOversellALimitedTravel() throws Exception {
+        int capacity = 25;
+        Travel popular = new Travel();
+        popular.setDestination("Evento");
+        popular.setTravelDate(DAY.plusDays(10));
+        popular.setCapacity(capacity);
+        travelRepository.save(popular);
+        List<Employee> crowd = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            crowd.add(new Employee("crowd" + i, "Nome", "Cognome", "crowd" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(crowd);
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Employee member : crowd) {
+                EmployeePrincipal memberPrincipal = new EmployeePrincipal(member.getId(), member.getUsername(), Role.USER);
+                executor.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.create(new CreateBookingRequest(null, popular.getId(), null), memberPrincipal);
+                        created.incrementAndGet();
+                    } catch (SoldOutException ex) {
+                        soldOut.incrementAndGet();
+                    } catch (Throwable ex) {
+                        unexpected.add(ex);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(unexpected).isEmpty();
+        assertThat(created.get()).isEqualTo(capacity);
+        assertThat(soldOut.get()).isEqualTo(crowd.size() - capacity);
+        assertThat(travelRepository.findById(popular.getId()).orElseThrow().getSeatsTaken()).isEqualTo(capacity);
+        assertThat(bookingRepository.count()).isEqualTo(capacity);
+    }
+
+    @Test
+    void rejectedBookingsReleaseTheirSeatAndBulkReportsSoldOut() {
+        Travel small = new Travel();
+        small.setDestination("Piccolo");
+        small.setTravelDate(DAY.plusDays(3));
+        small.setCapacity(2);
+        travelRepository.save(small);
+
+        // Gia prenotato quel giorno: la violazione del vincolo unique annulla anche il posto
+        VersionStamp empty = bookingService.versionStamp(false);
+        bookingService.create(new CreateBookingRequest(null, small.getId(), null), principal);
+        VersionStamp booked = bookingService.versionStamp(false);
+        assertThatThrownBy(() -> bookingService.create(new CreateBookingRequest(null, small.getId(), null), principal))
+                .isInstanceOf(ConflictException.class)
+                .isNotInstanceOf(SoldOutException.class);
+        assertThat(travelRepository.findById(small.getId()).orElseThrow().getSeatsTaken()).isEqualTo(1);
+        // ETag della collezione dai contatori: cambia con la prenotazione, non con quella annullata
+        assertThat(booked).isNotEqualTo(empty);
+        assertThat(bookingService.versionStamp(false)).isEqualTo(booked);
+
+        EmployeePrincipal admin = new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.ADMIN);
+        List<Employee> team = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            team.add(new Employee("small" + i, "Nome", "Cognome", "small" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(team);
+        BulkBookingResponse response = bookingService.createAll(team.stream()
+                .map(member -> new CreateBookingRequest(member.getId(), small.getId(), null))
+                .toList(), admin);
+
+        assertThat(response.results()).extracting(BulkBookingItemResponse::outcome)
+                .containsExactly(BulkBookingOutcome.CREATED, BulkBookingOutcome.SOLD_OUT, BulkBookingOutcome.SOLD_OUT);
+        assertThat(travelRepository.findById(small.getId()).orElseThrow().getSeatsTaken()).isEqualTo(2);
+    }
+
+    @Test
+    void movingTravelOntoAnAlreadyBookedDayIsAConflictAndChangesNothing() {
+        Travel other = new Travel();
+        other.setDestination("Altrove");
+        other.setTravelDate(DAY.plusDays(1));
+        travelRepository.save(other);
+
+        bookingService.create(new CreateBookingRequest(null, sameDayTravels.get(0).getId(), null), principal);
+        bookingService.create(new CreateBookingRequest(null, other.getId(), null), principal);
+
+        assertThatThrownBy(() -> travelService.update(other.getId(), new UpdateTravelRequest("Altrove", DAY, null)))
+                .isInstanceOf(ConflictException.class);
+        assertThat(travelRepository.findById(other.getId()).orElseThrow().getTravelDate()).isEqualTo(DAY.plusDays(1));
+
+        travelService.update(other.getId(), new UpdateTravelRequest("Altrove", DAY.plusDays(2), null));
+        assertThat(bookingRepository.findByEmployeeId(employee.getId()))
+                .extracting(Booking::getTravelDate)
+                .containsExactlyInAnyOrder(DAY, DAY.plusDays(2));
+    }
+
+    @Test
+    void bulkCreateReportsEachItemAndBatchesTheInserts() {
+        EmployeePrincipal admin = new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.ADMIN);
+        List<Employee> team = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            team.add(new Employee("team" + i, "Nome", "Cognome", "team" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(team);
+        Long travelId = sameDayTravels.get(0).getId();
+        bookingService.create(new CreateBookingRequest(null, travelId, null), principal);
+
+        List<CreateBookingRequest> requests = new ArrayList<>();
+        for (Employee member : team) {
+            requests.add(new CreateBookingRequest(member.getId(), travelId, "team"));
+        }
+        requests.add(new CreateBookingRequest(employee.getId(), sameDayTravels.get(1).getId(), null)); // gia prenotato
+        requests.add(new CreateBookingRequest(team.get(0).getId(), sameDayTravels.get(2).getId(), null)); // doppione
+        requests.add(new CreateBookingRequest(-1L, travelId, null));
+        requests.add(new CreateBookingRequest(team.get(1).getId(), -1L, null));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BulkBookingResponse response = bookingService.createAll(requests, admin);
+
+        assertThat(response.created()).isEqualTo(120);
+        assertThat(response.rejected()).isEqualTo(4);
+        assertThat(response.results()).extracting(BulkBookingItemResponse::outcome)
+                .startsWith(BulkBookingOutcome.CREATED)
+                .endsWith(BulkBookingOutcome.CONFLICT, BulkBookingOutcome.CONFLICT,
+                        BulkBookingOutcome.NOT_FOUND, BulkBookingOutcome.NOT_FOUND);
+        assertThat(response.results().get(0).booking().employee().id()).isEqualTo(team.get(0).getId());
+        assertThat(bookingRepository.count()).isEqualTo(121);
+        // 120 insert in 3 batch JDBC da 50 (+ 2 IN, 1 query dei giorni occupati, poche chiamate alla sequence)
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(12);
+    }
+}
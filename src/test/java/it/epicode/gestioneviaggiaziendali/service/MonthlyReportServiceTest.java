@@ -0,0 +1,120 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelStatusRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationBookings;
+import it.epicode.gestioneviaggiaziendali.dto.response.EmployeeTrips;
+import it.epicode.gestioneviaggiaziendali.dto.response.MonthlyReportResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MonthlyReportService.class, BookingService.class, TravelService.class, DestinationIndex.class})
+class MonthlyReportServiceTest {
+
+    @Autowired
+    MonthlyReportService monthlyReportService;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    TravelService travelService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        travelRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void closedMonthsAreSnapshotsAndOpenMonthsAreRevalidated() {
+        YearMonth current = YearMonth.now();
+        YearMonth closed = current.minusMonths(2);
+        Travel rome = travelRepository.save(travel("Roma", closed.atDay(3), TravelStatus.COMPLETATO));
+        Travel milan = travelRepository.save(travel("Milano", closed.atDay(20), TravelStatus.IN_PROGRAMMA));
+        Travel naples = travelRepository.save(travel("Napoli", current.atEndOfMonth(), TravelStatus.IN_PROGRAMMA));
+        List<Employee> team = employeeRepository.saveAll(List.of(
+                new Employee("anna", "Anna", "Bruno", "anna@example.com", "x"),
+                new Employee("bruno", "Bruno", "Conti", "bruno@example.com", "x")));
+        book(team.get(0), rome);
+        book(team.get(1), rome);
+        book(team.get(0), milan);
+        book(team.get(0), naples);
+
+        List<MonthlyReportResponse> reports = monthlyReportService.reports(closed, current);
+        assertThat(reports).extracting(MonthlyReportResponse::month)
+                .containsExactly(closed, closed.plusMonths(1), current);
+        MonthlyReportResponse closedReport = reports.get(0);
+        assertThat(closedReport.closed()).isTrue();
+        assertThat(closedReport.bookings()).isEqualTo(3);
+        assertThat(closedReport.destinations()).containsExactly(
+                new DestinationBookings("Roma", 2), new DestinationBookings("Milano", 1));
+        assertThat(closedReport.employees()).containsExactly(
+                new EmployeeTrips(team.get(0).getId(), "anna", 2), new EmployeeTrips(team.get(1).getId(), "bruno", 1));
+        assertThat(closedReport.completedTravels()).isEqualTo(1);
+        assertThat(closedReport.plannedTravels()).isEqualTo(1);
+        assertThat(reports.get(1).bookings()).isZero();
+        assertThat(reports.get(2).closed()).isFalse();
+        assertThat(reports.get(2).bookings()).isEqualTo(1);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(monthlyReportService.reports(closed, closed).getFirst()).isSameAs(closedReport);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        // Mese aperto invariato: solo le due query di validazione
+        MonthlyReportResponse openReport = monthlyReportService.reports(current, current).getFirst();
+        assertThat(openReport).isSameAs(reports.get(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        // Un cambio di stato su un mese chiuso scarta il suo snapshot
+        travelService.updateStatus(milan.getId(), new UpdateTravelStatusRequest(TravelStatus.COMPLETATO));
+        assertThat(monthlyReportService.reports(closed, closed).getFirst().completedTravels()).isEqualTo(2);
+
+        // Una nuova prenotazione nel mese aperto cambia il validatore
+        book(team.get(1), naples);
+        assertThat(monthlyReportService.reports(current, current).getFirst().bookings()).isEqualTo(2);
+    }
+
+    private void book(Employee employee, Travel travel) {
+        bookingService.create(new CreateBookingRequest(null, travel.getId(), null),
+                new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.USER));
+    }
+
+    private static Travel travel(String destination, LocalDate date, TravelStatus status) {
+        Travel travel = new Travel();
+        travel.setDestination(destination);
+        travel.setTravelDate(date);
+        travel.setStatus(status);
+        return travel;
+    }
+}
@@ -0,0 +1,143 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateBookingRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.DailyOccupancy;
+import it.epicode.gestioneviaggiaziendali.dto.response.OccupancyResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Employee;
+import it.epicode.gestioneviaggiaziendali.entity.Role;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.repository.BookingRepository;
+import it.epicode.gestioneviaggiaziendali.repository.EmployeeRepository;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import it.epicode.gestioneviaggiaziendali.security.EmployeePrincipal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Niente transazione di test: le prenotazioni concorrenti devono committare davvero
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingService.class, OccupancyStatsService.class})
+class OccupancyStatsServiceTest {
+
+    static final LocalDate DAY = LocalDate.of(2026, 10, 1);
+
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    OccupancyStatsService occupancyStatsService;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    EmployeeRepository employeeRepository;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllInBatch();
+        travelRepository.deleteAllInBatch();
+        employeeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void countersMatchAFullRecountAfterConcurrentLoad() throws Exception {
+        // Due viaggi nello stesso giorno (conflitti "un viaggio al giorno"), uno con pochi posti (esauriti)
+        List<Travel> travels = List.of(
+                travel("Roma", DAY, 15),
+                travel("Milano", DAY, null),
+                travel("Roma", DAY.plusDays(1), null),
+                travel("Napoli", DAY.plusDays(2), 40));
+        travelRepository.saveAll(travels);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            employees.add(new Employee("load" + i, "Nome", "Cognome", "load" + i + "@example.com", "x"));
+        }
+        employeeRepository.saveAll(employees);
+
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Employee employee : employees) {
+                EmployeePrincipal principal = new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.USER);
+                for (Travel travel : travels) {
+                    executor.submit(() -> {
+                        start.await();
+                        try {
+                            bookingService.create(new CreateBookingRequest(null, travel.getId(), null), principal);
+                        } catch (ConflictException ex) {
+                            // giorno gia occupato oppure esaurito: atteso
+                        } catch (Throwable ex) {
+                            unexpected.add(ex);
+                        }
+                        return null;
+                    });
+                }
+            }
+            start.countDown();
+        }
+        assertThat(unexpected).isEmpty();
+
+        for (Travel travel : travels) {
+            assertThat(travelRepository.findById(travel.getId()).orElseThrow().getSeatsTaken())
+                    .isEqualTo(bookingRepository.countByTravelId(travel.getId()));
+        }
+        assertThat(travelRepository.findSeatCountDrift()).isEmpty();
+
+        OccupancyResponse occupancy = occupancyStatsService.occupancy(DAY, DAY.plusDays(2), 2);
+        assertThat(occupancy.bookings()).isEqualTo(bookingRepository.count());
+        assertThat(occupancy.travels()).isEqualTo(4);
+        assertThat(occupancy.capacity()).isEqualTo(55);
+        // Nel giorno DAY ognuno ha al massimo una prenotazione tra Roma e Milano
+        assertThat(occupancy.byDay()).extracting(DailyOccupancy::bookings).containsExactly(60L, 60L, 40L);
+        assertThat(occupancy.byDestination()).hasSize(3);
+        assertThat(occupancy.topTravels()).hasSize(2);
+        assertThat(occupancy.occupancyRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void reconciliationRepairsDriftedCounters() {
+        Travel travel = travelRepository.save(travel("Torino", DAY, null));
+        Travel untouched = travelRepository.save(travel("Genova", DAY.plusDays(1), null));
+        Employee employee = employeeRepository.save(new Employee("drift", "Nome", "Cognome", "drift@example.com", "x"));
+        bookingService.create(new CreateBookingRequest(null, travel.getId(), null),
+                new EmployeePrincipal(employee.getId(), employee.getUsername(), Role.USER));
+
+        // Deriva simulata: posti incrementati senza prenotazioni (es. un update SQL manuale)
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> travelRepository.reserveSeats(travel.getId(), travel.getTravelDate(), 5, Instant.now()));
+        assertThat(travelRepository.findSeatCountDrift()).hasSize(1);
+
+        assertThat(occupancyStatsService.reconcileSeatCounters().repaired()).isEqualTo(1);
+        assertThat(travelRepository.findById(travel.getId()).orElseThrow().getSeatsTaken()).isEqualTo(1);
+        assertThat(travelRepository.findById(untouched.getId()).orElseThrow().getSeatsTaken()).isZero();
+        assertThat(occupancyStatsService.reconcileSeatCounters().repaired()).isZero();
+    }
+
+    private static Travel travel(String destination, LocalDate date, Integer capacity) {
+        Travel travel = new Travel();
+        travel.setDestination(destination);
+        travel.setTravelDate(date);
+        travel.setCapacity(capacity);
+        return travel;
+    }
+}
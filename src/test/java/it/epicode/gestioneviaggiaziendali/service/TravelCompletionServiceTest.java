@@ -0,0 +1,89 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelCompletionResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.travel.completion.chunk-size=50"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TravelCompletionService.class)
+class TravelCompletionServiceTest {
+
+    static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Autowired
+    TravelCompletionService travelCompletionService;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        travelRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void pastPlannedTravelsAreCompletedInChunksWithoutLoadingEntities() {
+        List<Travel> travels = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            travels.add(travel(TODAY.minusDays(i), TravelStatus.IN_PROGRAMMA));
+        }
+        Travel today = travel(TODAY, TravelStatus.IN_PROGRAMMA);
+        Travel future = travel(TODAY.plusDays(3), TravelStatus.IN_PROGRAMMA);
+        Travel alreadyCompleted = travel(TODAY.minusDays(400), TravelStatus.COMPLETATO);
+        travels.addAll(List.of(today, future, alreadyCompleted));
+        travelRepository.saveAll(travels);
+        long initialVersion = travels.getFirst().getVersion();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TravelCompletionResponse result = travelCompletionService.completeTravelsBefore(TODAY);
+
+        assertThat(result.updated()).isEqualTo(120);
+        assertThat(result.chunks()).isEqualTo(3);
+        // 3 blocchi: select + update ciascuno, piu la select finale vuota
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(7);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        Travel completed = travelRepository.findById(travels.getFirst().getId()).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(TravelStatus.COMPLETATO);
+        assertThat(completed.getVersion()).isEqualTo(initialVersion + 1);
+        assertThat(travelRepository.findById(today.getId()).orElseThrow().getStatus())
+                .isEqualTo(TravelStatus.IN_PROGRAMMA);
+        assertThat(travelRepository.findById(future.getId()).orElseThrow().getStatus())
+                .isEqualTo(TravelStatus.IN_PROGRAMMA);
+        assertThat(travelRepository.findById(alreadyCompleted.getId()).orElseThrow().getVersion())
+                .isEqualTo(alreadyCompleted.getVersion());
+
+        // Seconda esecuzione: niente da aggiornare
+        assertThat(travelCompletionService.completeTravelsBefore(TODAY).updated()).isZero();
+    }
+
+    private static Travel travel(LocalDate date, TravelStatus status) {
+        Travel travel = new Travel();
+        travel.setDestination("Roma");
+        travel.setTravelDate(date);
+        travel.setStatus(status);
+        return travel;
+    }
+}
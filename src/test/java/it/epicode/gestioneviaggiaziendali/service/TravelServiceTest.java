@@ -0,0 +1,136 @@
+package it.epicode.gestioneviaggiaziendali.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import it.epicode.gestioneviaggiaziendali.dto.request.CreateTravelRequest;
+import it.epicode.gestioneviaggiaziendali.dto.request.DestinationMatch;
+import it.epicode.gestioneviaggiaziendali.dto.request.UpdateTravelRequest;
+import it.epicode.gestioneviaggiaziendali.dto.response.DestinationSuggestionResponse;
+import it.epicode.gestioneviaggiaziendali.dto.response.TravelResponse;
+import it.epicode.gestioneviaggiaziendali.entity.Travel;
+import it.epicode.gestioneviaggiaziendali.entity.TravelStatus;
+import it.epicode.gestioneviaggiaziendali.exception.ConflictException;
+import it.epicode.gestioneviaggiaziendali.exception.ValidationException;
+import it.epicode.gestioneviaggiaziendali.repository.TravelRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@DataJpaTest
+@Import({TravelService.class, DestinationIndex.class})
+class TravelServiceTest {
+
+    @Autowired
+    TravelService travelService;
+    @Autowired
+    TravelRepository travelRepository;
+    @Autowired
+    DestinationIndex destinationIndex;
+    @Autowired
+    TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        travelRepository.saveAll(List.of(
+                travel("Roma", LocalDate.of(2026, 1, 10), TravelStatus.IN_PROGRAMMA),
+                travel("roma", LocalDate.of(2026, 2, 10), TravelStatus.COMPLETATO),
+                travel("Romania", LocalDate.of(2026, 3, 10), TravelStatus.IN_PROGRAMMA),
+                travel("Città di Castello", LocalDate.of(2026, 4, 10), TravelStatus.IN_PROGRAMMA),
+                travel("Sconto 100%_vero", LocalDate.of(2026, 5, 10), TravelStatus.IN_PROGRAMMA),
+                travel("Sconto 1000 falso", LocalDate.of(2026, 6, 10), TravelStatus.IN_PROGRAMMA)));
+        travelRepository.flush();
+        destinationIndex.rebuild();
+    }
+
+    @Test
+    void prefixSearchIsCaseAndAccentInsensitive() {
+        assertThat(destinations(search("ROM", DestinationMatch.PREFIX, null, null, null)))
+                .containsExactly("Roma", "roma", "Romania");
+        assertThat(destinations(search("citta", DestinationMatch.PREFIX, null, null, null)))
+                .containsExactly("Città di Castello");
+        assertThat(search("mania", DestinationMatch.PREFIX, null, null, null).getTotalElements()).isZero();
+    }
+
+    @Test
+    void containsSearchTreatsLikeWildcardsLiterally() {
+        assertThat(destinations(search("MANIA", DestinationMatch.CONTAINS, null, null, null)))
+                .containsExactly("Romania");
+        assertThat(destinations(search("100%_", DestinationMatch.CONTAINS, null, null, null)))
+                .containsExactly("Sconto 100%_vero");
+    }
+
+    @Test
+    void combinesDateRangeAndStatusFilters() {
+        Page<TravelResponse> page = search("rom", DestinationMatch.PREFIX,
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 28), TravelStatus.IN_PROGRAMMA);
+        assertThat(destinations(page)).containsExactly("Roma");
+
+        assertThat(search(null, DestinationMatch.PREFIX, LocalDate.of(2026, 4, 1), null, null).getTotalElements())
+                .isEqualTo(3);
+        assertThatThrownBy(() -> search(null, DestinationMatch.PREFIX,
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1), null))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void destinationIndexMergesNormalizedDuplicatesAndFollowsWrites() {
+        assertThat(travelService.suggestDestinations("ro", null))
+                .containsExactly(new DestinationSuggestionResponse("Roma", 2),
+                        new DestinationSuggestionResponse("Romania", 1));
+        assertThat(travelService.suggestDestinations("", 2)).hasSize(2);
+
+        TravelResponse created = travelService.create(
+                new CreateTravelRequest("Rovigo", LocalDate.of(2026, 7, 1), null, null));
+        assertThat(travelService.suggestDestinations("rov", null))
+                .containsExactly(new DestinationSuggestionResponse("Rovigo", 1));
+
+        travelService.delete(created.id());
+        assertThat(travelService.suggestDestinations("rov", null)).isEmpty();
+    }
+
+    @Test
+    void bookingsDoNotInvalidateAdminEditsButCapacityIsCheckedAgainstSeats() {
+        Travel travel = travel("Udine", LocalDate.of(2026, 8, 1), TravelStatus.IN_PROGRAMMA);
+        travel.setCapacity(5);
+        travel = travelRepository.saveAndFlush(travel);
+        long version = travel.getVersion();
+
+        assertThat(travelRepository.reserveSeats(travel.getId(), travel.getTravelDate(), 3, Instant.now())).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(travelRepository.findById(travel.getId()).orElseThrow().getVersion()).isEqualTo(version);
+        Long id = travel.getId();
+        assertThatThrownBy(() -> travelService.update(id, new UpdateTravelRequest("Udine", LocalDate.of(2026, 8, 1), 2)))
+                .isInstanceOf(ConflictException.class);
+        assertThat(travelService.update(id, new UpdateTravelRequest("Udine", LocalDate.of(2026, 8, 1), 3)).capacity())
+                .isEqualTo(3);
+    }
+
+    private Page<TravelResponse> search(String destination, DestinationMatch match,
+                                        LocalDate from, LocalDate to, TravelStatus status) {
+        return travelService.search(destination, match, from, to, status,
+                PageRequest.of(0, 20, Sort.by("travelDate")));
+    }
+
+    private static List<String> destinations(Page<TravelResponse> page) {
+        return page.getContent().stream().map(TravelResponse::destination).toList();
+    }
+
+    private static Travel travel(String destination, LocalDate date, TravelStatus status) {
+        Travel travel = new Travel();
+        travel.setDestination(destination);
+        travel.setTravelDate(date);
+        travel.setStatus(status);
+        return travel;
+    }
+}